@@ -0,0 +1,38 @@
+#!/usr/bin/env bash
+#
+# Compares two results files produced by run-benchmarks.sh (or by JMH with '-rf csv'). 
+# 
+# Usage: ./compare-benchmarks.sh <baseline.csv> <new.csv>
+#
+# For each benchmark/parameter combination that is in both files, it reports the two scores and their
+# ratio (new/baseline). Remember to check the units: for throughput modes, a ratio > 1 is an improvement, 
+# for time-based modes (avgt, sample, ss) it's the other way around. Differences that are within the reported
+# score errors aren't significant.
+#
+set -e
+
+if [[ $# -ne 2 ]]; then
+	echo -e "\n\tUsage: $0 <baseline.csv> <new.csv>\n"
+	exit 1
+fi
+
+awk -F ',' '
+	function unquote ( s ) { gsub ( /"/, "", s ); return s }
+	function rowKey (   k, i ) {
+		# Benchmark, mode, threads, then all the parameters
+		k = unquote( $1 ) " " unquote ( $2 ) " t=" unquote ( $3 )
+		for ( i = 8; i <= NF; i++ ) if ( unquote ( $i ) != "" ) k = k " " hdr [ i ] "=" unquote ( $i )
+		return k
+	}
+	FNR == 1 { 
+		for ( i = 8; i <= NF; i++ ) { h = unquote ( $i ); sub ( /^Param: /, "", h ); hdr [ i ] = h }
+		next 
+	}
+	NR == FNR { base [ rowKey() ] = unquote ( $5 ); baseErr [ rowKey() ] = unquote ( $6 ); next }
+	{
+		k = rowKey ()
+		if ( ! ( k in base ) ) next
+		b = base [ k ]; n = unquote ( $5 )
+		printf "%-90s %14.3f ± %-10.3f %14.3f ± %-10.3f %-10s ratio: %.3f\n", k, b, baseErr [ k ], n, unquote ( $6 ), unquote ( $7 ), ( b == 0 ? 0 : n / b )
+	}
+' "$1" "$2"
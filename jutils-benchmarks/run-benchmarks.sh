@@ -0,0 +1,28 @@
+#!/usr/bin/env bash
+#
+# Builds the benchmarks against a jutils version and runs them, saving the results into 
+# target/jmh-<version>.csv. 
+#
+# Usage: ./run-benchmarks.sh [<jutils version> [<JMH options>...]]
+#
+# If the version is omitted or 'current', the jutils module in this working copy is used. Anything after 
+# the version is passed to JMH, eg, './run-benchmarks.sh current ProgressLogger -f 2' runs only the progress 
+# logger benchmarks, with two forks (use '-h' for a JMH help).
+#
+set -e
+set -o pipefail
+
+cd "$(dirname $0)"
+
+version="${1:-current}"
+[[ $# -gt 0 ]] && shift
+
+if [[ "$version" == 'current' ]]; then
+	( cd .. && mvn -B -Pbenchmarks -pl jutils-benchmarks -am package -DskipTests -Duberjar.name="benchmarks-$version" )
+else
+	mvn -B package -Djutils.bench.version="$version" -Duberjar.name="benchmarks-$version"
+fi
+
+java -jar "target/benchmarks-$version.jar" -rf csv -rff "target/jmh-$version.csv" "$@"
+
+echo -e "\n\n\tResults saved in target/jmh-$version.csv\n"
@@ -0,0 +1,79 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of {@link ProgressLogger#updateWithIncrement()} when many threads update the same
+ * logger, which is the typical use in batch processing jobs.
+ *
+ * The report action is replaced with a no-op one, so that we measure the progress tracking machinery, not the
+ * logging system.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+@State ( Scope.Benchmark )
+@BenchmarkMode ( Mode.AverageTime )
+@OutputTimeUnit ( TimeUnit.NANOSECONDS )
+@Warmup ( iterations = 3, time = 2 )
+@Measurement ( iterations = 5, time = 2 )
+@Fork ( 1 )
+public class ProgressLoggerBenchmark
+{
+	/** Small values make the report action to be triggered often, large ones measure the update path only */
+	@Param ( { "1000", "1000000" } )
+	private long progressResolution;
+
+	private ProgressLogger progressLogger;
+	private PercentProgressLogger percentLogger;
+
+	@Setup ( Level.Iteration )
+	public void setup ()
+	{
+		progressLogger = new ProgressLogger ( progressResolution );
+		progressLogger.setProgressReportAction ( (oldp, newp) -> {} );
+
+		percentLogger = new PercentProgressLogger ( "{}% done", Long.MAX_VALUE / 2, 1 );
+		percentLogger.setProgressReportAction ( (oldp, newp) -> {} );
+	}
+
+
+	@Benchmark
+	@Threads ( 1 )
+	public void increment1Thread () {
+		progressLogger.updateWithIncrement ();
+	}
+
+	@Benchmark
+	@Threads ( 4 )
+	public void increment4Threads () {
+		progressLogger.updateWithIncrement ();
+	}
+
+	@Benchmark
+	@Threads ( Threads.MAX )
+	public void incrementMaxThreads () {
+		progressLogger.updateWithIncrement ();
+	}
+
+	@Benchmark
+	@Threads ( Threads.MAX )
+	public void percentIncrementMaxThreads () {
+		percentLogger.updateWithIncrement ();
+	}
+}
@@ -0,0 +1,143 @@
+package uk.ac.ebi.utils.threading;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the overhead that {@link BatchService#submit(BatchServiceTask)} adds on top of plain executors.
+ *
+ * Every benchmark invocation submits {@link #TASKS} tiny tasks and waits for all of them to complete, so
+ * the reported figures are per-task submission+completion times.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+@State ( Scope.Benchmark )
+@BenchmarkMode ( Mode.AverageTime )
+@OutputTimeUnit ( TimeUnit.MICROSECONDS )
+@Warmup ( iterations = 3, time = 2 )
+@Measurement ( iterations = 5, time = 2 )
+@Fork ( 1 )
+public class BatchServiceBenchmark
+{
+	public static final int TASKS = 1000;
+
+	@Param ( { "2", "8" } )
+	private int poolSize;
+
+	/** How many CPU tokens each task consumes, to simulate some tiny amount of work */
+	@Param ( { "0", "100" } )
+	private int taskWork;
+
+	private BatchService<BenchTask> batchService;
+	private ExecutorService fixedPool;
+	private ThreadPoolExecutor hackedPool;
+
+	private static class BenchTask extends BatchServiceTask
+	{
+		private final int work;
+
+		public BenchTask ( int work ) {
+			super ( "BenchTask" );
+			this.work = work;
+		}
+
+		@Override
+		public void run () {
+			Blackhole.consumeCPU ( work );
+		}
+	}
+
+	private static final ThreadFactory DAEMON_FACTORY = r -> {
+		Thread t = new Thread ( r );
+		t.setDaemon ( true );
+		return t;
+	};
+
+
+	@Setup ( Level.Trial )
+	public void setup ()
+	{
+		batchService = new BatchService<> ( poolSize );
+		batchService.setSubmissionMsgLogLevel ( uk.org.lidalia.slf4jext.Level.TRACE );
+		batchService.setThreadFactory ( DAEMON_FACTORY );
+		// We want to measure the submission machinery, not the tuner reactions
+		batchService.getPoolSizeTuner ().setPeriodMSecs ( Integer.MAX_VALUE );
+
+		fixedPool = Executors.newFixedThreadPool ( poolSize, DAEMON_FACTORY );
+
+		hackedPool = HackedBlockingQueue.createExecutor ( poolSize, poolSize * 2 );
+		hackedPool.setThreadFactory ( DAEMON_FACTORY );
+	}
+
+	@TearDown ( Level.Trial )
+	public void tearDown ()
+	{
+		batchService.getPoolSizeTuner ().stop ();
+		fixedPool.shutdownNow ();
+		hackedPool.shutdownNow ();
+	}
+
+
+	@Benchmark
+	@OperationsPerInvocation ( TASKS )
+	public void batchService ()
+	{
+		for ( int i = 0; i < TASKS; i++ )
+			batchService.submit ( new BenchTask ( taskWork ) );
+		batchService.waitAllFinished ();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation ( TASKS )
+	public void fixedThreadPool () throws InterruptedException
+	{
+		runAndWait ( fixedPool );
+	}
+
+	@Benchmark
+	@OperationsPerInvocation ( TASKS )
+	public void hackedQueuePool () throws InterruptedException
+	{
+		runAndWait ( hackedPool );
+	}
+
+	private void runAndWait ( ExecutorService executor ) throws InterruptedException
+	{
+		CountDownLatch latch = new CountDownLatch ( TASKS );
+		for ( int i = 0; i < TASKS; i++ )
+		{
+			BenchTask task = new BenchTask ( taskWork );
+			executor.submit ( () -> {
+				try {
+					task.run ();
+				}
+				finally {
+					latch.countDown ();
+				}
+			});
+		}
+		latch.await ();
+	}
+}
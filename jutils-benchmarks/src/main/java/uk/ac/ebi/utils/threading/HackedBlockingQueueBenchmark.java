@@ -0,0 +1,153 @@
+package uk.ac.ebi.utils.threading;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Control;
+
+/**
+ * Compares {@link HackedBlockingQueue} with the standard JDK blocking queues, both as plain producer/consumer
+ * queues and as the work queue of a {@link ThreadPoolExecutor}.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+@BenchmarkMode ( Mode.Throughput )
+@OutputTimeUnit ( TimeUnit.MILLISECONDS )
+@Warmup ( iterations = 3, time = 2 )
+@Measurement ( iterations = 5, time = 2 )
+@Fork ( 1 )
+public class HackedBlockingQueueBenchmark
+{
+	public static final int CAPACITY = 1024;
+	public static final int TASKS = 1000;
+
+	/**
+	 * A shared queue, used by a producer and a consumer. The hacked queue is accessed via offer()/poll(), which
+	 * it turns into blocking operations, the standard ones via put()/take(), which have the same semantics,
+	 * so we actually measure the overhead of the hack.
+	 * 
+	 * Since there is a single producer and a single consumer, they spin until the queue is ready for their 
+	 * operation, so that they never block forever when JMH stops one of them at the end of an iteration.
+	 */
+	@State ( Scope.Group )
+	public static class QueueState
+	{
+		@Param ( { "hacked", "linked", "array" } )
+		public String queueType;
+
+		BlockingQueue<Integer> queue;
+		boolean isHacked;
+
+		@Setup ( Level.Iteration )
+		public void setup ()
+		{
+			isHacked = "hacked".equals ( queueType );
+			queue = isHacked
+				? new HackedBlockingQueue<> ( CAPACITY )
+				: "linked".equals ( queueType )
+					? new LinkedBlockingQueue<> ( CAPACITY )
+					: new ArrayBlockingQueue<> ( CAPACITY );
+		}
+
+	}
+
+	/**
+	 * A fixed pool executor, based on the different queues. For the standard queues, we use the
+	 * {@link ThreadPoolExecutor.CallerRunsPolicy caller-runs policy}, which is the usual alternative to
+	 * the blocking submission that {@link HackedBlockingQueue} provides.
+	 */
+	@State ( Scope.Benchmark )
+	public static class ExecutorState
+	{
+		@Param ( { "hacked", "linked", "array" } )
+		public String queueType;
+
+		@Param ( { "4" } )
+		public int poolSize;
+
+		ThreadPoolExecutor executor;
+
+		@Setup ( Level.Trial )
+		public void setup ()
+		{
+			if ( "hacked".equals ( queueType ) )
+				executor = HackedBlockingQueue.createExecutor ( poolSize, poolSize * 2 );
+			else
+			{
+				BlockingQueue<Runnable> q = "linked".equals ( queueType )
+					? new LinkedBlockingQueue<> ( poolSize * 2 )
+					: new ArrayBlockingQueue<> ( poolSize * 2 );
+				executor = new ThreadPoolExecutor (
+					poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, q, new ThreadPoolExecutor.CallerRunsPolicy ()
+				);
+			}
+			executor.setThreadFactory ( r -> {
+				Thread t = new Thread ( r );
+				t.setDaemon ( true );
+				return t;
+			});
+		}
+
+		@TearDown ( Level.Trial )
+		public void tearDown () {
+			executor.shutdownNow ();
+		}
+	}
+
+
+	@Benchmark
+	@Group ( "queue" )
+	@GroupThreads ( 1 )
+	public void produce ( QueueState state, Control control ) throws InterruptedException
+	{
+		while ( state.queue.remainingCapacity () == 0 )
+			if ( control.stopMeasurement ) return;
+		
+		if ( state.isHacked ) state.queue.offer ( 1 );
+		else state.queue.put ( 1 );
+	}
+
+	@Benchmark
+	@Group ( "queue" )
+	@GroupThreads ( 1 )
+	public Integer consume ( QueueState state, Control control ) throws InterruptedException
+	{
+		while ( state.queue.isEmpty () )
+			if ( control.stopMeasurement ) return null;
+
+		return state.isHacked ? state.queue.poll () : state.queue.take ();
+	}
+
+
+	@Benchmark
+	@OperationsPerInvocation ( TASKS )
+	public void executorSubmission ( ExecutorState state ) throws InterruptedException
+	{
+		CountDownLatch latch = new CountDownLatch ( TASKS );
+		for ( int i = 0; i < TASKS; i++ )
+			state.executor.execute ( latch::countDown );
+		latch.await ();
+	}
+}
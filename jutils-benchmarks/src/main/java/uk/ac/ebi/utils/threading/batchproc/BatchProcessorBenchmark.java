@@ -0,0 +1,114 @@
+package uk.ac.ebi.utils.threading.batchproc;
+
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.ac.ebi.utils.threading.HackedBlockingQueue;
+import uk.ac.ebi.utils.threading.batchproc.processors.ListBasedBatchProcessor;
+
+/**
+ * Measures the item throughput of a {@link BatchProcessor}, for different batch sizes and thread pool
+ * sizes. We use the {@link ListBasedBatchProcessor list-based processor}, since it's the most common one.
+ *
+ * Each invocation processes a stream of {@link #ITEMS} items and waits for the batch jobs to complete,
+ * the reported throughput is in items per ms.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+@State ( Scope.Benchmark )
+@BenchmarkMode ( Mode.Throughput )
+@OutputTimeUnit ( TimeUnit.MILLISECONDS )
+@Warmup ( iterations = 3, time = 2 )
+@Measurement ( iterations = 5, time = 2 )
+@Fork ( 1 )
+public class BatchProcessorBenchmark
+{
+	public static final int ITEMS = 100_000;
+
+	@Param ( { "10", "100", "1000" } )
+	private int batchSize;
+
+	@Param ( { "1", "4", "8" } )
+	private int threads;
+
+	/** How many CPU tokens each item consumes in the batch job */
+	@Param ( { "0", "50" } )
+	private int itemWork;
+
+	private BenchProcessor processor;
+
+	/**
+	 * The processing loops are protected in the processor hierarchy, we need to expose them here.
+	 */
+	private static class BenchProcessor extends ListBasedBatchProcessor<Long, Consumer<List<Long>>>
+	{
+		public BenchProcessor ( Consumer<List<Long>> batchJob, int maxBatchSize ) {
+			super ( batchJob, maxBatchSize );
+		}
+
+		public void run ( LongStream source ) {
+			this.process ( source.boxed () );
+		}
+	}
+
+
+	@Setup ( Level.Trial )
+	public void setup ()
+	{
+		LongAdder sink = new LongAdder ();
+		processor = new BenchProcessor (
+			batch -> {
+				for ( long item: batch ) {
+					Blackhole.consumeCPU ( itemWork );
+					sink.add ( item );
+				}
+			},
+			batchSize
+		);
+		processor.setJobLogPeriod ( -1 );
+
+		ThreadPoolExecutor executor = HackedBlockingQueue.createExecutor ( threads, threads * 2 );
+		executor.setThreadFactory ( r -> {
+			Thread t = new Thread ( r );
+			t.setDaemon ( true );
+			return t;
+		});
+		processor.setExecutor ( executor );
+	}
+
+	@TearDown ( Level.Trial )
+	public void tearDown ()
+	{
+		processor.getExecutor ().shutdownNow ();
+	}
+
+
+	@Benchmark
+	@OperationsPerInvocation ( ITEMS )
+	public void process ()
+	{
+		processor.run ( LongStream.range ( 0, ITEMS ) );
+	}
+}
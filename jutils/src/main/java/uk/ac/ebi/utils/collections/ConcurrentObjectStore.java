@@ -0,0 +1,105 @@
+package uk.ac.ebi.utils.collections;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * <p>Like {@link ObjectStore}, but thread-safe and without global locks, so that it can be populated by many
+ * threads (eg, the tasks of a {@link uk.ac.ebi.utils.threading.batchproc.BatchProcessor}) in parallel.</p>
+ *
+ * <p>This is based on {@link ConcurrentHashMap}, so iterations over {@link #types()}, {@link #typeKeys(Object)}
+ * and {@link #values(Object)} are weakly consistent (ie, they don't throw exceptions when the store is changed
+ * concurrently, but they might not reflect such changes) and neither types nor keys can be null. Use
+ * {@link #getOrCreate(Object, Object, Function)} to atomically get an object or create it if it's not in the store
+ * yet.</p>
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class ConcurrentObjectStore<T, K, V> extends ObjectStore<T, K, V>
+{
+	private final ConcurrentMap<T, ConcurrentMap<K, V>> types = new ConcurrentHashMap<> ();
+	private final LongAdder concurrentSize = new LongAdder ();
+
+	@Override
+	@SuppressWarnings ( { "unchecked", "rawtypes" } )
+	protected Map<T, Map<K, V>> getInternalTypes () {
+		return (Map) this.types;
+	}
+
+
+	/**
+	 * Stores an object, identified by a type and an identifier
+	 * If value is null deletes the entry.
+	 */
+	@Override
+	public void put ( T type, K key, V value )
+	{
+		if ( value == null )
+		{
+			ConcurrentMap<K, V> idmap = types.get ( type );
+			if ( idmap != null && idmap.remove ( key ) != null ) concurrentSize.decrement ();
+			return;
+		}
+
+		if ( getTypeMap ( type ).put ( key, value ) == null ) concurrentSize.increment ();
+	}
+
+	/**
+	 * Stores the object only if there isn't an object for the type and key already.
+	 *
+	 * @return the existing object, or null if the new one was stored.
+	 */
+	public V putIfAbsent ( T type, K key, V value )
+	{
+		V existing = getTypeMap ( type ).putIfAbsent ( key, value );
+		if ( existing == null ) concurrentSize.increment ();
+		return existing;
+	}
+
+	/**
+	 * Returns the object for type and key, or creates it with the factory, if it's not in the store. This is atomic,
+	 * ie, the factory is invoked once per type/key, while other threads asking for the same object wait for it.
+	 * As for {@link ConcurrentHashMap#computeIfAbsent(Object, Function)}, the factory should be short and
+	 * it must not change this store. If it returns null, nothing is stored.
+	 */
+	public V getOrCreate ( T type, K key, Function<? super K, ? extends V> factory )
+	{
+		return getTypeMap ( type ).computeIfAbsent ( key, k ->
+		{
+			V value = factory.apply ( k );
+			if ( value != null ) concurrentSize.increment ();
+			return value;
+		});
+	}
+
+	/**
+	 * Remove all the values associated to the type
+	 */
+	@Override
+	public void remove ( T type )
+	{
+		ConcurrentMap<K, V> idmap = types.get ( type );
+		if ( idmap == null ) return;
+
+		// One by one, so that the size is correct even if other threads are adding objects meanwhile
+		for ( K key: idmap.keySet () )
+			if ( idmap.remove ( key ) != null ) concurrentSize.decrement ();
+	}
+
+	@Override
+	public int size ()
+	{
+		return (int) Math.min ( Integer.MAX_VALUE, concurrentSize.sum () );
+	}
+
+
+	private ConcurrentMap<K, V> getTypeMap ( T type )
+	{
+		return types.computeIfAbsent ( type, t -> new ConcurrentHashMap<> () );
+	}
+}
@@ -0,0 +1,93 @@
+package uk.ac.ebi.utils.memory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import uk.ac.ebi.utils.exceptions.ExceptionUtils;
+
+/**
+ * Converts objects to/from bytes, for the components that store them outside the Java heap, such as
+ * {@link OffHeapCache}.
+ * 
+ * @param <T> the type of objects this serializer manages
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public interface ByteSerializer<T>
+{
+	public byte[] serialize ( T object );
+	
+	public T deserialize ( byte[] bytes );
+	
+	
+	/**
+	 * Uses the standard Java serialisation. This is simple, but not very efficient, you should consider 
+	 * a more specific serializer for large data sets.
+	 */
+	public static <T extends Serializable> ByteSerializer<T> javaSerializer ()
+	{
+		return new ByteSerializer<T> () 
+		{
+			@Override
+			public byte[] serialize ( T object )
+			{
+				ByteArrayOutputStream bout = new ByteArrayOutputStream ();
+				try ( ObjectOutputStream out = new ObjectOutputStream ( bout ) ) {
+					out.writeObject ( object );
+				}
+				catch ( IOException ex ) {
+					throw ExceptionUtils.buildEx ( UncheckedIOException.class, ex, 
+						"Error while serializing an object: %s", ex.getMessage () 
+					);
+				}
+				return bout.toByteArray ();
+			}
+
+			@Override
+			@SuppressWarnings ( "unchecked" )
+			public T deserialize ( byte[] bytes )
+			{
+				try ( ObjectInputStream in = new ObjectInputStream ( new ByteArrayInputStream ( bytes ) ) ) {
+					return (T) in.readObject ();
+				}
+				catch ( IOException ex ) {
+					throw ExceptionUtils.buildEx ( UncheckedIOException.class, ex, 
+						"Error while de-serializing an object: %s", ex.getMessage () 
+					);
+				}
+				catch ( ClassNotFoundException ex ) {
+					throw new IllegalStateException ( 
+						"Error while de-serializing an object: " + ex.getMessage (), ex 
+					);
+				}
+			}
+		};
+	}
+	
+	/**
+	 * Serializes strings in UTF-8.
+	 */
+	public static ByteSerializer<String> stringSerializer ()
+	{
+		return new ByteSerializer<String> () 
+		{
+			@Override
+			public byte[] serialize ( String object ) {
+				return object.getBytes ( StandardCharsets.UTF_8 );
+			}
+
+			@Override
+			public String deserialize ( byte[] bytes ) {
+				return new String ( bytes, StandardCharsets.UTF_8 );
+			}
+		};
+	}
+}
@@ -0,0 +1,185 @@
+package uk.ac.ebi.utils.memory;
+
+import java.lang.ref.Cleaner;
+import java.lang.ref.Cleaner.Cleanable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Diagnostics for the objects registered via {@link MemoryUtils#registerCleaner(Object, Runnable)}, which
+ * can help with finding resources that are never closed.</p>
+ *
+ * <p>When enabled, this counts the registered objects, the ones that were explicitly cleaned (ie, their
+ * {@link Cleanable#clean()} was invoked, typically by their {@code close()} method) and the ones that were
+ * cleaned by the garbage collector. The latter are also logged as warnings, possibly with the stack trace of
+ * the point where they were registered (which is costly, so it's optional).</p>
+ *
+ * <p>The diagnostics are disabled by default. They can be enabled via {@link #setEnabled(boolean, boolean)} or via
+ * the {@link #ENABLED_PROP_NAME} system property, which can be {@code true} or {@code stackTraces}. Only the
+ * objects registered while the diagnostics are enabled are tracked.</p>
+ *
+ * <p>{@link CleaningObject} instances aren't tracked: their cleaning action refers the instance itself, so they're
+ * never cleaned by the GC, and they don't keep their {@link Cleanable}, so they're never explicitly cleaned either.
+ * Tracking them would only make {@link #getPending()} grow forever.</p>
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class CleanerDiagnostics
+{
+	public static final String ENABLED_PROP_NAME = "uk.ac.ebi.utils.memory.cleanerDiagnostics";
+
+	/**
+	 * Wraps the cleaning action, without referring the registered object.
+	 */
+	private static class TrackingAction implements Runnable
+	{
+		private final Runnable action;
+		private final String className;
+		private final Throwable registrationTrace;
+		private final AtomicBoolean isExplicit = new AtomicBoolean ( false );
+
+		private TrackingAction ( Runnable action, String className, Throwable registrationTrace )
+		{
+			this.action = action;
+			this.className = className;
+			this.registrationTrace = registrationTrace;
+		}
+
+		@Override
+		public void run ()
+		{
+			if ( isExplicit.get () ) closedCount.increment ();
+			else
+			{
+				gcCleanedCount.increment ();
+				String msg = "An instance of " + className + " was garbage-collected without being closed";
+				if ( registrationTrace == null ) log.warn ( msg );
+				else log.warn ( msg + ", it was registered at:", registrationTrace );
+			}
+			action.run ();
+		}
+	}
+
+	private static class TrackingCleanable implements Cleanable
+	{
+		private final Cleanable base;
+		private final TrackingAction action;
+
+		private TrackingCleanable ( Cleanable base, TrackingAction action )
+		{
+			this.base = base;
+			this.action = action;
+		}
+
+		@Override
+		public void clean ()
+		{
+			action.isExplicit.set ( true );
+			base.clean ();
+		}
+	}
+
+
+	private static volatile boolean isEnabled = false, recordStackTraces = false;
+
+	private static final LongAdder registeredCount = new LongAdder (),
+		closedCount = new LongAdder (), gcCleanedCount = new LongAdder ();
+
+	private static final Logger log = LoggerFactory.getLogger ( CleanerDiagnostics.class );
+
+	static
+	{
+		String prop = System.getProperty ( ENABLED_PROP_NAME, "false" );
+		if ( "stackTraces".equalsIgnoreCase ( prop ) ) setEnabled ( true, true );
+		else if ( Boolean.parseBoolean ( prop ) ) setEnabled ( true, false );
+	}
+
+	private CleanerDiagnostics () {}
+
+
+	/**
+	 * Registers the object on the cleaner, adding the tracking if the diagnostics are enabled.
+	 */
+	static Cleanable register ( Cleaner cleaner, Object obj, Runnable cleanAction )
+	{
+		if ( !isEnabled || obj instanceof CleaningObject ) return cleaner.register ( obj, cleanAction );
+
+		TrackingAction action = new TrackingAction (
+			cleanAction,
+			obj.getClass ().getName (),
+			recordStackTraces ? new Throwable ( "Cleaner registration" ) : null
+		);
+		Cleanable cleanable = cleaner.register ( obj, action );
+		registeredCount.increment ();
+		return new TrackingCleanable ( cleanable, action );
+	}
+
+
+	/**
+	 * @param isEnabled enables the diagnostics
+	 * @param recordStackTraces records where the objects are registered, to be reported when they're cleaned
+	 *        by the GC.
+	 */
+	public static void setEnabled ( boolean isEnabled, boolean recordStackTraces )
+	{
+		CleanerDiagnostics.recordStackTraces = recordStackTraces;
+		CleanerDiagnostics.isEnabled = isEnabled;
+	}
+
+	public static boolean isEnabled ()
+	{
+		return isEnabled;
+	}
+
+	public static boolean isRecordStackTraces ()
+	{
+		return recordStackTraces;
+	}
+
+	/**
+	 * The tracked objects.
+	 */
+	public static long getRegistered ()
+	{
+		return registeredCount.sum ();
+	}
+
+	/**
+	 * The tracked objects that were explicitly cleaned.
+	 */
+	public static long getClosed ()
+	{
+		return closedCount.sum ();
+	}
+
+	/**
+	 * The tracked objects that were cleaned by the GC, without being explicitly cleaned before.
+	 */
+	public static long getGcCleaned ()
+	{
+		return gcCleanedCount.sum ();
+	}
+
+	/**
+	 * The tracked objects that weren't cleaned yet. These are either in use or leaked.
+	 */
+	public static long getPending ()
+	{
+		return getRegistered () - getClosed () - getGcCleaned ();
+	}
+
+	/**
+	 * Resets the counters.
+	 */
+	public static void reset ()
+	{
+		registeredCount.reset ();
+		closedCount.reset ();
+		gcCleanedCount.reset ();
+	}
+}
@@ -9,6 +9,11 @@ package uk.ac.ebi.utils.memory;
  * 
  * <p>This can be useful when you have a set of classes with an old finalize method, which you can 
  * subclass, after having renamed {@code finalize()} into {@code close()}.</p>
+ * 
+ * <p><b>WARNING</b>: since the registered cleaning action refers the instance, the latter remains reachable from 
+ * the cleaner and hence {@link #close()} is never invoked by the garbage collector. For new code, register a cleaning 
+ * action that refers the resources to release only, as explained in {@link java.lang.ref.Cleaner}. For the same
+ * reason, these instances aren't tracked by {@link CleanerDiagnostics}.</p>
  *
  * @author brandizi
  * <dl><dt>Date:</dt><dd>31 Mar 2020</dd></dl>
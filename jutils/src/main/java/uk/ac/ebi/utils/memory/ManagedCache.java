@@ -0,0 +1,388 @@
+package uk.ac.ebi.utils.memory;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheLoader.InvalidCacheLoadException;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import uk.ac.ebi.utils.threading.ThreadUtils;
+
+/**
+ * <p>A cache with the features that {@link SimpleCache} lacks, based on the Guava {@link CacheBuilder cache}:</p>
+ *
+ * <ul>
+ *   <li>get-or-compute via a {@link Builder#build(Function) loader} or a {@link #get(Object, Function) per-call
+ *   function}, in both cases, concurrent requests for the same key are computed once, the other callers wait for
+ *   the result</li>
+ *   <li>expiration after write or access</li>
+ *   <li>size limits based on the number of entries or on their {@link Builder#maximumWeight(long, ToIntBiFunction)
+ *   weight}</li>
+ *   <li>asynchronous refresh of old entries, which keeps serving the old value while the new one is
+ *   computed</li>
+ *   <li>hit/miss/eviction statistics, available via {@link #getStats()}, {@link Builder#evictionListener(BiConsumer)
+ *   eviction notifications} and a {@link Builder#statsListener(Consumer, long) periodic metrics hook}</li>
+ * </ul>
+ *
+ * <p>Null values aren't cached: if the loader returns null, {@link #get(Object)} returns null and the next call
+ * will try to load the value again.</p>
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class ManagedCache<K, V>
+{
+	/**
+	 * Builds a {@link ManagedCache}. Time parameters are in ms.
+	 */
+	public static class Builder<K, V>
+	{
+		private long maximumSize = -1, maximumWeight = -1;
+		private ToIntBiFunction<? super K, ? super V> weigher;
+		private long expireAfterWrite = -1, expireAfterAccess = -1, refreshAfterWrite = -1;
+		private Executor refreshExecutor = ThreadUtils.getSharedWorkerExecutor ();
+		private BiConsumer<? super K, ? super V> evictionListener;
+		private Consumer<CacheStats> statsListener;
+		private long statsListenerPeriod;
+		private double memoryPressureEvictionRatio = -1;
+
+		private Builder () {
+		}
+
+		/**
+		 * Limits the cache based on the number of entries. This can't be used together with
+		 * {@link #maximumWeight(long, ToIntBiFunction)}.
+		 */
+		public Builder<K, V> maximumSize ( long maximumSize )
+		{
+			this.maximumSize = maximumSize;
+			return this;
+		}
+
+		/**
+		 * Limits the cache based on the total weight of its entries, eg, an estimate of their size in bytes
+		 * (see {@link ObjectSizeEstimator}). This can't be used together with {@link #maximumSize(long)}.
+		 */
+		public Builder<K, V> maximumWeight ( long maximumWeight, ToIntBiFunction<? super K, ? super V> weigher )
+		{
+			this.maximumWeight = maximumWeight;
+			this.weigher = weigher;
+			return this;
+		}
+
+		public Builder<K, V> expireAfterWrite ( long expireAfterWrite )
+		{
+			this.expireAfterWrite = expireAfterWrite;
+			return this;
+		}
+
+		public Builder<K, V> expireAfterAccess ( long expireAfterAccess )
+		{
+			this.expireAfterAccess = expireAfterAccess;
+			return this;
+		}
+
+		/**
+		 * An entry older than this is reloaded in background on {@link #refreshExecutor(Executor)}, at its first
+		 * request after this time. Meanwhile, the old value is returned. This requires a loader.
+		 */
+		public Builder<K, V> refreshAfterWrite ( long refreshAfterWrite )
+		{
+			this.refreshAfterWrite = refreshAfterWrite;
+			return this;
+		}
+
+		/**
+		 * Default is {@link ThreadUtils#getSharedWorkerExecutor()}.
+		 */
+		public Builder<K, V> refreshExecutor ( Executor refreshExecutor )
+		{
+			this.refreshExecutor = refreshExecutor;
+			return this;
+		}
+
+		/**
+		 * Invoked when an entry is evicted, due to size limits or expiration. This isn't invoked when entries are
+		 * explicitly invalidated or replaced.
+		 */
+		public Builder<K, V> evictionListener ( BiConsumer<? super K, ? super V> evictionListener )
+		{
+			this.evictionListener = evictionListener;
+			return this;
+		}
+
+		/**
+		 * A metrics hook, which receives the cache stats every period ms. The task runs on
+		 * {@link ThreadUtils#getSharedScheduler()} and it stops when the cache isn't used anymore.
+		 * 
+		 * @throws IllegalArgumentException if the period isn't positive.
+		 */
+		public Builder<K, V> statsListener ( Consumer<CacheStats> statsListener, long period )
+		{
+			if ( period <= 0 ) throw new IllegalArgumentException (
+				"ManagedCache stats listener period must be positive, but it's " + period
+			);
+			this.statsListener = statsListener;
+			this.statsListenerPeriod = period;
+			return this;
+		}
+
+		/**
+		 * If set, the cache is {@link MemoryPressureMonitor#register(Object, java.util.function.ObjDoubleConsumer)
+		 * registered} with the {@link MemoryPressureMonitor}, which {@link ManagedCache#shrink(double) shrinks} it by
+		 * this ratio of entries when the heap is running low.
+		 */
+		public Builder<K, V> shrinkOnMemoryPressure ( double evictionRatio )
+		{
+			this.memoryPressureEvictionRatio = evictionRatio;
+			return this;
+		}
+
+		/**
+		 * A cache without a default loader, values are added via {@link ManagedCache#put(Object, Object)}
+		 * or {@link ManagedCache#get(Object, Function)}.
+		 */
+		public ManagedCache<K, V> build () {
+			return build ( null );
+		}
+
+		public ManagedCache<K, V> build ( Function<? super K, ? extends V> loader )
+		{
+			if ( refreshAfterWrite > 0 && loader == null ) throw new IllegalArgumentException (
+				"ManagedCache can't be refreshed without a loader"
+			);
+			if ( maximumSize >= 0 && maximumWeight >= 0 ) throw new IllegalArgumentException (
+				"ManagedCache can't be limited by both the maximum size and the maximum weight"
+			);
+			return new ManagedCache<> ( this, loader );
+		}
+
+		@SuppressWarnings ( "unchecked" )
+		private CacheBuilder<K, V> cacheBuilder ()
+		{
+			CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder ().recordStats ();
+
+			if ( maximumSize >= 0 ) builder.maximumSize ( maximumSize );
+			if ( maximumWeight >= 0 )
+				builder.maximumWeight ( maximumWeight )
+					.weigher ( ( k, v ) -> weigher.applyAsInt ( (K) k, (V) v ) );
+			if ( expireAfterWrite >= 0 ) builder.expireAfterWrite ( expireAfterWrite, TimeUnit.MILLISECONDS );
+			if ( expireAfterAccess >= 0 ) builder.expireAfterAccess ( expireAfterAccess, TimeUnit.MILLISECONDS );
+			if ( refreshAfterWrite > 0 ) builder.refreshAfterWrite ( refreshAfterWrite, TimeUnit.MILLISECONDS );
+
+			if ( evictionListener == null ) return (CacheBuilder<K, V>) (CacheBuilder<?, ?>) builder;
+
+			BiConsumer<? super K, ? super V> listener = evictionListener;
+			return builder.removalListener ( n -> {
+				if ( n.wasEvicted () ) listener.accept ( n.getKey (), n.getValue () );
+			});
+		}
+	}
+
+
+	private final Cache<K, V> cache;
+	private final LoadingCache<K, V> loadingCache;
+
+	private static final Logger log = LoggerFactory.getLogger ( ManagedCache.class );
+
+
+	private ManagedCache ( Builder<K, V> builder, Function<? super K, ? extends V> loader )
+	{
+		CacheBuilder<K, V> cacheBuilder = builder.cacheBuilder ();
+		if ( loader == null ) {
+			this.cache = cacheBuilder.build ();
+			this.loadingCache = null;
+		}
+		else
+		{
+			CacheLoader<K, V> cacheLoader = CacheLoader.from ( loader::apply );
+			if ( builder.refreshAfterWrite > 0 )
+				cacheLoader = CacheLoader.asyncReloading ( cacheLoader, builder.refreshExecutor );
+			this.cache = this.loadingCache = cacheBuilder.build ( cacheLoader );
+		}
+
+		if ( builder.statsListener != null )
+			scheduleStats ( new WeakReference<> ( this ), builder.statsListener, builder.statsListenerPeriod );
+
+		double evictionRatio = builder.memoryPressureEvictionRatio;
+		if ( evictionRatio > 0 )
+			MemoryPressureMonitor.getInstance ().register ( this, ( cache, usedRatio ) -> cache.shrink ( evictionRatio ) );
+	}
+
+	public static <K, V> Builder<K, V> builder () {
+		return new Builder<> ();
+	}
+
+
+	/**
+	 * Gets the value from the cache or from the loader. Exceptions from the loader are re-thrown, wrapped by
+	 * {@link UncheckedExecutionException} if they're checked.
+	 *
+	 * @throws IllegalStateException if this cache doesn't have a loader.
+	 */
+	public V get ( K key )
+	{
+		if ( loadingCache == null ) throw new IllegalStateException (
+			"Can't use ManagedCache.get() without a loader, use get ( key, loader )"
+		);
+		try {
+			return loadingCache.get ( key );
+		}
+		catch ( InvalidCacheLoadException ex ) {
+			// The loader returned null
+			return null;
+		}
+		catch ( ExecutionException | UncheckedExecutionException | ExecutionError ex ) {
+			throw unwrap ( ex );
+		}
+	}
+
+	/**
+	 * Gets the value from the cache or from the loader parameter, which is used instead of the cache's loader.
+	 */
+	public V get ( K key, Function<? super K, ? extends V> loader )
+	{
+		try {
+			return cache.get ( key, () -> loader.apply ( key ) );
+		}
+		catch ( InvalidCacheLoadException ex ) {
+			return null;
+		}
+		catch ( ExecutionException | UncheckedExecutionException | ExecutionError ex ) {
+			throw unwrap ( ex );
+		}
+	}
+
+	/**
+	 * Doesn't invoke any loader, returns null if the key isn't in the cache.
+	 */
+	public V getIfPresent ( K key ) {
+		return cache.getIfPresent ( key );
+	}
+
+	public void put ( K key, V value ) {
+		cache.put ( key, value );
+	}
+
+	/**
+	 * Reloads the value in background (if the cache was built with {@link Builder#refreshAfterWrite(long)}) or
+	 * in the current thread. Meanwhile, the old value is returned by the getters.
+	 */
+	public void refresh ( K key )
+	{
+		if ( loadingCache == null ) throw new IllegalStateException (
+			"Can't use ManagedCache.refresh() without a loader"
+		);
+		loadingCache.refresh ( key );
+	}
+
+	public void invalidate ( K key ) {
+		cache.invalidate ( key );
+	}
+
+	public void invalidateAll () {
+		cache.invalidateAll ();
+	}
+
+	/**
+	 * Removes the given ratio (0-1) of entries. Which entries are removed is arbitrary, ie, it doesn't follow the
+	 * recent use of the entries.
+	 */
+	public void shrink ( double ratio )
+	{
+		if ( ratio >= 1 ) {
+			cache.invalidateAll ();
+			return;
+		}
+
+		long toRemove = (long) ( cache.size () * ratio );
+		Iterator<K> keys = cache.asMap ().keySet ().iterator ();
+		for ( ; toRemove > 0 && keys.hasNext (); toRemove-- )
+		{
+			keys.next ();
+			keys.remove ();
+		}
+	}
+
+	/**
+	 * The approximate number of entries.
+	 */
+	public long size () {
+		return cache.size ();
+	}
+
+	/**
+	 * Hit/miss/load/eviction statistics since the cache creation.
+	 */
+	public CacheStats getStats () {
+		return cache.stats ();
+	}
+
+	/**
+	 * A view of the cache as a map, changes to it are reflected in the cache.
+	 */
+	public ConcurrentMap<K, V> asMap () {
+		return cache.asMap ();
+	}
+
+	/**
+	 * Runs pending maintenance, such as removing expired entries. Usually you don't need it, since this is
+	 * done during normal operations.
+	 */
+	public void cleanUp () {
+		cache.cleanUp ();
+	}
+
+
+	private static RuntimeException unwrap ( Throwable ex )
+	{
+		Throwable cause = ex.getCause ();
+		if ( cause instanceof RuntimeException ) return (RuntimeException) cause;
+		if ( cause instanceof Error ) throw (Error) cause;
+		return ex instanceof RuntimeException
+			? (RuntimeException) ex
+			: new UncheckedExecutionException ( "Error while loading a cache value: " + ex.getMessage (), cause );
+	}
+
+	/**
+	 * Refers the cache weakly, so that the task stops when it isn't used anymore, in the same way
+	 * {@link uk.ac.ebi.utils.runcontrol.StatsExecutor} does.
+	 */
+	private static void scheduleStats (
+		WeakReference<ManagedCache<?, ?>> cacheRef, Consumer<CacheStats> listener, long period
+	)
+	{
+		ThreadUtils.getSharedScheduler ().schedule ( () ->
+		{
+			ManagedCache<?, ?> cache = cacheRef.get ();
+			if ( cache == null ) return;
+			try {
+				listener.accept ( cache.getStats () );
+			}
+			catch ( RuntimeException ex ) {
+				log.error ( "Error while reporting cache stats: {}", ex.getMessage (), ex );
+			}
+			finally {
+				scheduleStats ( cacheRef, listener, period );
+			}
+		}, period, TimeUnit.MILLISECONDS );
+	}
+}
@@ -0,0 +1,186 @@
+package uk.ac.ebi.utils.memory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.ac.ebi.utils.threading.ThreadUtils;
+
+/**
+ * <p>A non-blocking version of {@link MemoryUtils#checkMemory(Runnable, double, boolean)}, which is cheap enough to
+ * be invoked by many threads for every processed item.</p>
+ *
+ * <p>The free memory is actually {@link MemoryUtils#getFreeMemoryRatio() checked} at most once every
+ * {@link #setCheckPeriod(long) check period}, by the first thread that calls {@link #check()} after the period is
+ * over, the other calls just return. When the free memory is below the threshold, the cleaning action is run
+ * asynchronously on the {@link #setExecutor(Executor) executor} (use {@code Runnable::run} to run it inline) and
+ * there is never more than one cleaning running at a time. No lock is involved.</p>
+ *
+ * <p>Unlike {@link MemoryUtils#checkMemory(Runnable, double, boolean)}, by default, this doesn't invoke the
+ * garbage collector after the cleaning, since the JVM usually knows better when to do it.</p>
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class MemoryChecker
+{
+	private final Runnable action;
+	private final double minFreeMemoryRatio;
+	private long checkPeriod = 1000;
+	private boolean callGc = false;
+	private Executor executor = ThreadUtils.getSharedWorkerExecutor ();
+
+	private final AtomicLong nextCheckTime = new AtomicLong ( 0 );
+	private volatile double lastFreeMemoryRatio = 1d;
+	private final AtomicBoolean isCleaning = new AtomicBoolean ( false );
+	private final LongAdder cleanings = new LongAdder ();
+
+	private static final Logger log = LoggerFactory.getLogger ( MemoryChecker.class );
+
+
+	/**
+	 * @param action what to run when the free memory is below the threshold
+	 * @param minFreeMemoryRatio the threshold (0-1)
+	 */
+	public MemoryChecker ( Runnable action, double minFreeMemoryRatio )
+	{
+		this.action = action;
+		this.minFreeMemoryRatio = minFreeMemoryRatio;
+	}
+
+	/**
+	 * Defaults to 0.2 (20%), as {@link MemoryUtils#checkMemory(Runnable)}.
+	 */
+	public MemoryChecker ( Runnable action )
+	{
+		this ( action, 0.2 );
+	}
+
+
+	/**
+	 * Checks the memory if the check period is over and no other thread is doing it and, if the free memory is
+	 * below the threshold, submits the cleaning action, unless it's already running.
+	 *
+	 * @return true if the cleaning action was submitted.
+	 */
+	public boolean check ()
+	{
+		long now = System.currentTimeMillis ();
+		long next = nextCheckTime.get ();
+		if ( now < next ) return false;
+
+		// Only one thread wins the check
+		if ( !nextCheckTime.compareAndSet ( next, now + checkPeriod ) ) return false;
+
+		double freeMemRatio = lastFreeMemoryRatio = MemoryUtils.getFreeMemoryRatio ();
+		if ( freeMemRatio >= minFreeMemoryRatio ) return false;
+
+		if ( !isCleaning.compareAndSet ( false, true ) ) return false;
+
+		if ( log.isTraceEnabled () ) log.trace ( String.format (
+			"Invoking memory cleaning to increase the quota of %.1f%% free memory", freeMemRatio * 100
+		));
+
+		try {
+			executor.execute ( this::clean );
+		}
+		catch ( RuntimeException ex ) {
+			isCleaning.set ( false );
+			throw ex;
+		}
+		return true;
+	}
+
+	private void clean ()
+	{
+		try
+		{
+			action.run ();
+			if ( callGc ) Runtime.getRuntime ().gc ();
+			cleanings.increment ();
+		}
+		catch ( RuntimeException ex ) {
+			log.error ( "Error while running the memory cleaning action: " + ex.getMessage (), ex );
+		}
+		finally {
+			isCleaning.set ( false );
+		}
+	}
+
+
+	public long getCheckPeriod ()
+	{
+		return checkPeriod;
+	}
+
+	/**
+	 * The min time (ms) between two actual memory checks. Default is 1s.
+	 */
+	public MemoryChecker setCheckPeriod ( long checkPeriod )
+	{
+		this.checkPeriod = checkPeriod;
+		return this;
+	}
+
+	public boolean isCallGc ()
+	{
+		return callGc;
+	}
+
+	/**
+	 * If true, {@link Runtime#gc()} is invoked after the cleaning action. Default is false.
+	 */
+	public MemoryChecker setCallGc ( boolean callGc )
+	{
+		this.callGc = callGc;
+		return this;
+	}
+
+	public Executor getExecutor ()
+	{
+		return executor;
+	}
+
+	/**
+	 * Where the cleaning action runs. Default is {@link ThreadUtils#getSharedWorkerExecutor()}.
+	 */
+	public MemoryChecker setExecutor ( Executor executor )
+	{
+		this.executor = executor;
+		return this;
+	}
+
+	public double getMinFreeMemoryRatio ()
+	{
+		return minFreeMemoryRatio;
+	}
+
+	/**
+	 * The free memory ratio computed by the last actual check, 1 if no check was done yet.
+	 */
+	public double getLastFreeMemoryRatio ()
+	{
+		return lastFreeMemoryRatio;
+	}
+
+	/**
+	 * true if the cleaning action is running.
+	 */
+	public boolean isCleaning ()
+	{
+		return isCleaning.get ();
+	}
+
+	/**
+	 * The number of completed cleanings.
+	 */
+	public long getCleanings ()
+	{
+		return cleanings.sum ();
+	}
+}
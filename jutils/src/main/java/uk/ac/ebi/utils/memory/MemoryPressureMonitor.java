@@ -0,0 +1,241 @@
+package uk.ac.ebi.utils.memory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ObjDoubleConsumer;
+import java.util.stream.Collectors;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.ac.ebi.utils.threading.ThreadUtils;
+
+/**
+ * <p>Notifies registered components (eg, caches) when the heap is running low, so that they can release memory
+ * proactively.</p>
+ *
+ * <p>Unlike {@link MemoryUtils#checkMemory(Runnable, double, boolean)}, this doesn't need polling and doesn't force
+ * any garbage collection: it's based on the JVM {@link MemoryPoolMXBean#setCollectionUsageThreshold(long) collection
+ * usage thresholds} of the heap pools that support them (ie, the old generation), which are notified by the JVM when
+ * the pool occupancy measured after a garbage collection crosses the {@link #setThreshold(double) threshold}. That's
+ * the memory that is actually retained, while the plain occupancy also includes the garbage that wasn't collected
+ * yet and hence it would trigger false alarms. Only for the heap pools that don't support the collection thresholds,
+ * the plain {@link MemoryPoolMXBean#setUsageThreshold(long) usage thresholds} are used as a fallback. The JVM doesn't
+ * send a new notification until the occupancy goes below the threshold and then it crosses it again.</p>
+ *
+ * <p>Components are {@link #register(Object, ObjDoubleConsumer) registered} with a shrinking action. They're referred
+ * weakly, so registering doesn't prevent them from being garbage-collected. The actions are run asynchronously on
+ * {@link ThreadUtils#getSharedWorkerExecutor()}.</p>
+ *
+ * <p>{@link ManagedCache} {@link ManagedCache.Builder#shrinkOnMemoryPressure(double) can be registered}
+ * automatically. {@link uk.ac.ebi.utils.collections.ObjectStore object stores} aren't, since they're typically
+ * used as identity maps (eg, to resolve object references while parsing), so silently dropping their entries
+ * would make the same key map to different objects over time. If you use a store as a plain cache,
+ * where dropping entries is safe, you can register it yourself, with an action that removes its less
+ * important types.</p>
+ *
+ * <p>There is one instance of this class per JVM, since the pool thresholds are global.</p>
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class MemoryPressureMonitor
+{
+	public static final double DEFAULT_THRESHOLD = 0.8;
+
+	private static class Registration<T>
+	{
+		private final WeakReference<T> ownerRef;
+		private final ObjDoubleConsumer<T> shrinkAction;
+
+		private Registration ( T owner, ObjDoubleConsumer<T> shrinkAction )
+		{
+			this.ownerRef = new WeakReference<> ( owner );
+			this.shrinkAction = shrinkAction;
+		}
+	}
+
+	private static class InstanceHolder {
+		private static final MemoryPressureMonitor INSTANCE = new MemoryPressureMonitor ();
+	}
+
+	private final List<MemoryPoolMXBean> pools;
+	/** The pools that don't support the collection usage thresholds, see the class comment */
+	private final Set<String> usageThresholdPoolNames;
+	private final List<Registration<?>> registrations = new CopyOnWriteArrayList<> ();
+	private volatile double threshold;
+	private volatile Executor executor = ThreadUtils.getSharedWorkerExecutor ();
+	private final LongAdder pressureEvents = new LongAdder ();
+
+	private static final Logger log = LoggerFactory.getLogger ( MemoryPressureMonitor.class );
+
+
+	private MemoryPressureMonitor ()
+	{
+		this.pools = ManagementFactory.getMemoryPoolMXBeans ()
+			.stream ()
+			.filter ( p -> p.getType () == MemoryType.HEAP )
+			.filter ( p -> p.isCollectionUsageThresholdSupported () || p.isUsageThresholdSupported () )
+			.collect ( Collectors.toList () );
+		this.usageThresholdPoolNames = pools.stream ()
+			.filter ( p -> !p.isCollectionUsageThresholdSupported () )
+			.map ( MemoryPoolMXBean::getName )
+			.collect ( Collectors.toSet () );
+
+		if ( pools.isEmpty () )
+			log.warn ( "No heap pool supports usage thresholds, memory pressure notifications are disabled" );
+
+		NotificationEmitter emitter = (NotificationEmitter) ManagementFactory.getMemoryMXBean ();
+		emitter.addNotificationListener (
+			( notification, handback ) -> handleNotification ( notification ),
+			n -> MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED.equals ( n.getType () )
+				|| MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals ( n.getType () ),
+			null
+		);
+
+		setThreshold ( DEFAULT_THRESHOLD );
+	}
+
+	public static MemoryPressureMonitor getInstance () {
+		return InstanceHolder.INSTANCE;
+	}
+
+
+	/**
+	 * Registers a component to be shrunk under memory pressure.
+	 *
+	 * @param owner the component, which is referred weakly and passed to the action.
+	 * @param shrinkAction receives the owner and the occupancy of the pool that triggered the event (0-1). This
+	 *        shouldn't refer the owner, else the owner will never be garbage-collected.
+	 */
+	public <T> void register ( T owner, ObjDoubleConsumer<T> shrinkAction )
+	{
+		registrations.add ( new Registration<> ( owner, shrinkAction ) );
+	}
+
+	public void unregister ( Object owner )
+	{
+		registrations.removeIf ( r -> {
+			Object registered = r.ownerRef.get ();
+			return registered == null || registered == owner;
+		});
+	}
+
+
+	private void handleNotification ( Notification notification )
+	{
+		MemoryNotificationInfo info = MemoryNotificationInfo.from ( (CompositeData) notification.getUserData () );
+
+		// The pre-GC occupancy is used only when the pool has no better option
+		if ( MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED.equals ( notification.getType () )
+			&& !usageThresholdPoolNames.contains ( info.getPoolName () ) ) return;
+
+		MemoryUsage usage = info.getUsage ();
+		double usedRatio = (double) usage.getUsed () / usage.getMax ();
+
+		if ( log.isDebugEnabled () ) log.debug ( String.format (
+			"Memory pressure on the pool \"%s\", %.1f%% used, shrinking %d registered component(s)",
+			info.getPoolName (), usedRatio * 100, registrations.size ()
+		));
+		firePressure ( usedRatio );
+	}
+
+	/**
+	 * Runs the shrinking actions, removing the registrations of the components that were garbage-collected.
+	 * This is package-private for testing purposes.
+	 */
+	void firePressure ( double usedRatio )
+	{
+		pressureEvents.increment ();
+		for ( Registration<?> registration: registrations )
+			if ( !shrink ( registration, usedRatio ) ) registrations.remove ( registration );
+	}
+
+	private <T> boolean shrink ( Registration<T> registration, double usedRatio )
+	{
+		T owner = registration.ownerRef.get ();
+		if ( owner == null ) return false;
+
+		executor.execute ( () ->
+		{
+			try {
+				registration.shrinkAction.accept ( owner, usedRatio );
+			}
+			catch ( RuntimeException ex ) {
+				log.error ( "Error while shrinking a component under memory pressure: " + ex.getMessage (), ex );
+			}
+		});
+		return true;
+	}
+
+
+	public double getThreshold ()
+	{
+		return threshold;
+	}
+
+	/**
+	 * The occupancy ratio (0-1) of the old generation pool that triggers the pressure events. Default is
+	 * {@link #DEFAULT_THRESHOLD}. This is applied to the occupancy measured after the garbage collections, or to
+	 * the current occupancy for the pools that don't support the former.
+	 */
+	public synchronized MemoryPressureMonitor setThreshold ( double threshold )
+	{
+		if ( threshold <= 0 || threshold >= 1 ) throw new IllegalArgumentException (
+			"The memory pressure threshold must be between 0 and 1"
+		);
+		this.threshold = threshold;
+
+		for ( MemoryPoolMXBean pool: pools )
+		{
+			long max = pool.getUsage ().getMax ();
+			if ( max <= 0 ) {
+				log.debug ( "The pool \"{}\" has no max size, can't set a pressure threshold for it", pool.getName () );
+				continue;
+			}
+			long limit = (long) ( max * threshold );
+			if ( pool.isCollectionUsageThresholdSupported () ) pool.setCollectionUsageThreshold ( limit );
+			else pool.setUsageThreshold ( limit );
+		}
+		return this;
+	}
+
+	/**
+	 * Where the shrinking actions run. Default is {@link ThreadUtils#getSharedWorkerExecutor()}.
+	 */
+	public MemoryPressureMonitor setExecutor ( Executor executor )
+	{
+		this.executor = executor;
+		return this;
+	}
+
+	/**
+	 * false if the JVM doesn't support any usage threshold on the heap, in which case no event is ever notified.
+	 */
+	public boolean isSupported ()
+	{
+		return !pools.isEmpty ();
+	}
+
+	/**
+	 * The number of pressure events notified so far.
+	 */
+	public long getPressureEvents ()
+	{
+		return pressureEvents.sum ();
+	}
+}
@@ -83,13 +83,14 @@ public class MemoryUtils
 	 * 
 	 * <p>Note the method is synchronised, so that you can avoid that a number of threads trigger a memory reset almost
 	 * simultaneously.</p> 
+	 * 
+	 * @see MemoryPressureMonitor for components that can release memory without being polled.
+	 * @see MemoryChecker for a non-blocking version of this check, to be used in hot loops.
 	 */
 	public static synchronized boolean checkMemory ( Runnable action, double minFreeMemoryRatio, boolean callGc )
 	{
 		Runtime runtime = Runtime.getRuntime ();
-		
-		// actual free mem = max - occupied -> max - (total - free)
-		float freeMemRatio = ( (float) runtime.maxMemory () - ( runtime.totalMemory () - runtime.freeMemory () ) ) / runtime.maxMemory ();
+		double freeMemRatio = getFreeMemoryRatio ();
 
 		if ( freeMemRatio < minFreeMemoryRatio )
 		{
@@ -107,6 +108,17 @@ public class MemoryUtils
 		return false;
 	}
 	
+	/**
+	 * The amount of memory still available to the JVM, in relation to the max memory it can use, see 
+	 * {@link #checkMemory(Runnable, double, boolean)}. 
+	 */
+	public static double getFreeMemoryRatio ()
+	{
+		Runtime runtime = Runtime.getRuntime ();
+		// actual free mem = max - occupied -> max - (total - free)
+		return ( (double) runtime.maxMemory () - ( runtime.totalMemory () - runtime.freeMemory () ) ) / runtime.maxMemory ();
+	}
+	
 	/**
 	 * Defaults to callGc = true.
 	 */
@@ -131,12 +143,28 @@ public class MemoryUtils
 	 * 
 	 * @param cleanAction is the old finalize method, something you want to do when 
 	 * the object isn't reachable anymore. This is {@link Cleaner#register(Object, Runnable) registered}
-	 * into a new cleaner and hence set to be auto-invoked when necessary.
+	 * into the {@link #getSharedCleaner() shared cleaner} and hence set to be auto-invoked when necessary. 
+	 * As explained in {@link Cleaner}, this must not refer obj, else obj never becomes unreachable.
 	 * 
 	 * @see CleaningObject
+	 * @see CleanerDiagnostics
 	 */
 	public static Cleanable registerCleaner ( Object obj, Runnable cleanAction )
 	{
-		return Cleaner.create ().register ( obj, cleanAction );
+		return CleanerDiagnostics.register ( getSharedCleaner (), obj, cleanAction );
+	}
+	
+	/**
+	 * A {@link Cleaner} that is shared by the whole JVM. Each cleaner uses its own thread, so creating one for 
+	 * every registered object isn't a good idea. 
+	 */
+	public static Cleaner getSharedCleaner ()
+	{
+		return SharedCleanerHolder.CLEANER;
+	}
+	
+	private static class SharedCleanerHolder 
+	{
+		private static final Cleaner CLEANER = Cleaner.create ();
 	}
 }
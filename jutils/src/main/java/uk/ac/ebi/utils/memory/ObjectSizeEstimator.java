@@ -0,0 +1,384 @@
+package uk.ac.ebi.utils.memory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.ToLongFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+/**
+ * <p>Estimates the memory taken by objects, eg, to define batches or cache limits in bytes.</p>
+ *
+ * <p>The {@link #shallowSizeOf(Object) shallow size} of an object is computed from the sizes of its instance
+ * fields, the object header and the alignment used by the current JVM (eg, if it uses compressed references).
+ * The layout of each class is computed once, via reflection, and then cached. The
+ * {@link #deepSizeOf(Object) deep size} is the size of the whole graph reachable from an object, where each
+ * object is counted once.</p>
+ *
+ * <p>{@link Collection}s and {@link Map}s aren't inspected via reflection: their internal structure is estimated
+ * from their number of elements and their elements are visited via their public interface. For large collections
+ * and arrays (more than {@link #setSampleThreshold(int) sampleThreshold} elements), only a sample of the
+ * elements is visited and the result is scaled up to the actual number of elements. That's a good estimate
+ * when the elements have similar sizes.</p>
+ *
+ * <p>Objects like {@link Class}es and enum constants, which are shared by the whole JVM, aren't counted.
+ * Other types can be sized by {@link #addSizer(Class, ToLongFunction) custom sizers}, which are also useful to
+ * avoid reflection on classes that don't allow it (in which case, the estimator returns the shallow size only).</p>
+ *
+ * <p>This is an estimate, eg, it doesn't consider field padding or the spare capacity of collections, but it's
+ * cheap enough to be invoked for every item in a batch or a cache.</p>
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class ObjectSizeEstimator
+{
+	private static class ClassLayout
+	{
+		private final long shallowSize;
+		private final Field[] referenceFields;
+
+		private ClassLayout ( long shallowSize, Field[] referenceFields )
+		{
+			this.shallowSize = shallowSize;
+			this.referenceFields = referenceFields;
+		}
+	}
+
+	private static class DefaultInstanceHolder {
+		private static final ObjectSizeEstimator INSTANCE = new ObjectSizeEstimator ();
+	}
+
+	private static final boolean IS_64_BIT = !"32".equals ( System.getProperty ( "sun.arch.data.model" ) );
+
+	/** The size of a reference */
+	public static final int REFERENCE_SIZE;
+
+	/** The size of an object header */
+	public static final int OBJECT_HEADER_SIZE;
+
+	/** The size of an array header, including the length field */
+	public static final int ARRAY_HEADER_SIZE;
+
+	private static final int ALIGNMENT = 8;
+
+	private static final Logger log = LoggerFactory.getLogger ( ObjectSizeEstimator.class );
+
+	static
+	{
+		boolean compressedOops = getVmOption ( "UseCompressedOops", Runtime.getRuntime ().maxMemory () < 32L << 30 );
+		boolean compressedClasses = getVmOption ( "UseCompressedClassPointers", compressedOops );
+
+		REFERENCE_SIZE = !IS_64_BIT || compressedOops ? 4 : 8;
+		OBJECT_HEADER_SIZE = !IS_64_BIT ? 8 : compressedClasses ? 12 : 16;
+		ARRAY_HEADER_SIZE = OBJECT_HEADER_SIZE + 4;
+	}
+
+	private final ClassValue<ClassLayout> layouts = new ClassValue<> ()
+	{
+		@Override
+		protected ClassLayout computeValue ( Class<?> type ) {
+			return computeLayout ( type );
+		}
+	};
+
+	private final List<Map.Entry<Class<?>, ToLongFunction<Object>>> sizers = new CopyOnWriteArrayList<> ();
+	private final Map<Class<?>, ToLongFunction<Object>> resolvedSizers = new ConcurrentHashMap<> ();
+	private static final ToLongFunction<Object> NO_SIZER = o -> -1;
+
+	private int sampleThreshold = 1000;
+	private int sampleSize = 100;
+
+
+	public ObjectSizeEstimator ()
+	{
+		addSizer ( String.class, this::sizeOfString );
+	}
+
+	/**
+	 * A shared instance. Sizers added to it are seen by all its users.
+	 */
+	public static ObjectSizeEstimator getDefault () {
+		return DefaultInstanceHolder.INSTANCE;
+	}
+
+
+	/**
+	 * The size of the object alone, without the objects it refers to. For arrays, this includes the array
+	 * elements (either primitive values or references).
+	 */
+	public long shallowSizeOf ( Object obj )
+	{
+		if ( obj == null ) return 0;
+
+		Class<?> type = obj.getClass ();
+		if ( !type.isArray () ) return layouts.get ( type ).shallowSize;
+
+		Class<?> componentType = type.getComponentType ();
+		int elemSize = componentType.isPrimitive () ? primitiveSize ( componentType ) : REFERENCE_SIZE;
+		return align ( ARRAY_HEADER_SIZE + (long) Array.getLength ( obj ) * elemSize );
+	}
+
+	/**
+	 * The size of the object graph reachable from obj, see the class comment.
+	 */
+	public long deepSizeOf ( Object obj )
+	{
+		if ( obj == null ) return 0;
+
+		Set<Object> visited = Collections.newSetFromMap ( new IdentityHashMap<> () );
+		return traverse ( obj, visited );
+	}
+
+	/**
+	 * Sets a sizer for a type and its subtypes, which must return the deep size of its parameter. The
+	 * objects covered by a sizer aren't visited by the estimator. If more sizers match a type, the one for the
+	 * type itself is used, else the one added first.
+	 */
+	@SuppressWarnings ( "unchecked" )
+	public <T> ObjectSizeEstimator addSizer ( Class<T> type, ToLongFunction<? super T> sizer )
+	{
+		sizers.add ( Map.entry ( type, (ToLongFunction<Object>) sizer ) );
+		resolvedSizers.clear ();
+		return this;
+	}
+
+
+	private long traverse ( Object root, Set<Object> visited )
+	{
+		long size = 0;
+		Deque<Object> toVisit = new ArrayDeque<> ();
+		toVisit.push ( root );
+
+		while ( !toVisit.isEmpty () )
+		{
+			Object obj = toVisit.pop ();
+			if ( !visited.add ( obj ) ) continue;
+			size += visit ( obj, toVisit, visited );
+		}
+		return size;
+	}
+
+	/**
+	 * Sizes an object and adds the objects it refers to to toVisit, unless they're sampled, in which case,
+	 * their size is returned too.
+	 */
+	private long visit ( Object obj, Deque<Object> toVisit, Set<Object> visited )
+	{
+		Class<?> type = obj.getClass ();
+		if ( obj instanceof Class || obj instanceof Enum ) return 0;
+
+		ToLongFunction<Object> sizer = resolvedSizers.computeIfAbsent ( type, this::resolveSizer );
+		if ( sizer != NO_SIZER ) return sizer.applyAsLong ( obj );
+
+		if ( type.isArray () )
+		{
+			long size = shallowSizeOf ( obj );
+			if ( type.getComponentType ().isPrimitive () ) return size;
+
+			Object[] array = (Object[]) obj;
+			if ( array.length <= sampleThreshold ) {
+				for ( Object elem: array ) if ( elem != null ) toVisit.push ( elem );
+				return size;
+			}
+
+			List<Object> sample = new ArrayList<> ( sampleSize );
+			int stride = Math.max ( 1, array.length / sampleSize );
+			for ( int i = 0; i < array.length; i += stride ) sample.add ( array [ i ] );
+			return size + sampledSize ( sample, array.length, visited );
+		}
+
+		if ( obj instanceof Map )
+		{
+			Map<?, ?> map = (Map<?, ?>) obj;
+			long size = shallowSizeOf ( obj ) + map.size () * mapEntryOverhead ();
+			if ( map.size () <= sampleThreshold ) {
+				map.forEach ( ( k, v ) -> { pushIfNotNull ( k, toVisit ); pushIfNotNull ( v, toVisit ); } );
+				return size;
+			}
+
+			List<Object> sample = new ArrayList<> ( sampleSize * 2 );
+			Iterator<? extends Map.Entry<?, ?>> itr = map.entrySet ().iterator ();
+			for ( int i = 0; i < sampleSize && itr.hasNext (); i++ ) {
+				Map.Entry<?, ?> entry = itr.next ();
+				sample.add ( entry.getKey () );
+				sample.add ( entry.getValue () );
+			}
+			return size + sampledSize ( sample, map.size () * 2, visited );
+		}
+
+		if ( obj instanceof Collection )
+		{
+			Collection<?> coll = (Collection<?>) obj;
+			long elemOverhead = obj instanceof Set ? mapEntryOverhead () : REFERENCE_SIZE;
+			long size = shallowSizeOf ( obj ) + coll.size () * elemOverhead;
+			if ( coll.size () <= sampleThreshold ) {
+				for ( Object elem: coll ) pushIfNotNull ( elem, toVisit );
+				return size;
+			}
+
+			List<Object> sample = new ArrayList<> ( sampleSize );
+			Iterator<?> itr = coll.iterator ();
+			for ( int i = 0; i < sampleSize && itr.hasNext (); i++ ) sample.add ( itr.next () );
+			return size + sampledSize ( sample, coll.size (), visited );
+		}
+
+		ClassLayout layout = layouts.get ( type );
+		for ( Field field: layout.referenceFields )
+		{
+			try {
+				pushIfNotNull ( field.get ( obj ), toVisit );
+			}
+			catch ( IllegalAccessException ex ) {
+				// Not accessible, just skip it, computeLayout() already reported it
+			}
+		}
+		return layout.shallowSize;
+	}
+
+	/**
+	 * Sizes a sample of elements and scales the result to the total number of elements.
+	 */
+	private long sampledSize ( List<Object> sample, long totalElements, Set<Object> visited )
+	{
+		long sampleSize = 0;
+		int n = 0;
+		for ( Object elem: sample )
+		{
+			n++;
+			if ( elem == null || visited.contains ( elem ) ) continue;
+			sampleSize += traverse ( elem, visited );
+		}
+		return n == 0 ? 0 : (long) ( (double) sampleSize / n * totalElements );
+	}
+
+	private static void pushIfNotNull ( Object obj, Deque<Object> toVisit )
+	{
+		if ( obj != null ) toVisit.push ( obj );
+	}
+
+	private ToLongFunction<Object> resolveSizer ( Class<?> type )
+	{
+		ToLongFunction<Object> result = null;
+		for ( Map.Entry<Class<?>, ToLongFunction<Object>> entry: sizers )
+		{
+			if ( entry.getKey () == type ) return entry.getValue ();
+			if ( result == null && entry.getKey ().isAssignableFrom ( type ) ) result = entry.getValue ();
+		}
+		return result == null ? NO_SIZER : result;
+	}
+
+	private long sizeOfString ( String s )
+	{
+		// Assumes compact strings (JDK >= 9), ie, 1 byte/char, unless the string has chars beyond Latin-1
+		boolean isLatin1 = true;
+		for ( int i = 0; i < s.length () && isLatin1; i++ ) isLatin1 = s.charAt ( i ) < 256;
+		return layouts.get ( String.class ).shallowSize
+			+ align ( ARRAY_HEADER_SIZE + (long) s.length () * ( isLatin1 ? 1 : 2 ) );
+	}
+
+
+	private static ClassLayout computeLayout ( Class<?> type )
+	{
+		long size = OBJECT_HEADER_SIZE;
+		List<Field> refFields = new ArrayList<> ();
+
+		for ( Class<?> c = type; c != null; c = c.getSuperclass () )
+			for ( Field field: c.getDeclaredFields () )
+			{
+				if ( Modifier.isStatic ( field.getModifiers () ) ) continue;
+
+				Class<?> fieldType = field.getType ();
+				if ( fieldType.isPrimitive () ) {
+					size += primitiveSize ( fieldType );
+					continue;
+				}
+
+				size += REFERENCE_SIZE;
+				if ( field.trySetAccessible () ) refFields.add ( field );
+				else log.debug ( "Can't access the field {}.{}, it's not counted in the deep size", c.getName (), field.getName () );
+			}
+
+		return new ClassLayout ( align ( size ), refFields.toArray ( new Field [ 0 ] ) );
+	}
+
+	private static int primitiveSize ( Class<?> type )
+	{
+		if ( type == long.class || type == double.class ) return 8;
+		if ( type == int.class || type == float.class ) return 4;
+		if ( type == short.class || type == char.class ) return 2;
+		return 1;
+	}
+
+	/**
+	 * Per-entry overhead of hash-based maps and sets: a node with hash, key, value, next and the table slot.
+	 */
+	private static long mapEntryOverhead ()
+	{
+		return align ( OBJECT_HEADER_SIZE + 4 + 3 * REFERENCE_SIZE ) + REFERENCE_SIZE;
+	}
+
+	private static long align ( long size )
+	{
+		return ( size + ALIGNMENT - 1 ) / ALIGNMENT * ALIGNMENT;
+	}
+
+	private static boolean getVmOption ( String name, boolean defaultValue )
+	{
+		try {
+			HotSpotDiagnosticMXBean bean = ManagementFactory.getPlatformMXBean ( HotSpotDiagnosticMXBean.class );
+			return bean == null ? defaultValue : Boolean.parseBoolean ( bean.getVMOption ( name ).getValue () );
+		}
+		catch ( RuntimeException | LinkageError ex ) {
+			// Not HotSpot or unknown option
+			return defaultValue;
+		}
+	}
+
+
+	public int getSampleThreshold ()
+	{
+		return sampleThreshold;
+	}
+
+	/**
+	 * Collections, maps and arrays with more elements than this are sampled. Default is 1000.
+	 */
+	public ObjectSizeEstimator setSampleThreshold ( int sampleThreshold )
+	{
+		this.sampleThreshold = sampleThreshold;
+		return this;
+	}
+
+	public int getSampleSize ()
+	{
+		return sampleSize;
+	}
+
+	/**
+	 * How many elements are visited when a collection is sampled. Default is 100.
+	 */
+	public ObjectSizeEstimator setSampleSize ( int sampleSize )
+	{
+		this.sampleSize = sampleSize;
+		return this;
+	}
+}
@@ -0,0 +1,472 @@
+package uk.ac.ebi.utils.memory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import uk.ac.ebi.utils.exceptions.ExceptionUtils;
+
+/**
+ * <p>A cache that keeps its values outside the Java heap, so that large caches (eg, millions of parsed records)
+ * don't increase the GC pauses. Values are {@link ByteSerializer serialized} into big slabs, which are either
+ * direct {@link ByteBuffer}s or regions of a memory-mapped file. Keys and a small index entry per value are kept
+ * on the heap.</p>
+ *
+ * <p>The slabs are used as a circular log: new values are appended to the current slab and, when it's full, the
+ * next slab is recycled. This is how eviction works: when {@link Builder#maxBytes(long) the size limit} is reached,
+ * the values in the recycled slab are dropped, except those that were read since the last time the slab was
+ * written, which are moved at the slab start and get a second chance. This is the CLOCK approximation of LRU,
+ * applied to slabs rather than to single entries, so the eviction is by bytes and doesn't need any per-access
+ * bookkeeping other than a flag.</p>
+ *
+ * <p>Optionally, an on-heap hot tier ({@link ManagedCache}) can be placed in front of the off-heap store, to avoid
+ * de-serialising the most frequently read values at every access.</p>
+ *
+ * <p>Reads are concurrent, writes are serialised by a lock (while serialisation happens outside of it). Values
+ * can't be bigger than {@link Builder#slabSize(int) the slab size}. When you don't need the cache anymore, call
+ * {@link #close()}, so that the slabs can be released (direct buffers are actually freed by the GC, when they're
+ * not referenced anymore).</p>
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class OffHeapCache<K, V> implements Closeable
+{
+	/**
+	 * Builds an {@link OffHeapCache}.
+	 */
+	public static class Builder<K, V>
+	{
+		private final ByteSerializer<V> serializer;
+		private long maxBytes = 256L << 20;
+		private int slabSize = 16 << 20;
+		private Path mappedFile = null;
+		private long hotTierSize = 0;
+
+		private Builder ( ByteSerializer<V> serializer ) {
+			this.serializer = serializer;
+		}
+
+		/**
+		 * The max space used by the cache, which is rounded to a multiple of {@link #slabSize(int)}. Default is 256MB.
+		 */
+		public Builder<K, V> maxBytes ( long maxBytes )
+		{
+			this.maxBytes = maxBytes;
+			return this;
+		}
+
+		/**
+		 * The size of the blocks of memory allocated to store the values, which is also the max size of a value.
+		 * Default is 16MB.
+		 */
+		public Builder<K, V> slabSize ( int slabSize )
+		{
+			this.slabSize = slabSize;
+			return this;
+		}
+
+		/**
+		 * If set, the slabs are mapped from this file, instead of being direct buffers. The file is created if it
+		 * doesn't exist and it's deleted when the cache is closed. Its content isn't reused across different 
+		 * instances.
+		 */
+		public Builder<K, V> mappedFile ( Path mappedFile )
+		{
+			this.mappedFile = mappedFile;
+			return this;
+		}
+
+		/**
+		 * The max number of values in the on-heap hot tier. Default is 0, ie, no hot tier.
+		 */
+		public Builder<K, V> hotTierSize ( long hotTierSize )
+		{
+			this.hotTierSize = hotTierSize;
+			return this;
+		}
+
+		public OffHeapCache<K, V> build () {
+			return new OffHeapCache<> ( this );
+		}
+	}
+
+	/**
+	 * Where a value is in the slabs.
+	 */
+	private static class Entry
+	{
+		final int slab, offset, length;
+		volatile boolean isReferenced = false;
+
+		Entry ( int slab, int offset, int length )
+		{
+			this.slab = slab;
+			this.offset = offset;
+			this.length = length;
+		}
+	}
+
+	private final ByteSerializer<V> serializer;
+	private final int slabSize;
+	private final ByteBuffer[] slabs;
+	private final FileChannel mappedChannel;
+	private final Path mappedFile;
+	private final ManagedCache<K, V> hotTier;
+
+	private final Map<K, Entry> index = new HashMap<> ();
+	/** The keys stored in each slab, with their entries, used to recycle a slab */
+	private final List<List<Map.Entry<K, Entry>>> slabEntries;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock ();
+
+	private int currentSlab = 0, writeOffset = 0;
+	private long usedBytes = 0;
+	private boolean isClosed = false;
+
+	private final LongAdder hits = new LongAdder (), misses = new LongAdder (), evictions = new LongAdder ();
+
+
+	private OffHeapCache ( Builder<K, V> builder )
+	{
+		this.serializer = builder.serializer;
+		this.slabSize = builder.slabSize;
+
+		int nSlabs = (int) Math.max ( 1, builder.maxBytes / slabSize );
+		this.slabs = new ByteBuffer [ nSlabs ];
+		this.slabEntries = new ArrayList<> ( nSlabs );
+		for ( int i = 0; i < nSlabs; i++ ) slabEntries.add ( new ArrayList<> () );
+
+		this.mappedFile = builder.mappedFile;
+		try {
+			this.mappedChannel = mappedFile == null
+				? null
+				: FileChannel.open ( 
+						mappedFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE 
+					);
+		}
+		catch ( IOException ex ) {
+			throw ExceptionUtils.buildEx ( UncheckedIOException.class, ex,
+				"Error while opening the off-heap cache file \"%s\": %s", mappedFile, ex.getMessage ()
+			);
+		}
+
+		this.hotTier = builder.hotTierSize <= 0
+			? null
+			: ManagedCache.<K, V>builder ().maximumSize ( builder.hotTierSize ).build ();
+	}
+
+	public static <K, V> Builder<K, V> builder ( ByteSerializer<V> serializer ) {
+		return new Builder<> ( serializer );
+	}
+
+
+	/**
+	 * @return null if the key isn't in the cache.
+	 */
+	public V get ( K key )
+	{
+		if ( hotTier != null )
+		{
+			V value = hotTier.getIfPresent ( key );
+			if ( value != null ) {
+				hits.increment ();
+				return value;
+			}
+		}
+
+		Entry entry;
+		byte[] bytes;
+		lock.readLock ().lock ();
+		try
+		{
+			checkOpen ();
+			entry = index.get ( key );
+			if ( entry == null ) {
+				misses.increment ();
+				return null;
+			}
+			entry.isReferenced = true;
+			bytes = read ( entry );
+		}
+		finally {
+			lock.readLock ().unlock ();
+		}
+
+		hits.increment ();
+		V value = serializer.deserialize ( bytes );
+		if ( hotTier == null ) return value;
+
+		// Promote it, unless it was changed in the meantime
+		lock.readLock ().lock ();
+		try {
+			if ( index.get ( key ) == entry ) hotTier.put ( key, value );
+		}
+		finally {
+			lock.readLock ().unlock ();
+		}
+		return value;
+	}
+
+	/**
+	 * A null value removes the key.
+	 *
+	 * @throws IllegalArgumentException if the serialized value is bigger than {@link Builder#slabSize(int)}.
+	 */
+	public void put ( K key, V value )
+	{
+		if ( value == null ) {
+			remove ( key );
+			return;
+		}
+
+		byte[] bytes = serializer.serialize ( value );
+		if ( bytes.length > slabSize ) throw new IllegalArgumentException ( String.format (
+			"Can't store a value of %d bytes in an off-heap cache with slabs of %d bytes", bytes.length, slabSize
+		));
+
+		lock.writeLock ().lock ();
+		try
+		{
+			checkOpen ();
+			removeEntry ( key );
+			append ( key, bytes );
+			if ( hotTier != null ) hotTier.invalidate ( key );
+		}
+		finally {
+			lock.writeLock ().unlock ();
+		}
+	}
+
+	public void remove ( K key )
+	{
+		lock.writeLock ().lock ();
+		try
+		{
+			checkOpen ();
+			removeEntry ( key );
+			if ( hotTier != null ) hotTier.invalidate ( key );
+		}
+		finally {
+			lock.writeLock ().unlock ();
+		}
+	}
+
+	/**
+	 * Removes all the values. The slabs are kept for reuse.
+	 */
+	public void clear ()
+	{
+		lock.writeLock ().lock ();
+		try
+		{
+			checkOpen ();
+			index.clear ();
+			slabEntries.forEach ( List::clear );
+			currentSlab = writeOffset = 0;
+			usedBytes = 0;
+			if ( hotTier != null ) hotTier.invalidateAll ();
+		}
+		finally {
+			lock.writeLock ().unlock ();
+		}
+	}
+
+	/**
+	 * Releases the slabs and, if used, deletes the {@link Builder#mappedFile(Path) mapped file}. The cache can't
+	 * be used anymore after this.
+	 */
+	@Override
+	public void close () throws IOException
+	{
+		lock.writeLock ().lock ();
+		try
+		{
+			if ( isClosed ) return;
+			isClosed = true;
+			index.clear ();
+			slabEntries.forEach ( List::clear );
+			for ( int i = 0; i < slabs.length; i++ ) slabs [ i ] = null;
+			if ( hotTier != null ) hotTier.invalidateAll ();
+			if ( mappedChannel != null ) {
+				mappedChannel.close ();
+				Files.deleteIfExists ( mappedFile );
+			}
+		}
+		finally {
+			lock.writeLock ().unlock ();
+		}
+	}
+
+
+	private void removeEntry ( K key )
+	{
+		Entry old = index.remove ( key );
+		if ( old != null ) usedBytes -= old.length;
+	}
+
+	/**
+	 * Must be called with the write lock.
+	 */
+	private void append ( K key, byte[] bytes )
+	{
+		// After a whole round with the second chance, all the flags are cleared, so the next round surely
+		// frees enough space
+		for ( int round = 0; writeOffset + bytes.length > slabSize; round++ )
+		{
+			currentSlab = ( currentSlab + 1 ) % slabs.length;
+			recycleSlab ( currentSlab, round < slabs.length );
+		}
+		write ( key, bytes );
+	}
+
+	private void write ( K key, byte[] bytes )
+	{
+		ByteBuffer buffer = slab ( currentSlab ).duplicate ();
+		buffer.position ( writeOffset );
+		buffer.put ( bytes );
+
+		Entry entry = new Entry ( currentSlab, writeOffset, bytes.length );
+		index.put ( key, entry );
+		slabEntries.get ( currentSlab ).add ( Map.entry ( key, entry ) );
+		writeOffset += bytes.length;
+		usedBytes += bytes.length;
+	}
+
+	/**
+	 * Evicts the values in the slab, except the referenced ones, if isSecondChance is set. These are moved at the
+	 * slab start. Sets the write position at the end of the kept values.
+	 */
+	private void recycleSlab ( int slabIdx, boolean isSecondChance )
+	{
+		List<Map.Entry<K, Entry>> entries = slabEntries.get ( slabIdx );
+		List<Map.Entry<K, byte[]>> keptValues = new ArrayList<> ();
+
+		for ( Map.Entry<K, Entry> slabEntry: entries )
+		{
+			K key = slabEntry.getKey ();
+			Entry entry = slabEntry.getValue ();
+
+			// Removed or replaced, space already released
+			if ( index.get ( key ) != entry ) continue;
+
+			if ( isSecondChance && entry.isReferenced ) {
+				keptValues.add ( Map.entry ( key, read ( entry ) ) );
+				continue;
+			}
+			index.remove ( key );
+			usedBytes -= entry.length;
+			evictions.increment ();
+		}
+		entries.clear ();
+
+		writeOffset = 0;
+		for ( Map.Entry<K, byte[]> kept: keptValues )
+		{
+			usedBytes -= kept.getValue ().length;
+			write ( kept.getKey (), kept.getValue () );
+		}
+	}
+
+	private byte[] read ( Entry entry )
+	{
+		byte[] bytes = new byte [ entry.length ];
+		ByteBuffer buffer = slabs [ entry.slab ].duplicate ();
+		buffer.position ( entry.offset );
+		buffer.get ( bytes );
+		return bytes;
+	}
+
+	/**
+	 * Gets a slab, allocating it at the first use.
+	 */
+	private ByteBuffer slab ( int slabIdx )
+	{
+		if ( slabs [ slabIdx ] != null ) return slabs [ slabIdx ];
+
+		if ( mappedChannel == null ) return slabs [ slabIdx ] = ByteBuffer.allocateDirect ( slabSize );
+
+		try {
+			return slabs [ slabIdx ] = mappedChannel.map ( 
+				FileChannel.MapMode.READ_WRITE, (long) slabIdx * slabSize, slabSize 
+			);
+		}
+		catch ( IOException ex ) {
+			throw ExceptionUtils.buildEx ( UncheckedIOException.class, ex,
+				"Error while mapping the off-heap cache file \"%s\": %s", mappedFile, ex.getMessage ()
+			);
+		}
+	}
+
+	private void checkOpen ()
+	{
+		if ( isClosed ) throw new IllegalStateException ( "Can't use an off-heap cache that was closed" );
+	}
+
+
+	/**
+	 * The number of values in the off-heap store.
+	 */
+	public int size ()
+	{
+		lock.readLock ().lock ();
+		try {
+			return index.size ();
+		}
+		finally {
+			lock.readLock ().unlock ();
+		}
+	}
+
+	/**
+	 * The bytes occupied by the values currently in the cache.
+	 */
+	public long getUsedBytes ()
+	{
+		lock.readLock ().lock ();
+		try {
+			return usedBytes;
+		}
+		finally {
+			lock.readLock ().unlock ();
+		}
+	}
+
+	/**
+	 * The max space the cache can use, ie, the number of slabs times their size.
+	 */
+	public long getMaxBytes ()
+	{
+		return (long) slabs.length * slabSize;
+	}
+
+	public long getHits ()
+	{
+		return hits.sum ();
+	}
+
+	public long getMisses ()
+	{
+		return misses.sum ();
+	}
+
+	/**
+	 * The values dropped to free space.
+	 */
+	public long getEvictions ()
+	{
+		return evictions.sum ();
+	}
+}
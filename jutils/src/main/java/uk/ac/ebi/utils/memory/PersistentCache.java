@@ -0,0 +1,845 @@
+package uk.ac.ebi.utils.memory;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.hash.Hashing;
+
+import uk.ac.ebi.utils.exceptions.ExceptionUtils;
+
+/**
+ * <p>A key/value cache that is kept on disk, so that it survives the JVM (eg, expensive lookups computed by a
+ * batch run can be reused by the next one) and it can be bigger than the available RAM.</p>
+ *
+ * <p>The data are stored in a directory, with two files:</p>
+ *
+ * <ul>
+ *   <li>An append-only log, where every {@link #put(Object, Object)} or {@link #remove(Object)} adds a record
+ *   with the serialized key, the serialized value (or a removal marker) and a CRC checksum.</li>
+ *   <li>A memory-mapped hash index (open addressing, linear probing), which maps 64 bit hashes of the serialized
+ *   keys to the position of their most recent record in the log. Hash collisions are resolved by comparing the
+ *   actual keys.</li>
+ * </ul>
+ *
+ * <p>The index is derived data: it's marked as clean only by {@link #close()}. When the cache is opened and the
+ * index isn't clean or it doesn't match the log (eg, after a crash), the log is scanned, it's truncated at the
+ * first incomplete or corrupted record and the index is rebuilt from it. Writes are flushed to disk at every
+ * operation only if {@link Builder#syncWrites(boolean)} is set, else the OS decides when, which is faster, but
+ * the most recent writes might be lost by an OS crash (not by a JVM crash).</p>
+ *
+ * <p>Replaced and removed records are garbage in the log. When they're more than
+ * {@link Builder#compactionThreshold(double)} of the log, the log is compacted, ie, rewritten with the live
+ * records only. You can also invoke {@link #compact()} explicitly.</p>
+ *
+ * <p>Reads are concurrent, writes are serialised by a lock. A cache directory can be used by one instance at a
+ * time only, including instances in other processes: this is enforced by an exclusive {@link FileLock} on a lock 
+ * file in the directory, and opening a directory that is already in use fails with 
+ * {@link IllegalStateException}.</p>
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class PersistentCache<K, V> implements Closeable
+{
+	/**
+	 * Builds a {@link PersistentCache}.
+	 */
+	public static class Builder<K, V>
+	{
+		private final Path directory;
+		private final ByteSerializer<K> keySerializer;
+		private final ByteSerializer<V> valueSerializer;
+		private boolean syncWrites = false;
+		private double compactionThreshold = 0.5;
+		private long minCompactionSize = 1 << 20;
+		private int initialIndexCapacity = 1 << 12;
+
+		private Builder ( Path directory, ByteSerializer<K> keySerializer, ByteSerializer<V> valueSerializer )
+		{
+			this.directory = directory;
+			this.keySerializer = keySerializer;
+			this.valueSerializer = valueSerializer;
+		}
+
+		/**
+		 * If true, every write is forced on disk before returning. Default is false, see the class comment.
+		 */
+		public Builder<K, V> syncWrites ( boolean syncWrites )
+		{
+			this.syncWrites = syncWrites;
+			return this;
+		}
+
+		/**
+		 * The ratio of garbage in the log that triggers an automatic compaction. Default is 0.5. Values &gt;= 1
+		 * disable it.
+		 */
+		public Builder<K, V> compactionThreshold ( double compactionThreshold )
+		{
+			this.compactionThreshold = compactionThreshold;
+			return this;
+		}
+
+		/**
+		 * Automatic compaction isn't triggered for logs smaller than this. Default is 1MB.
+		 */
+		public Builder<K, V> minCompactionSize ( long minCompactionSize )
+		{
+			this.minCompactionSize = minCompactionSize;
+			return this;
+		}
+
+		/**
+		 * The initial number of slots of a new index, which is doubled when it's 70% full. Default is 4096.
+		 */
+		public Builder<K, V> initialIndexCapacity ( int initialIndexCapacity )
+		{
+			this.initialIndexCapacity = Integer.highestOneBit ( Math.max ( 16, initialIndexCapacity - 1 ) ) << 1;
+			return this;
+		}
+
+		/**
+		 * Opens the cache, creating the directory and the files if they don't exist, and recovering them if needed.
+		 */
+		public PersistentCache<K, V> build () {
+			return new PersistentCache<> ( this );
+		}
+	}
+
+
+	private static final String LOG_FILE_NAME = "cache.log", INDEX_FILE_NAME = "cache.idx", 
+		LOCK_FILE_NAME = "cache.lock";
+
+	/** Record header: key length, value length (-1 for removals), CRC */
+	private static final int RECORD_HEADER_SIZE = 12;
+
+	/** Index header: magic, clean flag, capacity, used slots, live entries, log length, garbage bytes */
+	private static final int INDEX_MAGIC = 0x4A555043;
+	private static final int HDR_MAGIC = 0, HDR_CLEAN = 4, HDR_CAPACITY = 8, HDR_USED = 16, HDR_LIVE = 24,
+		HDR_LOG_LENGTH = 32, HDR_GARBAGE = 40, INDEX_HEADER_SIZE = 64;
+
+	/** Index slot: key hash (0 = empty), record position (-1 = removed) */
+	private static final int SLOT_SIZE = 16;
+	private static final double MAX_INDEX_LOAD = 0.7;
+	/** A mapped buffer can't be bigger than 2GB */
+	private static final int MAX_INDEX_CAPACITY = 1 << 26;
+
+	private final Path directory, logPath, indexPath;
+	private final ByteSerializer<K> keySerializer;
+	private final ByteSerializer<V> valueSerializer;
+	private final boolean syncWrites;
+	private final double compactionThreshold;
+	private final long minCompactionSize;
+	private final int initialIndexCapacity;
+
+	private FileChannel logChannel, indexChannel, lockChannel;
+	private FileLock directoryLock;
+	private MappedByteBuffer index;
+	private int indexCapacity;
+	private long usedSlots, liveEntries, logLength, garbageBytes;
+	private boolean isClosed = false;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock ();
+	private final LongAdder hits = new LongAdder (), misses = new LongAdder ();
+
+	private static final Logger log = LoggerFactory.getLogger ( PersistentCache.class );
+
+
+	private PersistentCache ( Builder<K, V> builder )
+	{
+		this.directory = builder.directory;
+		this.logPath = directory.resolve ( LOG_FILE_NAME );
+		this.indexPath = directory.resolve ( INDEX_FILE_NAME );
+		this.keySerializer = builder.keySerializer;
+		this.valueSerializer = builder.valueSerializer;
+		this.syncWrites = builder.syncWrites;
+		this.compactionThreshold = builder.compactionThreshold;
+		this.minCompactionSize = builder.minCompactionSize;
+		this.initialIndexCapacity = builder.initialIndexCapacity;
+
+		try {
+			Files.createDirectories ( directory );
+			lockDirectory ();
+		}
+		catch ( IOException ex ) {
+			throw ExceptionUtils.buildEx ( UncheckedIOException.class, ex,
+				"Error while locking the persistent cache at \"%s\": %s", directory, ex.getMessage ()
+			);
+		}
+		
+		try {
+			reopen ();
+		}
+		catch ( IOException ex ) {
+			throw ExceptionUtils.buildEx ( UncheckedIOException.class, ex,
+				"Error while opening the persistent cache at \"%s\": %s", directory, ex.getMessage ()
+			);
+		}
+	}
+
+	public static <K, V> Builder<K, V> builder (
+		Path directory, ByteSerializer<K> keySerializer, ByteSerializer<V> valueSerializer
+	)
+	{
+		return new Builder<> ( directory, keySerializer, valueSerializer );
+	}
+
+
+	/**
+	 * @return null if the key isn't in the cache.
+	 */
+	public V get ( K key )
+	{
+		byte[] keyBytes = keySerializer.serialize ( key );
+		long hash = hash ( keyBytes );
+
+		byte[] valueBytes;
+		lock.readLock ().lock ();
+		try
+		{
+			checkOpen ();
+			int slot = findSlot ( keyBytes, hash );
+			if ( slot == -1 ) {
+				misses.increment ();
+				return null;
+			}
+			valueBytes = readValue ( slotPosition ( slot ), keyBytes.length );
+		}
+		catch ( IOException ex ) {
+			throw ioError ( "reading from", ex );
+		}
+		finally {
+			lock.readLock ().unlock ();
+		}
+
+		hits.increment ();
+		return valueSerializer.deserialize ( valueBytes );
+	}
+
+	/**
+	 * A null value removes the key.
+	 */
+	public void put ( K key, V value )
+	{
+		if ( value == null ) {
+			remove ( key );
+			return;
+		}
+
+		byte[] keyBytes = keySerializer.serialize ( key );
+		byte[] valueBytes = valueSerializer.serialize ( value );
+		long hash = hash ( keyBytes );
+
+		lock.writeLock ().lock ();
+		try
+		{
+			checkOpen ();
+			long position = appendRecord ( keyBytes, valueBytes );
+			indexPut ( keyBytes, hash, position );
+			checkCompaction ();
+		}
+		catch ( IOException ex ) {
+			throw ioError ( "writing on", ex );
+		}
+		finally {
+			lock.writeLock ().unlock ();
+		}
+	}
+
+	public void remove ( K key )
+	{
+		byte[] keyBytes = keySerializer.serialize ( key );
+		long hash = hash ( keyBytes );
+
+		lock.writeLock ().lock ();
+		try
+		{
+			checkOpen ();
+			int slot = findSlot ( keyBytes, hash );
+			if ( slot == -1 ) return;
+
+			garbageBytes += recordSize ( slotPosition ( slot ) );
+			index.putLong ( slotOffset ( slot ) + 8, -1 );
+			liveEntries--;
+
+			// The removal marker is needed for the recovery, but it's garbage too
+			long markerPosition = appendRecord ( keyBytes, null );
+			garbageBytes += logLength - markerPosition;
+
+			updateHeader ();
+			checkCompaction ();
+		}
+		catch ( IOException ex ) {
+			throw ioError ( "writing on", ex );
+		}
+		finally {
+			lock.writeLock ().unlock ();
+		}
+	}
+
+	/**
+	 * Rewrites the log with the live records only, and rebuilds the index.
+	 */
+	public void compact ()
+	{
+		lock.writeLock ().lock ();
+		try
+		{
+			checkOpen ();
+			compactLog ();
+		}
+		catch ( IOException ex ) {
+			throw ioError ( "compacting", ex );
+		}
+		finally {
+			lock.writeLock ().unlock ();
+		}
+	}
+
+	/**
+	 * Removes all the entries, truncating the files.
+	 */
+	public void clear ()
+	{
+		lock.writeLock ().lock ();
+		try
+		{
+			checkOpen ();
+			closeFiles ( false );
+			try {
+				Files.deleteIfExists ( logPath );
+				Files.deleteIfExists ( indexPath );
+			}
+			finally {
+				reopen ();
+			}
+		}
+		catch ( IOException ex ) {
+			throw ioError ( "clearing", ex );
+		}
+		finally {
+			lock.writeLock ().unlock ();
+		}
+	}
+
+	/**
+	 * Flushes everything on disk and marks the index as clean, so that it can be reused by the next opening.
+	 */
+	@Override
+	public void close () throws IOException
+	{
+		lock.writeLock ().lock ();
+		try
+		{
+			if ( isClosed ) return;
+			isClosed = true;
+			try {
+				closeFiles ( true );
+			}
+			finally {
+				unlockDirectory ();
+			}
+		}
+		finally {
+			lock.writeLock ().unlock ();
+		}
+	}
+
+	
+	/**
+	 * Takes the lock file, see the class comment.
+	 */
+	private void lockDirectory () throws IOException
+	{
+		Path lockPath = directory.resolve ( LOCK_FILE_NAME );
+		lockChannel = FileChannel.open ( lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE );
+		try {
+			directoryLock = lockChannel.tryLock ();
+		}
+		catch ( OverlappingFileLockException ex ) {
+			// Already locked by this JVM
+			directoryLock = null;
+		}
+		
+		if ( directoryLock != null ) return;
+		lockChannel.close ();
+		throw new IllegalStateException ( 
+			"The persistent cache at \"" + directory + "\" is already in use by another instance" 
+		);
+	}
+
+	private void unlockDirectory () throws IOException
+	{
+		try {
+			directoryLock.release ();
+		}
+		finally {
+			lockChannel.close ();
+		}
+	}
+
+	/**
+	 * Opens the files. If that fails, the cache is marked as closed, so that it isn't used with closed files.
+	 */
+	private void reopen () throws IOException
+	{
+		try {
+			open ();
+		}
+		catch ( IOException | RuntimeException ex ) 
+		{
+			isClosed = true;
+			if ( logChannel != null ) logChannel.close ();
+			if ( indexChannel != null ) indexChannel.close ();
+			unlockDirectory ();
+			throw ex;
+		}
+	}
+
+
+	private void open () throws IOException
+	{
+		logChannel = FileChannel.open ( logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE );
+		logLength = logChannel.size ();
+
+		if ( !openIndex () )
+		{
+			if ( logLength > 0 ) log.info ( "Rebuilding the index of the persistent cache at \"{}\"", directory );
+			rebuildIndex ();
+		}
+
+		// Until it's closed, the index might not match the log
+		index.putInt ( HDR_CLEAN, 0 );
+		index.force ();
+	}
+
+	/**
+	 * @return false if the existing index can't be used.
+	 */
+	private boolean openIndex () throws IOException
+	{
+		if ( !Files.exists ( indexPath ) || Files.size ( indexPath ) < INDEX_HEADER_SIZE ) return false;
+
+		indexChannel = FileChannel.open ( indexPath, StandardOpenOption.READ, StandardOpenOption.WRITE );
+		MappedByteBuffer header = indexChannel.map ( FileChannel.MapMode.READ_ONLY, 0, INDEX_HEADER_SIZE );
+
+		boolean isValid = header.getInt ( HDR_MAGIC ) == INDEX_MAGIC
+			&& header.getInt ( HDR_CLEAN ) == 1
+			&& header.getLong ( HDR_LOG_LENGTH ) == logLength;
+		long capacity = header.getLong ( HDR_CAPACITY );
+		if ( !isValid || indexChannel.size () < INDEX_HEADER_SIZE + capacity * SLOT_SIZE )
+		{
+			indexChannel.close ();
+			return false;
+		}
+
+		indexCapacity = (int) capacity;
+		index = indexChannel.map ( FileChannel.MapMode.READ_WRITE, 0, INDEX_HEADER_SIZE + capacity * SLOT_SIZE );
+		usedSlots = index.getLong ( HDR_USED );
+		liveEntries = index.getLong ( HDR_LIVE );
+		garbageBytes = index.getLong ( HDR_GARBAGE );
+		return true;
+	}
+
+	/**
+	 * Scans the log, truncating it at the first invalid record, and rebuilds the index from it.
+	 */
+	private void rebuildIndex () throws IOException
+	{
+		Files.deleteIfExists ( indexPath );
+		indexChannel = FileChannel.open (
+			indexPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE
+		);
+		usedSlots = liveEntries = garbageBytes = 0;
+		mapIndex ( initialIndexCapacity );
+
+		long position = 0;
+		DataInputStream in = new DataInputStream ( new BufferedInputStream (
+			Channels.newInputStream ( logChannel.position ( 0 ) ), 1 << 16
+		));
+		while ( position < logLength )
+		{
+			byte[] keyBytes, valueBytes;
+			try
+			{
+				int keyLength = in.readInt (), valueLength = in.readInt (), crc = in.readInt ();
+				long recordSize = RECORD_HEADER_SIZE + (long) keyLength + Math.max ( 0, valueLength );
+				if ( keyLength < 0 || valueLength < -1 || position + recordSize > logLength ) break;
+
+				keyBytes = new byte [ keyLength ];
+				in.readFully ( keyBytes );
+				valueBytes = valueLength == -1 ? null : new byte [ valueLength ];
+				if ( valueBytes != null ) in.readFully ( valueBytes );
+
+				if ( crc ( keyBytes, valueBytes ) != crc ) break;
+			}
+			catch ( EOFException ex ) {
+				break;
+			}
+
+			long hash = hash ( keyBytes );
+			if ( valueBytes != null ) indexPut ( keyBytes, hash, position );
+			else
+			{
+				int slot = findSlot ( keyBytes, hash );
+				if ( slot != -1 )
+				{
+					garbageBytes += recordSize ( slotPosition ( slot ) );
+					index.putLong ( slotOffset ( slot ) + 8, -1 );
+					liveEntries--;
+				}
+			}
+			long recordEnd = position + RECORD_HEADER_SIZE + keyBytes.length
+				+ ( valueBytes == null ? 0 : valueBytes.length );
+			if ( valueBytes == null ) garbageBytes += recordEnd - position;
+			position = recordEnd;
+		}
+
+		if ( position < logLength )
+		{
+			log.warn (
+				"Truncating the persistent cache log at \"{}\" from {} to {} bytes, due to incomplete or corrupted records",
+				logPath, logLength, position
+			);
+			logChannel.truncate ( position );
+			logLength = position;
+		}
+		updateHeader ();
+	}
+
+	/**
+	 * Maps a new, empty index with the given capacity. The file is only extended, since a file region that is
+	 * still mapped shouldn't be truncated.
+	 */
+	private void mapIndex ( int capacity ) throws IOException
+	{
+		indexCapacity = capacity;
+		index = indexChannel.map ( FileChannel.MapMode.READ_WRITE, 0, INDEX_HEADER_SIZE + (long) capacity * SLOT_SIZE );
+		byte[] zeros = new byte [ SLOT_SIZE * 1024 ];
+		ByteBuffer slots = index.duplicate ();
+		slots.position ( INDEX_HEADER_SIZE );
+		while ( slots.hasRemaining () ) slots.put ( zeros, 0, Math.min ( zeros.length, slots.remaining () ) );
+
+		index.putInt ( HDR_MAGIC, INDEX_MAGIC );
+		index.putLong ( HDR_CAPACITY, capacity );
+		usedSlots = 0;
+	}
+
+	private void closeFiles ( boolean isClean ) throws IOException
+	{
+		logChannel.force ( true );
+		updateHeader ();
+		index.putInt ( HDR_CLEAN, isClean ? 1 : 0 );
+		index.force ();
+		logChannel.close ();
+		indexChannel.close ();
+	}
+
+	private void updateHeader ()
+	{
+		index.putLong ( HDR_USED, usedSlots );
+		index.putLong ( HDR_LIVE, liveEntries );
+		index.putLong ( HDR_LOG_LENGTH, logLength );
+		index.putLong ( HDR_GARBAGE, garbageBytes );
+	}
+
+
+	/**
+	 * @return the record position.
+	 */
+	private long appendRecord ( byte[] keyBytes, byte[] valueBytes ) throws IOException
+	{
+		int valueLength = valueBytes == null ? -1 : valueBytes.length;
+		ByteBuffer buffer = ByteBuffer.allocate ( RECORD_HEADER_SIZE + keyBytes.length + Math.max ( 0, valueLength ) );
+		buffer.putInt ( keyBytes.length ).putInt ( valueLength ).putInt ( crc ( keyBytes, valueBytes ) );
+		buffer.put ( keyBytes );
+		if ( valueBytes != null ) buffer.put ( valueBytes );
+		buffer.flip ();
+
+		long position = logLength;
+		while ( buffer.hasRemaining () ) logChannel.write ( buffer, logLength + buffer.position () );
+		logLength += buffer.limit ();
+		if ( syncWrites ) logChannel.force ( false );
+		return position;
+	}
+
+	private void indexPut ( byte[] keyBytes, long hash, long position ) throws IOException
+	{
+		int mask = indexCapacity - 1;
+		int freeSlot = -1;
+		for ( int slot = (int) ( hash & mask ); ; slot = ( slot + 1 ) & mask )
+		{
+			long slotHash = index.getLong ( slotOffset ( slot ) );
+			if ( slotHash == 0 ) {
+				if ( freeSlot == -1 ) freeSlot = slot;
+				break;
+			}
+
+			long slotPosition = index.getLong ( slotOffset ( slot ) + 8 );
+			if ( slotPosition == -1 ) {
+				// A removed entry, can be reused, but the key might be further
+				if ( freeSlot == -1 ) freeSlot = slot;
+				continue;
+			}
+			if ( slotHash != hash || !Arrays.equals ( readKey ( slotPosition ), keyBytes ) ) continue;
+
+			// Replacement
+			garbageBytes += recordSize ( slotPosition );
+			index.putLong ( slotOffset ( slot ) + 8, position );
+			updateHeader ();
+			return;
+		}
+
+		if ( index.getLong ( slotOffset ( freeSlot ) ) == 0 ) usedSlots++;
+		index.putLong ( slotOffset ( freeSlot ), hash );
+		index.putLong ( slotOffset ( freeSlot ) + 8, position );
+		liveEntries++;
+
+		if ( usedSlots > MAX_INDEX_LOAD * indexCapacity ) resizeIndex ( indexCapacity * 2 );
+		updateHeader ();
+	}
+
+	private void resizeIndex ( int newCapacity ) throws IOException
+	{
+		if ( newCapacity > MAX_INDEX_CAPACITY ) throw new IllegalStateException ( String.format (
+			"The persistent cache at \"%s\" can't have more than %d entries", directory,
+			(long) ( MAX_INDEX_LOAD * MAX_INDEX_CAPACITY )
+		));
+
+		long[] hashes = new long [ (int) liveEntries ], positions = new long [ (int) liveEntries ];
+		int n = 0;
+		for ( int slot = 0; slot < indexCapacity; slot++ )
+		{
+			long position = index.getLong ( slotOffset ( slot ) + 8 );
+			if ( index.getLong ( slotOffset ( slot ) ) == 0 || position == -1 ) continue;
+			hashes [ n ] = index.getLong ( slotOffset ( slot ) );
+			positions [ n++ ] = position;
+		}
+
+		mapIndex ( newCapacity );
+		int mask = newCapacity - 1;
+		for ( int i = 0; i < n; i++ )
+		{
+			int slot = (int) ( hashes [ i ] & mask );
+			while ( index.getLong ( slotOffset ( slot ) ) != 0 ) slot = ( slot + 1 ) & mask;
+			index.putLong ( slotOffset ( slot ), hashes [ i ] );
+			index.putLong ( slotOffset ( slot ) + 8, positions [ i ] );
+		}
+		usedSlots = n;
+	}
+
+	/**
+	 * @return the index slot of the key, or -1 if it's not in the cache.
+	 */
+	private int findSlot ( byte[] keyBytes, long hash ) throws IOException
+	{
+		int mask = indexCapacity - 1;
+		for ( int slot = (int) ( hash & mask ); ; slot = ( slot + 1 ) & mask )
+		{
+			long slotHash = index.getLong ( slotOffset ( slot ) );
+			if ( slotHash == 0 ) return -1;
+			if ( slotHash != hash ) continue;
+
+			long position = index.getLong ( slotOffset ( slot ) + 8 );
+			if ( position != -1 && Arrays.equals ( readKey ( position ), keyBytes ) ) return slot;
+		}
+	}
+
+	private void checkCompaction () throws IOException
+	{
+		if ( compactionThreshold >= 1 || logLength < minCompactionSize ) return;
+		if ( garbageBytes > compactionThreshold * logLength ) compactLog ();
+	}
+
+	/**
+	 * Writes the live records on a new log, which replaces the current one, and rebuilds the index. If this is
+	 * interrupted by a crash, either the old or the new log is in place and the index is rebuilt at the next
+	 * opening.
+	 */
+	private void compactLog () throws IOException
+	{
+		long oldLength = logLength;
+		Path newLogPath = directory.resolve ( LOG_FILE_NAME + ".compacting" );
+		try ( FileChannel newLog = FileChannel.open (
+			newLogPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING
+		))
+		{
+			for ( int slot = 0; slot < indexCapacity; slot++ )
+			{
+				long position = index.getLong ( slotOffset ( slot ) + 8 );
+				if ( index.getLong ( slotOffset ( slot ) ) == 0 || position == -1 ) continue;
+
+				ByteBuffer record = ByteBuffer.allocate ( (int) recordSize ( position ) );
+				readFully ( record, position );
+				record.flip ();
+				while ( record.hasRemaining () ) newLog.write ( record );
+			}
+			newLog.force ( true );
+		}
+
+		closeFiles ( false );
+		try {
+			Files.move ( newLogPath, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+			Files.deleteIfExists ( indexPath );
+		}
+		finally {
+			// With the old log if the move failed, which is still consistent, since the index isn't clean
+			reopen ();
+		}
+
+		log.debug ( "Persistent cache at \"{}\" compacted from {} to {} bytes", directory, oldLength, logLength );
+	}
+
+
+	private byte[] readKey ( long position ) throws IOException
+	{
+		ByteBuffer header = ByteBuffer.allocate ( RECORD_HEADER_SIZE );
+		readFully ( header, position );
+		ByteBuffer key = ByteBuffer.allocate ( header.getInt ( 0 ) );
+		readFully ( key, position + RECORD_HEADER_SIZE );
+		return key.array ();
+	}
+
+	private byte[] readValue ( long position, int keyLength ) throws IOException
+	{
+		ByteBuffer header = ByteBuffer.allocate ( RECORD_HEADER_SIZE );
+		readFully ( header, position );
+		ByteBuffer value = ByteBuffer.allocate ( header.getInt ( 4 ) );
+		readFully ( value, position + RECORD_HEADER_SIZE + keyLength );
+		return value.array ();
+	}
+
+	private long recordSize ( long position ) throws IOException
+	{
+		ByteBuffer header = ByteBuffer.allocate ( RECORD_HEADER_SIZE );
+		readFully ( header, position );
+		return RECORD_HEADER_SIZE + (long) header.getInt ( 0 ) + Math.max ( 0, header.getInt ( 4 ) );
+	}
+
+	private void readFully ( ByteBuffer buffer, long position ) throws IOException
+	{
+		while ( buffer.hasRemaining () )
+		{
+			int n = logChannel.read ( buffer, position + buffer.position () );
+			if ( n < 0 ) throw new EOFException ( "Unexpected end of the persistent cache log at \"" + logPath + "\"" );
+		}
+	}
+
+	private static int slotOffset ( int slot ) {
+		return INDEX_HEADER_SIZE + slot * SLOT_SIZE;
+	}
+
+	private long slotPosition ( int slot ) {
+		return index.getLong ( slotOffset ( slot ) + 8 );
+	}
+
+	/**
+	 * 0 is reserved for empty slots.
+	 */
+	private static long hash ( byte[] keyBytes )
+	{
+		long hash = Hashing.murmur3_128 ().hashBytes ( keyBytes ).asLong ();
+		return hash == 0 ? 1 : hash;
+	}
+
+	private static int crc ( byte[] keyBytes, byte[] valueBytes )
+	{
+		CRC32 crc = new CRC32 ();
+		crc.update ( keyBytes );
+		if ( valueBytes != null ) crc.update ( valueBytes );
+		return (int) crc.getValue ();
+	}
+
+	private void checkOpen ()
+	{
+		if ( isClosed ) throw new IllegalStateException ( "Can't use a persistent cache that was closed" );
+	}
+
+	private UncheckedIOException ioError ( String operation, IOException ex )
+	{
+		return ExceptionUtils.buildEx ( UncheckedIOException.class, ex,
+			"Error while %s the persistent cache at \"%s\": %s", operation, directory, ex.getMessage ()
+		);
+	}
+
+
+	/**
+	 * The number of entries in the cache.
+	 */
+	public long size ()
+	{
+		lock.readLock ().lock ();
+		try {
+			return liveEntries;
+		}
+		finally {
+			lock.readLock ().unlock ();
+		}
+	}
+
+	/**
+	 * The log size, in bytes.
+	 */
+	public long getLogLength ()
+	{
+		lock.readLock ().lock ();
+		try {
+			return logLength;
+		}
+		finally {
+			lock.readLock ().unlock ();
+		}
+	}
+
+	/**
+	 * The bytes in the log used by replaced or removed records.
+	 */
+	public long getGarbageBytes ()
+	{
+		lock.readLock ().lock ();
+		try {
+			return garbageBytes;
+		}
+		finally {
+			lock.readLock ().unlock ();
+		}
+	}
+
+	public long getHits ()
+	{
+		return hits.sum ();
+	}
+
+	public long getMisses ()
+	{
+		return misses.sum ();
+	}
+
+	public Path getDirectory ()
+	{
+		return directory;
+	}
+}
@@ -0,0 +1,199 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import uk.org.lidalia.slf4jext.Level;
+import uk.org.lidalia.slf4jext.Logger;
+import uk.org.lidalia.slf4jext.LoggerFactory;
+
+/**
+ * <p>A {@link DynamicRateExecutor} that adapts its rate to the health of the service it calls, by means of an 
+ * AIMD (additive increase, multiplicative decrease) algorithm.</p>
+ * 
+ * <p>The executions are measured like {@link StatsExecutor} does, ie, by counting calls, failures and latency with 
+ * striped counters. Every {@link #getRateUpdatePeriod() update period}, these stats are used to decide the new rate:
+ * if the failure rate is above {@link #getFailureRateThreshold()} or the average latency has grown more than 
+ * {@link #getLatencyTolerance()} times the long-term average, the rate is multiplied by {@link #getBackoffRatio()}, 
+ * else it's increased by {@link #getRateIncrement()}, provided that the callers were actually using the current
+ * rate. The rate is always kept between {@link #getMinRate()} and {@link #getMaxRate()}.</p>
+ * 
+ * <p>Failures are intercepted in the form of {@link RuntimeException}s and they're re-thrown to the caller.</p>
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class AdaptiveRateExecutor extends DynamicRateExecutor
+{
+	private final double minRate, maxRate;
+	private double rateIncrement = 1;
+	private double backoffRatio = 0.7;
+	private double failureRateThreshold = 0.05;
+	
+	private final LongAdder periodCalls = new LongAdder (), periodFailures = new LongAdder (), 
+		periodLatency = new LongAdder ();
+	private long lastUpdateTime = System.nanoTime ();
+	private final AimdController aimd = new AimdController ( 2.0 );
+	
+	private Logger log = LoggerFactory.getLogger ( this.getClass () );
+
+	/**
+	 * @param initialRate the starting rate, in calls/sec.
+	 * @param minRate the rate floor, never go below this (calls/sec). 
+	 * @param maxRate the rate ceiling, never go above this (calls/sec).
+	 * @param rateUpdatePeriod see {@link #getRateUpdatePeriod()}.
+	 */
+	public AdaptiveRateExecutor ( double initialRate, double minRate, double maxRate, long rateUpdatePeriod )
+	{
+		super ( initialRate );
+		if ( minRate <= 0 || maxRate < minRate ) throw new IllegalArgumentException ( 
+			"Invalid rate limits for AdaptiveRateExecutor: [" + minRate + ", " + maxRate + "]"
+		);
+		this.minRate = minRate;
+		this.maxRate = maxRate;
+		this.setRateUpdatePeriod ( rateUpdatePeriod );
+	}
+
+	/**
+	 * Defaults to a rate update every second.
+	 */
+	public AdaptiveRateExecutor ( double initialRate, double minRate, double maxRate )
+	{
+		this ( initialRate, minRate, maxRate, 1000 );
+	}
+
+	/**
+	 * Runs the action with the current rate limit and records its outcome and latency.
+	 */
+	@Override
+	public void execute ( Runnable action )
+	{
+		super.execute ( () -> 
+		{
+			long startTime = System.nanoTime ();
+			try {
+				action.run ();
+			}
+			catch ( RuntimeException ex ) {
+				periodFailures.increment ();
+				throw ex;
+			}
+			finally {
+				periodLatency.add ( System.nanoTime () - startTime );
+				periodCalls.increment ();
+			}
+		});
+	}
+
+	/**
+	 * The AIMD step, see the class comment. This is invoked periodically, not by the execution path. 
+	 */
+	@Override
+	protected synchronized double setNewRate ()
+	{
+		long now = System.nanoTime ();
+		double elapsedSecs = ( now - lastUpdateTime ) / 1E9;
+		lastUpdateTime = now;
+		
+		long calls = periodCalls.sumThenReset ();
+		long failures = periodFailures.sumThenReset ();
+		long latency = periodLatency.sumThenReset ();
+		
+		double rate = this.getRate ();
+		if ( calls == 0 ) return rate;
+		
+		double failureRate = 1d * failures / calls;
+		double newRate = rate;
+		
+		// Increase only if the current rate is the actual bottleneck 
+		boolean isSaturated = calls / elapsedSecs >= rate * 0.8;
+		switch ( aimd.update ( calls, latency, failureRate > failureRateThreshold, isSaturated ) )
+		{
+			case DECREASE: newRate = Math.max ( minRate, rate * backoffRatio ); break;
+			case INCREASE: newRate = Math.min ( maxRate, rate + rateIncrement ); break;
+			default: break;
+		}
+		
+		if ( newRate != rate ) log.log ( newRate < rate ? Level.INFO : Level.DEBUG, 
+			"Adaptive rate changed from {} to {} calls/s, failure rate: {} %, latency: {} ms",
+			String.format ( "%.2f", rate ), String.format ( "%.2f", newRate ), 
+			String.format ( "%.1f", failureRate * 100 ), String.format ( "%.1f", aimd.getLastLatency () / 1E6 ) 
+		);
+		return newRate;
+	}
+
+	
+	/**
+	 * The rate never goes below this, in calls/sec.
+	 */
+	public double getMinRate ()
+	{
+		return minRate;
+	}
+
+	/**
+	 * The rate never goes above this, in calls/sec.
+	 */
+	public double getMaxRate ()
+	{
+		return maxRate;
+	}
+
+	/**
+	 * How much the rate is increased when the service is healthy, in calls/sec. Default is 1.
+	 */
+	public double getRateIncrement ()
+	{
+		return rateIncrement;
+	}
+
+	public AdaptiveRateExecutor setRateIncrement ( double rateIncrement )
+	{
+		this.rateIncrement = rateIncrement;
+		return this;
+	}
+
+	/**
+	 * The rate is multiplied by this when the service is in trouble. Default is 0.7.
+	 */
+	public double getBackoffRatio ()
+	{
+		return backoffRatio;
+	}
+
+	public AdaptiveRateExecutor setBackoffRatio ( double backoffRatio )
+	{
+		this.backoffRatio = backoffRatio;
+		return this;
+	}
+
+	/**
+	 * The rate is decreased when the failed calls in an update period are more than this ratio. Default is 0.05.
+	 */
+	public double getFailureRateThreshold ()
+	{
+		return failureRateThreshold;
+	}
+
+	public AdaptiveRateExecutor setFailureRateThreshold ( double failureRateThreshold )
+	{
+		this.failureRateThreshold = failureRateThreshold;
+		return this;
+	}
+
+	/**
+	 * The rate is decreased when the average latency in an update period grows more than this number of times
+	 * with respect to the long-term average. Default is 2. Latencies are considered only for the periods with
+	 * at least 10 calls.
+	 */
+	public double getLatencyTolerance ()
+	{
+		return aimd.getLatencyTolerance ();
+	}
+
+	public AdaptiveRateExecutor setLatencyTolerance ( double latencyTolerance )
+	{
+		aimd.setLatencyTolerance ( latencyTolerance );
+		return this;
+	}
+}
@@ -0,0 +1,90 @@
+package uk.ac.ebi.utils.runcontrol;
+
+/**
+ * <p>The decision logic shared by the executors that adapt a limit with an AIMD (additive increase, multiplicative
+ * decrease) algorithm, ie, {@link AdaptiveRateExecutor} and {@link BulkheadExecutor}.</p>
+ *
+ * <p>At the end of every period, the owner passes the period's stats to {@link #update(long, long, boolean, boolean)},
+ * which tells whether the limit should be decreased, increased or kept, and keeps a long-term average latency, the
+ * baseline to which the period latency is compared. The owner applies the decision to its own limit.</p>
+ *
+ * <p>This isn't thread-safe, the owner should call {@link #update(long, long, boolean, boolean)} from one thread at a
+ * time.</p>
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+final class AimdController
+{
+	static enum Decision { DECREASE, INCREASE, KEEP }
+
+	/**
+	 * The average latency of fewer calls than this is too noisy to be compared or to update the baseline.
+	 */
+	static final int MIN_LATENCY_SAMPLES = 10;
+
+	private double latencyTolerance;
+	private volatile double longTermLatency = -1;
+	private double lastLatency = -1;
+
+	AimdController ( double latencyTolerance ) {
+		this.latencyTolerance = latencyTolerance;
+	}
+
+	/**
+	 * The AIMD step.
+	 *
+	 * @param calls the calls in the period
+	 * @param totalLatency the sum of the latencies of the calls in the period
+	 * @param isFailing true if the period had too many failures, according to the owner's criteria
+	 * @param isSaturated true if the callers actually used the current limit, which is increased only in this case
+	 */
+	Decision update ( long calls, long totalLatency, boolean isFailing, boolean isSaturated )
+	{
+		if ( calls == 0 ) return Decision.KEEP;
+
+		double avgLatency = lastLatency = 1d * totalLatency / calls;
+		double longTermLatency = this.longTermLatency;
+
+		boolean isLatencyReliable = calls >= MIN_LATENCY_SAMPLES;
+		boolean isTrouble = isFailing
+			|| isLatencyReliable && longTermLatency > 0 && avgLatency > longTermLatency * latencyTolerance;
+
+		// Slowly moving baseline, not updated with bad periods, so that persistent problems keep decreasing the
+		// limit. This can't be based on the limit change, since it doesn't change at the floor.
+		if ( !isTrouble && isLatencyReliable ) this.longTermLatency = longTermLatency < 0
+			? avgLatency
+			: 0.9 * longTermLatency + 0.1 * avgLatency;
+
+		if ( isTrouble ) return Decision.DECREASE;
+		return isSaturated ? Decision.INCREASE : Decision.KEEP;
+	}
+
+
+	/**
+	 * The long-term average latency (ns), or -1 if there isn't a baseline yet.
+	 */
+	double getLongTermLatency ()
+	{
+		return longTermLatency;
+	}
+
+	/**
+	 * The average latency (ns) passed to the last {@link #update(long, long, boolean, boolean) update}.
+	 */
+	double getLastLatency ()
+	{
+		return lastLatency;
+	}
+
+	double getLatencyTolerance ()
+	{
+		return latencyTolerance;
+	}
+
+	void setLatencyTolerance ( double latencyTolerance )
+	{
+		this.latencyTolerance = latencyTolerance;
+	}
+}
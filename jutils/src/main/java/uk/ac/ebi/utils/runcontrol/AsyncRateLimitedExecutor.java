@@ -0,0 +1,317 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.ac.ebi.utils.threading.ThreadUtils;
+
+/**
+ * <p>A non-blocking version of {@link RateLimitedExecutor}. Instead of making the calling thread to wait for a 
+ * permit, actions are queued and a pacer task on {@link #getScheduler()} dispatches them to 
+ * {@link #getActionExecutor()} at the {@link #getRate() configured rate}. This way, no thread is kept sleeping 
+ * when the throttling is heavy.</p>
+ * 
+ * <p>The queue of pending actions is bounded by {@link #getMaxPending()}. When it's full, new actions are handled
+ * according to {@link #getOverflowPolicy()}.</p>
+ * 
+ * <p>Unlike {@link RateLimitedExecutor}, this is not based on Guava's {@code RateLimiter}, since the latter 
+ * doesn't offer a way to reserve permits without waiting for them. The pacing here is strict, ie, no 
+ * burst of permits is accumulated during idle periods.</p>
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class AsyncRateLimitedExecutor implements Executor
+{
+	/**
+	 * What to do when an action is submitted and there are already {@link #getMaxPending()} actions waiting.
+	 */
+	public static enum OverflowPolicy 
+	{
+		/** The new action is rejected with {@link RejectedExecutionException} */
+		REJECT, 
+		/** The oldest pending action is dropped (its future completes with a {@link RejectedExecutionException}) */
+		DROP_OLDEST 
+	}
+	
+	private static class PendingAction<T>
+	{
+		final Supplier<T> action;
+		final CompletableFuture<T> result = new CompletableFuture<> ();
+		
+		PendingAction ( Supplier<T> action ) {
+			this.action = action;
+		}
+	}
+	
+	private volatile long permitInterval;
+	private final int maxPending;
+	private final OverflowPolicy overflowPolicy;
+	
+	private Executor actionExecutor = ThreadUtils.getSharedWorkerExecutor ();
+	private ScheduledExecutorService scheduler = ThreadUtils.getSharedScheduler ();
+	
+	private final Deque<PendingAction<?>> pendingActions = new ConcurrentLinkedDeque<> ();
+	private final AtomicInteger pendingCount = new AtomicInteger ( 0 );
+	
+	/** True when the pacer is running or scheduled, ensures we have one pacer only */
+	private final AtomicBoolean isPacerActive = new AtomicBoolean ( false );
+	/** Accessed by the pacer only */
+	private long nextPermitTime = System.nanoTime ();
+	
+	private Logger log = LoggerFactory.getLogger ( this.getClass () );
+	
+	
+	/**
+	 * @param requestsPerSecond see {@link #getRate()}
+	 * @param maxPending see {@link #getMaxPending()}
+	 * @param overflowPolicy see {@link #getOverflowPolicy()}
+	 */
+	public AsyncRateLimitedExecutor ( double requestsPerSecond, int maxPending, OverflowPolicy overflowPolicy )
+	{
+		if ( maxPending < 1 ) throw new IllegalArgumentException ( "AsyncRateLimitedExecutor needs maxPending >= 1" );
+		this.setRate ( requestsPerSecond );
+		this.maxPending = maxPending;
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	/**
+	 * Defaults to 1000 max pending actions and the {@link OverflowPolicy#REJECT} policy. 
+	 */
+	public AsyncRateLimitedExecutor ( double requestsPerSecond ) {
+		this ( requestsPerSecond, 1000, OverflowPolicy.REJECT );
+	}
+
+	
+	/**
+	 * Queues the action for rate-limited execution and returns immediately. Since there is no way to return the 
+	 * action's outcome to the caller, action failures (or actions dropped by {@link OverflowPolicy#DROP_OLDEST}) 
+	 * are logged. Use {@link #submit(Runnable)} if you want to deal with them.
+	 * 
+	 * @throws RejectedExecutionException if the queue is full and the policy is {@link OverflowPolicy#REJECT}.
+	 */
+	@Override
+	public void execute ( Runnable action )
+	{
+		CompletableFuture<Void> result = submit ( action );
+		
+		if ( result.isCompletedExceptionally () ) 
+		{
+			try {
+				result.join ();
+			}
+			catch ( CompletionException ex ) 
+			{
+				if ( ex.getCause () instanceof RejectedExecutionException ) throw (RejectedExecutionException) ex.getCause ();
+			}
+		}
+		
+		result.whenComplete ( ( r, ex ) -> 
+		{
+			if ( ex == null ) return;
+			if ( ex instanceof RejectedExecutionException ) 
+				log.warn ( "Rate-limited action not run: {}", ex.getMessage () );
+			else
+				log.error ( "Error while running a rate-limited action: " + ex.getMessage (), ex );
+		});
+	}
+
+	/**
+	 * Like {@link #execute(Runnable)}, but returns a future that is completed when the action completes. If the
+	 * action is rejected or dropped, the future completes with a {@link RejectedExecutionException}. If you cancel 
+	 * the future while the action is still pending, the action isn't run.
+	 */
+	public CompletableFuture<Void> submit ( Runnable action )
+	{
+		return supply ( () -> { action.run (); return null; } );
+	}
+	
+	/**
+	 * Like {@link #submit(Runnable)}, for an action that returns a result.
+	 */
+	public <T> CompletableFuture<T> supply ( Supplier<T> action )
+	{
+		PendingAction<T> pending = new PendingAction<> ( action );
+		
+		if ( pendingCount.incrementAndGet () > maxPending )
+		{
+			if ( overflowPolicy == OverflowPolicy.REJECT ) 
+			{
+				pendingCount.decrementAndGet ();
+				pending.result.completeExceptionally ( new RejectedExecutionException ( 
+					"Too many pending actions in the rate-limited executor (" + maxPending + "), action rejected" 
+				));
+				return pending.result;
+			}
+			
+			// Drop oldest
+			PendingAction<?> oldest = pendingActions.pollFirst ();
+			if ( oldest != null ) 
+			{
+				pendingCount.decrementAndGet ();
+				oldest.result.completeExceptionally ( new RejectedExecutionException ( 
+					"Too many pending actions in the rate-limited executor (" + maxPending + "), action dropped" 
+				));
+			}
+		}
+		
+		pendingActions.offerLast ( pending );
+		if ( isPacerActive.compareAndSet ( false, true ) ) schedulePacer ( 0 );
+		
+		return pending.result;
+	}
+	
+	private void schedulePacer ( long delay )
+	{
+		try {
+			scheduler.schedule ( this::pace, delay, TimeUnit.NANOSECONDS );
+		}
+		catch ( RejectedExecutionException ex ) 
+		{
+			isPacerActive.set ( false );
+			PendingAction<?> pending;
+			while ( ( pending = pendingActions.pollFirst () ) != null ) 
+			{
+				pendingCount.decrementAndGet ();
+				pending.result.completeExceptionally ( ex );
+			}
+		}
+	}
+	
+	/**
+	 * Dispatches the pending actions for which a permit is available and re-schedules itself for the next one.
+	 * This is run by one thread at a time, thanks to {@link #isPacerActive}.
+	 */
+	private void pace ()
+	{
+		while ( true )
+		{
+			long now = System.nanoTime ();
+			if ( now - nextPermitTime < 0 ) {
+				schedulePacer ( nextPermitTime - now );
+				return;
+			}
+
+			PendingAction<?> pending = pendingActions.pollFirst ();
+			if ( pending == null ) 
+			{
+				isPacerActive.set ( false );
+				// Something might have been added in the meantime, without seeing the pacer inactive
+				if ( pendingActions.isEmpty () || !isPacerActive.compareAndSet ( false, true ) ) return;
+				continue;
+			}
+			pendingCount.decrementAndGet ();
+			
+			// Cancelled while waiting, don't waste a permit
+			if ( pending.result.isDone () ) continue;
+			
+			nextPermitTime = now + permitInterval;
+			dispatch ( pending );
+		}
+	}
+	
+	private <T> void dispatch ( PendingAction<T> pending )
+	{
+		try 
+		{
+			actionExecutor.execute ( () -> 
+			{
+				if ( pending.result.isDone () ) return;
+				try {
+					pending.result.complete ( pending.action.get () );
+				}
+				catch ( Throwable ex ) {
+					pending.result.completeExceptionally ( ex );
+				}
+			});
+		}
+		catch ( RejectedExecutionException ex ) {
+			pending.result.completeExceptionally ( ex );
+		}
+	}
+	
+	
+	/**
+	 * The rate at which the actions are dispatched, in actions per second.
+	 */
+	public double getRate ()
+	{
+		long interval = permitInterval;
+		return interval == 0 ? Double.MAX_VALUE : 1E9 / interval;
+	}
+
+	/**
+	 * This takes effect from the next dispatched action.
+	 */
+	public void setRate ( double requestsPerSecond )
+	{
+		if ( requestsPerSecond <= 0 ) throw new IllegalArgumentException ( 
+			"Invalid rate " + requestsPerSecond + " for AsyncRateLimitedExecutor, it must be > 0" 
+		);
+		this.permitInterval = (long) ( 1E9 / requestsPerSecond );
+	}
+
+	/**
+	 * The max number of actions that can be waiting for a permit.
+	 */
+	public int getMaxPending ()
+	{
+		return maxPending;
+	}
+
+	public OverflowPolicy getOverflowPolicy ()
+	{
+		return overflowPolicy;
+	}
+
+	/**
+	 * The number of actions currently waiting for a permit.
+	 */
+	public int getPendingCount ()
+	{
+		return pendingCount.get ();
+	}
+	
+	/**
+	 * Where the actions are run when their permit is available. Default is 
+	 * {@link ThreadUtils#getSharedWorkerExecutor()}, since the rate-limited actions are usually blocking 
+	 * (eg, remote calls).
+	 */
+	public Executor getActionExecutor ()
+	{
+		return actionExecutor;
+	}
+
+	public AsyncRateLimitedExecutor setActionExecutor ( Executor actionExecutor )
+	{
+		this.actionExecutor = actionExecutor;
+		return this;
+	}
+
+	/**
+	 * Runs the pacer. Default is {@link ThreadUtils#getSharedScheduler()}.
+	 */
+	public ScheduledExecutorService getScheduler ()
+	{
+		return scheduler;
+	}
+
+	public AsyncRateLimitedExecutor setScheduler ( ScheduledExecutorService scheduler )
+	{
+		this.scheduler = scheduler;
+		return this;
+	}
+}
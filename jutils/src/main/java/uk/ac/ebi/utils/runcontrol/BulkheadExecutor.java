@@ -0,0 +1,369 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import uk.ac.ebi.utils.exceptions.UncheckedInterruptedException;
+import uk.org.lidalia.slf4jext.Level;
+import uk.org.lidalia.slf4jext.Logger;
+import uk.org.lidalia.slf4jext.LoggerFactory;
+
+/**
+ * <p>An executor that implements the bulkhead pattern, ie, it limits the number of concurrent calls to some resource
+ * (typically, a remote service), so that the resource isn't overloaded by too many in-flight requests. This is 
+ * complementary to {@link RateLimitedExecutor}, which limits the number of calls per time unit.</p>
+ * 
+ * <p>A call that finds all the slots busy waits up to {@link #getMaxWaitTime()} and then fails with 
+ * {@link BulkheadFullException}.</p>
+ * 
+ * <p>Instances can be shared per resource name, via {@link #getBulkhead(String, int)}.</p>
+ * 
+ * <p>In {@link #setAdaptive(int, int) adaptive mode}, the limit is tuned with an AIMD (additive increase, 
+ * multiplicative decrease) algorithm, similar to those in Netflix concurrency-limits: every 
+ * {@link #getAdaptivePeriod()}, the average latency of the calls in the period is compared to a long-term 
+ * average. If it has grown more than {@link #getLatencyTolerance()} times or there were failures, the limit is 
+ * multiplied by {@link #getBackoffRatio()}, else, if the calls actually used the current limit, the limit is
+ * increased by 1. The execution path only touches atomic counters, the limit update is done by one of the calling
+ * threads, once per period.</p>
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class BulkheadExecutor implements Executor
+{
+	/**
+	 * We need to expose {@link #reducePermits(int)}, to change the limit.
+	 */
+	private static class AdjustableSemaphore extends Semaphore
+	{
+		private static final long serialVersionUID = -5216479683064578218L;
+
+		public AdjustableSemaphore ( int permits ) {
+			super ( permits );
+		}
+
+		@Override
+		public void reducePermits ( int reduction ) {
+			super.reducePermits ( reduction );
+		}
+	}
+	
+	private static final Map<String, BulkheadExecutor> BULKHEADS = new ConcurrentHashMap<> ();
+	
+	private final String name;
+	private final AdjustableSemaphore semaphore;
+	private volatile int maxConcurrentCalls;
+	private long maxWaitTime = 0;
+	
+	private final AtomicInteger inFlightCalls = new AtomicInteger ( 0 );
+	private final LongAdder rejectedCalls = new LongAdder ();
+
+	private volatile boolean isAdaptive = false;
+	private int minLimit = 1, maxLimit = Integer.MAX_VALUE;
+	private long adaptivePeriod = 1000;
+	private double backoffRatio = 0.9;
+	
+	// Adaptive stats in the current period
+	private final LongAdder periodLatency = new LongAdder (), periodCalls = new LongAdder (), 
+		periodFailures = new LongAdder ();
+	private final LongAccumulator periodMaxInFlight = new LongAccumulator ( Math::max, 0 );
+	private final AtomicLong nextAdaptiveUpdate = new AtomicLong ( 0 );
+	private final AimdController aimd = new AimdController ( 2.0 );
+	
+	private Logger log = LoggerFactory.getLogger ( this.getClass () );
+	
+	
+	/**
+	 * @param name the name of the protected resource, used for logging and error messages.
+	 * @param maxConcurrentCalls the max number of calls that can run at the same time.
+	 */
+	public BulkheadExecutor ( String name, int maxConcurrentCalls )
+	{
+		if ( maxConcurrentCalls < 1 ) throw new IllegalArgumentException ( 
+			"The concurrency limit for the bulkhead " + name + " must be >= 1" 
+		);
+		this.name = name;
+		this.maxConcurrentCalls = maxConcurrentCalls;
+		this.semaphore = new AdjustableSemaphore ( maxConcurrentCalls );
+	}
+
+	/**
+	 * Gets the bulkhead associated to a resource name, creating a new one if it doesn't exist yet. This is useful
+	 * when multiple components call the same resource and they need to share the same limit.
+	 * 
+	 * @param maxConcurrentCalls used only if a new bulkhead is created.
+	 */
+	public static BulkheadExecutor getBulkhead ( String resourceName, int maxConcurrentCalls )
+	{
+		return BULKHEADS.computeIfAbsent ( resourceName, n -> new BulkheadExecutor ( n, maxConcurrentCalls ) );
+	}
+
+	/**
+	 * Removes a bulkhead from the {@link #getBulkhead(String, int) shared ones}.
+	 */
+	public static BulkheadExecutor removeBulkhead ( String resourceName )
+	{
+		return BULKHEADS.remove ( resourceName );
+	}
+	
+	
+	/**
+	 * Runs the action if a slot is available within {@link #getMaxWaitTime()}.
+	 * 
+	 * @throws BulkheadFullException if no slot became available in time. 
+	 */
+	@Override
+	public void execute ( Runnable action )
+	{
+		acquire ();
+		
+		long startTime = System.nanoTime ();
+		boolean isFailed = true;
+		try {
+			action.run ();
+			isFailed = false;
+		}
+		finally {
+			release ( System.nanoTime () - startTime, isFailed );
+		}
+	}
+	
+	private void acquire ()
+	{
+		try
+		{
+			boolean isAcquired = maxWaitTime <= 0 
+				? semaphore.tryAcquire () 
+				: semaphore.tryAcquire ( maxWaitTime, TimeUnit.MILLISECONDS );
+			
+			if ( !isAcquired ) 
+			{
+				rejectedCalls.increment ();
+				throw new BulkheadFullException ( String.format ( 
+					"The bulkhead for %s is full (%d concurrent calls), call rejected", name, maxConcurrentCalls
+				));
+			}
+		}
+		catch ( InterruptedException ex ) {
+			throw new UncheckedInterruptedException ( 
+				"Interrupted while waiting for the bulkhead " + name + ": " + ex.getMessage (), ex 
+			);
+		}
+		
+		int inFlight = inFlightCalls.incrementAndGet ();
+		if ( isAdaptive ) periodMaxInFlight.accumulate ( inFlight );
+	}
+	
+	private void release ( long latency, boolean isFailed )
+	{
+		inFlightCalls.decrementAndGet ();
+		semaphore.release ();
+		
+		if ( !isAdaptive ) return;
+		
+		periodLatency.add ( latency );
+		periodCalls.increment ();
+		if ( isFailed ) periodFailures.increment ();
+		
+		long now = System.nanoTime ();
+		long nextUpdate = nextAdaptiveUpdate.get ();
+		if ( now - nextUpdate < 0 ) return;
+		// Only one thread updates the limit
+		if ( !nextAdaptiveUpdate.compareAndSet ( nextUpdate, now + TimeUnit.MILLISECONDS.toNanos ( adaptivePeriod ) ) ) 
+			return;
+		updateAdaptiveLimit ();
+	}
+	
+	/**
+	 * The AIMD step. This is synchronised in case an update is so slow that the next period starts while it's still
+	 * running, it isn't a bottleneck, since it runs once per period. 
+	 */
+	private synchronized void updateAdaptiveLimit ()
+	{
+		long calls = periodCalls.sumThenReset ();
+		long latency = periodLatency.sumThenReset ();
+		long failures = periodFailures.sumThenReset ();
+		long maxInFlight = periodMaxInFlight.getThenReset ();
+		
+		int limit = this.maxConcurrentCalls, newLimit = limit;
+		// Don't increase until we have a latency baseline to compare with 
+		boolean isSaturated = aimd.getLongTermLatency () > 0 && maxInFlight >= limit;
+		switch ( aimd.update ( calls, latency, failures > 0, isSaturated ) )
+		{
+			case DECREASE: newLimit = Math.max ( minLimit, (int) ( limit * backoffRatio ) ); break;
+			case INCREASE: newLimit = Math.min ( maxLimit, limit + 1 ); break;
+			default: return;
+		}
+		if ( newLimit == limit ) return;
+
+		log.log ( newLimit < limit ? Level.INFO : Level.DEBUG, 
+			"Bulkhead for {}, concurrency limit changed from {} to {}, latency: {} ms (average: {} ms)", 
+			name, limit, newLimit, 
+			String.format ( "%.1f", aimd.getLastLatency () / 1E6 ), 
+			String.format ( "%.1f", aimd.getLongTermLatency () / 1E6 )
+		);
+		setLimit ( newLimit );
+	}
+	
+	private synchronized void setLimit ( int newLimit )
+	{
+		int delta = newLimit - this.maxConcurrentCalls;
+		if ( delta > 0 ) semaphore.release ( delta );
+		else if ( delta < 0 ) semaphore.reducePermits ( -delta );
+		this.maxConcurrentCalls = newLimit;
+	}
+
+	
+	public String getName ()
+	{
+		return name;
+	}
+
+	/**
+	 * The max number of calls that can run at the same time. In {@link #isAdaptive() adaptive mode}, this 
+	 * changes over time. When reduced, the calls currently running aren't affected, new calls have to 
+	 * wait until the number of running calls falls below the new value.
+	 */
+	public int getMaxConcurrentCalls ()
+	{
+		return maxConcurrentCalls;
+	}
+
+	public BulkheadExecutor setMaxConcurrentCalls ( int maxConcurrentCalls )
+	{
+		if ( maxConcurrentCalls < 1 ) throw new IllegalArgumentException ( 
+			"The concurrency limit for the bulkhead " + name + " must be >= 1" 
+		);
+		setLimit ( maxConcurrentCalls );
+		return this;
+	}
+
+	/**
+	 * How long a call waits for a free slot before failing, in ms. Default is 0, ie, calls fail immediately 
+	 * if the bulkhead is full. 
+	 */
+	public long getMaxWaitTime ()
+	{
+		return maxWaitTime;
+	}
+
+	public BulkheadExecutor setMaxWaitTime ( long maxWaitTime )
+	{
+		this.maxWaitTime = maxWaitTime;
+		return this;
+	}
+
+	/**
+	 * The number of calls currently running.
+	 */
+	public int getInFlightCalls ()
+	{
+		return inFlightCalls.get ();
+	}
+
+	/**
+	 * The number of calls rejected so far.
+	 */
+	public long getRejectedCalls ()
+	{
+		return rejectedCalls.sum ();
+	}
+
+	public boolean isAdaptive ()
+	{
+		return isAdaptive;
+	}
+
+	/**
+	 * Enables the adaptive mode (see the class comment), using the current {@link #getMaxConcurrentCalls()} as 
+	 * initial limit, and keeping the limit between the parameters.
+	 */
+	public BulkheadExecutor setAdaptive ( int minLimit, int maxLimit )
+	{
+		if ( minLimit < 1 || maxLimit < minLimit ) throw new IllegalArgumentException ( 
+			"Invalid adaptive limits for the bulkhead " + name + ": [" + minLimit + ", " + maxLimit + "]" 
+		);
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.nextAdaptiveUpdate.set ( System.nanoTime () + TimeUnit.MILLISECONDS.toNanos ( adaptivePeriod ) );
+		this.isAdaptive = true;
+		return this;
+	}
+
+	public BulkheadExecutor disableAdaptive ()
+	{
+		this.isAdaptive = false;
+		return this;
+	}
+	
+	public int getMinLimit ()
+	{
+		return minLimit;
+	}
+
+	public int getMaxLimit ()
+	{
+		return maxLimit;
+	}
+
+	/**
+	 * How often the limit is revised in adaptive mode, in ms. Default is 1000.
+	 */
+	public long getAdaptivePeriod ()
+	{
+		return adaptivePeriod;
+	}
+
+	public BulkheadExecutor setAdaptivePeriod ( long adaptivePeriod )
+	{
+		this.adaptivePeriod = adaptivePeriod;
+		return this;
+	}
+
+	/**
+	 * In adaptive mode, the limit is decreased when the average latency in a period grows more than this number 
+	 * of times with respect to the long-term average. Default is 2.
+	 */
+	public double getLatencyTolerance ()
+	{
+		return aimd.getLatencyTolerance ();
+	}
+
+	public BulkheadExecutor setLatencyTolerance ( double latencyTolerance )
+	{
+		aimd.setLatencyTolerance ( latencyTolerance );
+		return this;
+	}
+
+	/**
+	 * In adaptive mode, the long-term average latency (ns) used as a reference to detect latency spikes, -1 if 
+	 * it's not available yet. This is updated only with the periods without failures or spikes, having at least 
+	 * 10 calls.
+	 */
+	public double getLongTermLatency ()
+	{
+		return aimd.getLongTermLatency ();
+	}
+
+	/**
+	 * In adaptive mode, the limit is multiplied by this when it has to be decreased. Default is 0.9.
+	 */
+	public double getBackoffRatio ()
+	{
+		return backoffRatio;
+	}
+
+	public BulkheadExecutor setBackoffRatio ( double backoffRatio )
+	{
+		this.backoffRatio = backoffRatio;
+		return this;
+	}
+}
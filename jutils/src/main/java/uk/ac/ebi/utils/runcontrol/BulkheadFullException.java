@@ -0,0 +1,17 @@
+package uk.ac.ebi.utils.runcontrol;
+
+/**
+ * Thrown by {@link BulkheadExecutor} when a call can't get a free slot within the max wait time.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class BulkheadFullException extends RuntimeException
+{
+	private static final long serialVersionUID = 4712045196873391202L;
+
+	public BulkheadFullException ( String message ) {
+		super ( message );
+	}
+}
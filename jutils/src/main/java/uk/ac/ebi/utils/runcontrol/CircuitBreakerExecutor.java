@@ -0,0 +1,425 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+import uk.org.lidalia.slf4jext.Logger;
+import uk.org.lidalia.slf4jext.LoggerFactory;
+
+/**
+ * <p>An executor that implements the circuit breaker pattern, ie, it stops calling an operation that is failing 
+ * too often (typically, because some remote service is down), so that clients don't waste time and resources
+ * with calls that are going to fail anyway.</p>
+ * 
+ * <p>The executor has three {@link State states}:</p>
+ * <ul>
+ *   <li>{@link State#CLOSED}: calls are run normally and their outcomes are recorded in a sliding window of the 
+ *   last {@link #getWindowSize()} calls. When the window contains at least {@link #getMinCalls()} outcomes and the
+ *   failure rate reaches {@link #getFailureRateThreshold()}, the circuit is opened.</li>
+ *   <li>{@link State#OPEN}: every call fails immediately with {@link CircuitBreakerOpenException}, without running
+ *   the action. After {@link #getOpenStateTime()}, the circuit becomes half-open.</li>
+ *   <li>{@link State#HALF_OPEN}: {@link #getHalfOpenCalls()} trial calls are let through (the others are rejected). 
+ *   If they all succeed, the circuit is closed again, if one fails, it's opened again.</li>
+ * </ul>
+ * 
+ * <p>Since it's a regular {@link Executor}, this can be composed with others via {@link ChainExecutor}, eg, 
+ * {@code new ChainExecutor ( circuitBreaker ).wrap ( multipleAttemptsExecutor )} stops re-attempting when the 
+ * circuit is open.</p>
+ * 
+ * <p>The implementation is lock-free: the window is a ring buffer of atomic slots and the state transitions are
+ * based on compare-and-set, so that {@link #addStateListener(BiConsumer) state listeners} are notified exactly once
+ * per transition. As a consequence, the window and the half-open counters are approximated when many threads
+ * run calls at the same time as a state transition.</p>
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class CircuitBreakerExecutor implements Executor
+{
+	public static enum State { CLOSED, OPEN, HALF_OPEN }
+	
+	/**
+	 * Returned by {@link #tryAcquirePermission()} when a call isn't allowed.
+	 */
+	public static final long NO_PERMIT = -1;
+	
+	private static final int SLOT_EMPTY = 0, SLOT_SUCCESS = 1, SLOT_FAILURE = 2;
+	
+	private final String name;
+	
+	private final int windowSize;
+	private int minCalls;
+	private double failureRateThreshold = 0.5;
+	private long openStateTime = 60 * 1000;
+	private int halfOpenCalls = 5;
+	
+	private Class<Exception>[] recordedExceptions;
+
+	/**
+	 * The current state, with a generation number that changes with every transition, so that we can tell 
+	 * which state a call started in. 
+	 */
+	private static final class Phase 
+	{
+		final State state;
+		final long generation;
+
+		Phase ( State state, long generation ) 
+		{
+			this.state = state;
+			this.generation = generation;
+		}
+	}
+	
+	private final AtomicReference<Phase> phase = new AtomicReference<> ( new Phase ( State.CLOSED, 0 ) );
+	private volatile long openedAt = 0;
+
+	/** The window of recent outcomes */
+	private final AtomicIntegerArray window;
+	private final AtomicLong windowIndex = new AtomicLong ( 0 );
+	private final AtomicInteger windowCalls = new AtomicInteger ( 0 ), windowFailures = new AtomicInteger ( 0 );
+	
+	private final AtomicInteger halfOpenPermits = new AtomicInteger ( 0 ); 
+	private final AtomicInteger halfOpenSuccesses = new AtomicInteger ( 0 );
+	
+	private final List<BiConsumer<State, State>> stateListeners = new CopyOnWriteArrayList<> ();
+	
+	private Logger log = LoggerFactory.getLogger ( this.getClass () );
+	
+	/**
+	 * @param name a name for the protected resource, used in logging and error messages.
+	 * @param windowSize the size of the sliding window of call outcomes.
+	 * @param recordedExceptions the exceptions that are considered failures. Other exceptions are re-thrown, but
+	 * count as successes, since they usually are about the caller (eg, invalid parameters), not the service health.  
+	 */
+	@SafeVarargs
+	@SuppressWarnings ( { "unchecked", "varargs" } )
+	public CircuitBreakerExecutor ( String name, int windowSize, Class<? extends Exception> ...recordedExceptions )
+	{
+		if ( windowSize < 1 ) throw new IllegalArgumentException ( "The window size of a circuit breaker must be >= 1" );
+		
+		this.name = name;
+		this.windowSize = windowSize;
+		this.minCalls = Math.min ( 20, windowSize );
+		this.window = new AtomicIntegerArray ( windowSize );
+		this.recordedExceptions = recordedExceptions == null || recordedExceptions.length == 0 
+			? (Class<Exception>[]) new Class<?>[] { Exception.class }
+			: (Class<Exception>[]) recordedExceptions;
+	}
+
+	/**
+	 * Defaults to a window of 100 calls, all exceptions are recorded as failures.
+	 */
+	public CircuitBreakerExecutor ( String name ) {
+		this ( name, 100 );
+	}
+
+	/**
+	 * Runs the action if the circuit {@link #tryAcquirePermission() allows for it}, records its outcome and 
+	 * re-throws its exception, if any. {@link Error}s are always recorded as failures.
+	 * 
+	 * @throws CircuitBreakerOpenException if the circuit is open.
+	 */
+	@Override
+	public void execute ( Runnable action )
+	{
+		long permit = tryAcquirePermission ();
+		if ( permit == NO_PERMIT ) throw createOpenException ();
+		
+		try {
+			action.run ();
+			recordSuccess ( permit );
+		}
+		catch ( RuntimeException ex ) 
+		{
+			if ( isRecorded ( ex ) ) recordFailure ( permit ); 
+			else recordSuccess ( permit );
+			throw ex;
+		}
+		catch ( Error err ) 
+		{
+			// Always a failure, and the permit must be returned anyway, else a half-open circuit gets stuck
+			recordFailure ( permit );
+			throw err;
+		}
+	}
+	
+	/**
+	 * <p>Tells if a call can be run now, based on the current state. Moves the state from open to half-open, when 
+	 * it's time to do so.</p>
+	 * 
+	 * <p>This and {@link #recordSuccess(long)}/{@link #recordFailure(long)} are public, so that you can use the 
+	 * breaker in contexts where wrapping a {@link Runnable} isn't possible (eg, asynchronous calls). If this returns
+	 * a permit, you MUST pass it to one of the latter methods after the call.</p>
+	 * 
+	 * @return a permit for the call, which identifies the state in which it was given, or {@link #NO_PERMIT} if 
+	 * the call isn't allowed.
+	 */
+	public long tryAcquirePermission ()
+	{
+		Phase current = phase.get ();
+		if ( current.state == State.CLOSED ) return current.generation;
+		
+		if ( current.state == State.OPEN )
+		{
+			if ( System.nanoTime () - openedAt < TimeUnit.MILLISECONDS.toNanos ( openStateTime ) ) return NO_PERMIT;
+			// Only one thread will actually make it, but we're all in half-open state afterwards
+			transition ( current, State.HALF_OPEN );
+			current = phase.get ();
+		}
+		
+		if ( current.state == State.HALF_OPEN ) 
+			return halfOpenPermits.getAndDecrement () > 0 ? current.generation : NO_PERMIT;
+		
+		// Closed again in the meantime
+		return current.state == State.CLOSED ? current.generation : NO_PERMIT;
+	}
+	
+	/**
+	 * Records a successful call. If the state has changed since the call got its permit, the outcome is ignored,
+	 * so that, eg, a slow call started when the circuit was closed doesn't count as a half-open trial call.  
+	 * 
+	 * @see #tryAcquirePermission().
+	 */
+	public void recordSuccess ( long permit )
+	{
+		Phase current = phase.get ();
+		if ( current.generation != permit ) return;
+		
+		if ( current.state == State.CLOSED ) 
+			recordOutcome ( SLOT_SUCCESS );
+		else if ( current.state == State.HALF_OPEN && halfOpenSuccesses.incrementAndGet () >= halfOpenCalls ) 
+			transition ( current, State.CLOSED );
+	}
+
+	/**
+	 * Records a failed call, ignoring it if the state has changed since the call got its permit, as in 
+	 * {@link #recordSuccess(long)}.
+	 * 
+	 * @see #tryAcquirePermission().
+	 */
+	public void recordFailure ( long permit )
+	{
+		Phase current = phase.get ();
+		if ( current.generation != permit ) return;
+
+		if ( current.state == State.CLOSED ) 
+		{
+			recordOutcome ( SLOT_FAILURE );
+			int calls = windowCalls.get ();
+			if ( calls >= minCalls && 1d * windowFailures.get () / calls >= failureRateThreshold ) 
+				transition ( current, State.OPEN );
+		}
+		else if ( current.state == State.HALF_OPEN ) 
+			transition ( current, State.OPEN );
+	}
+	
+	/**
+	 * Brings the breaker back to the initial closed state and clears the call window.
+	 */
+	public void reset ()
+	{
+		Phase current = phase.get ();
+		if ( current.state != State.CLOSED ) transition ( current, State.CLOSED );
+	}
+
+	private void recordOutcome ( int outcome )
+	{
+		int idx = (int) ( windowIndex.getAndIncrement () % windowSize );
+		int oldOutcome = window.getAndSet ( idx, outcome );
+		
+		if ( oldOutcome == SLOT_EMPTY ) windowCalls.incrementAndGet ();
+		if ( oldOutcome == SLOT_FAILURE ) windowFailures.decrementAndGet ();
+		if ( outcome == SLOT_FAILURE ) windowFailures.incrementAndGet ();
+	}
+	
+	private void clearWindow ()
+	{
+		for ( int i = 0; i < windowSize; i++ ) window.set ( i, SLOT_EMPTY );
+		windowIndex.set ( 0 );
+		windowCalls.set ( 0 );
+		windowFailures.set ( 0 );
+	}
+	
+	/**
+	 * Does a transition, if the current phase is still the from one, prepares the new state and notifies the
+	 * listeners.
+	 */
+	private boolean transition ( Phase fromPhase, State to )
+	{
+		State from = fromPhase.state;
+		
+		// Set this before the state, so that other threads see it when they see the new state. At worst, a 
+		// losing thread extends the open time a little.
+		if ( to == State.OPEN ) openedAt = System.nanoTime ();
+
+		if ( !phase.compareAndSet ( fromPhase, new Phase ( to, fromPhase.generation + 1 ) ) ) return false;
+		
+		// These are set by the winner only, in the meantime, other threads are rejected or ignored
+		if ( to == State.OPEN ) 
+			halfOpenPermits.set ( 0 );
+		else if ( to == State.HALF_OPEN ) {
+			halfOpenSuccesses.set ( 0 );
+			halfOpenPermits.set ( halfOpenCalls );
+		}
+		else if ( to == State.CLOSED ) 
+			clearWindow ();
+		
+		if ( to == State.OPEN ) 
+			log.warn ( "Circuit breaker for {} is now open, calls will be rejected for {} ms", name, openStateTime );
+		else
+			log.info ( "Circuit breaker for {}, state changed from {} to {}", name, from, to );
+
+		for ( BiConsumer<State, State> listener: stateListeners )
+		{
+			try {
+				listener.accept ( from, to );
+			}
+			catch ( RuntimeException ex ) {
+				log.error ( "Error while notifying the circuit breaker state change for " + name + ": " + ex.getMessage (), ex );
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * The exception thrown when a call isn't permitted.
+	 */
+	CircuitBreakerOpenException createOpenException ()
+	{
+		return new CircuitBreakerOpenException ( 
+			"Circuit breaker for " + name + " is " + phase.get ().state + ", call rejected"  
+		);
+	}
+
+	/**
+	 * Tells if an exception counts as a failure, see {@link #getRecordedExceptions()}.
+	 */
+	boolean isRecorded ( Exception ex )
+	{
+		for ( Class<Exception> exr: recordedExceptions )
+			if ( exr.isAssignableFrom ( ex.getClass () ) ) return true;
+		return false;
+	}
+	
+	
+	public String getName ()
+	{
+		return name;
+	}
+
+	public State getState ()
+	{
+		return phase.get ().state;
+	}
+	
+	/**
+	 * The failure rate in the current window, in [0, 1].
+	 */
+	public double getFailureRate ()
+	{
+		int calls = windowCalls.get ();
+		return calls == 0 ? 0d : 1d * windowFailures.get () / calls;
+	}
+	
+	/**
+	 * How many call outcomes are kept to compute the failure rate.
+	 */
+	public int getWindowSize ()
+	{
+		return windowSize;
+	}
+
+	/**
+	 * The min number of calls needed to compute the failure rate. Default is 20, or {@link #getWindowSize()} if 
+	 * that's smaller. 
+	 */
+	public int getMinCalls ()
+	{
+		return minCalls;
+	}
+
+	public CircuitBreakerExecutor setMinCalls ( int minCalls )
+	{
+		// More than the window size would never open the circuit
+		if ( minCalls < 1 || minCalls > windowSize ) throw new IllegalArgumentException ( 
+			"Invalid minCalls " + minCalls + " for the circuit breaker " + name + ", it must be in [1, windowSize]" 
+		);
+		this.minCalls = minCalls;
+		return this;
+	}
+
+	/**
+	 * When the failure rate reaches this (in [0, 1]) the circuit is opened. Default is 0.5.
+	 */
+	public double getFailureRateThreshold ()
+	{
+		return failureRateThreshold;
+	}
+
+	public CircuitBreakerExecutor setFailureRateThreshold ( double failureRateThreshold )
+	{
+		this.failureRateThreshold = failureRateThreshold;
+		return this;
+	}
+
+	/**
+	 * How long the circuit stays open before trying the half-open state, in ms. Default is 1 min.
+	 */
+	public long getOpenStateTime ()
+	{
+		return openStateTime;
+	}
+
+	public CircuitBreakerExecutor setOpenStateTime ( long openStateTime )
+	{
+		this.openStateTime = openStateTime;
+		return this;
+	}
+
+	/**
+	 * The number of trial calls in the half-open state. Default is 5.
+	 */
+	public int getHalfOpenCalls ()
+	{
+		return halfOpenCalls;
+	}
+
+	public CircuitBreakerExecutor setHalfOpenCalls ( int halfOpenCalls )
+	{
+		this.halfOpenCalls = halfOpenCalls;
+		return this;
+	}
+
+	/**
+	 * The exceptions (or their subclasses) that are counted as failures. Default is {@link Exception}, ie, 
+	 * any failure.
+	 */
+	public Class<Exception>[] getRecordedExceptions ()
+	{
+		return recordedExceptions;
+	}
+
+	/**
+	 * Listeners are invoked with the old and new state, after a state change. They are invoked by the 
+	 * thread that causes the change, so they should be quick.
+	 */
+	public CircuitBreakerExecutor addStateListener ( BiConsumer<State, State> listener )
+	{
+		this.stateListeners.add ( listener );
+		return this;
+	}
+
+	public boolean removeStateListener ( BiConsumer<State, State> listener )
+	{
+		return this.stateListeners.remove ( listener );
+	}
+}
@@ -0,0 +1,17 @@
+package uk.ac.ebi.utils.runcontrol;
+
+/**
+ * Thrown by {@link CircuitBreakerExecutor} when it rejects a call, since the circuit is open.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class CircuitBreakerOpenException extends RuntimeException
+{
+	private static final long serialVersionUID = -3527170880164385467L;
+
+	public CircuitBreakerOpenException ( String message ) {
+		super ( message );
+	}
+}
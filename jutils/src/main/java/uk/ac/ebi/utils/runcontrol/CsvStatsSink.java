@@ -0,0 +1,91 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+import uk.ac.ebi.utils.exceptions.ExceptionUtils;
+
+/**
+ * <p>A {@link StatsSink} that writes the stats on a CSV file, one row per sampling window, so that they can be 
+ * analysed or graphed offline.</p>
+ * 
+ * <p>If the file already exists, new rows are appended to it and the headers aren't written again. Every row 
+ * is flushed as soon as it's written, since sampling windows are usually long.</p> 
+ * 
+ * <p>Latencies are reported in ns, times in ms since the epoch, throughput in calls/min.</p> 
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class CsvStatsSink implements StatsSink, Closeable
+{
+	public static final String HEADERS = 
+		"service,startTime,endTime,elapsedTime,totalCalls,failedCalls,throughput,failedRatio,"
+		+ "p50Latency,p95Latency,p99Latency,maxLatency,timedOutCalls";
+	
+	private final Path path;
+	private final Writer writer;
+	
+	public CsvStatsSink ( Path path )
+	{
+		this.path = path;
+		try 
+		{
+			boolean isNew = !Files.exists ( path ) || Files.size ( path ) == 0;
+			this.writer = Files.newBufferedWriter ( 
+				path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND 
+			);
+			if ( isNew ) {
+				writer.write ( HEADERS + "\n" );
+				writer.flush ();
+			}
+		}
+		catch ( IOException ex ) {
+			throw ExceptionUtils.buildEx ( UncheckedIOException.class, ex,
+				"Error while opening the stats file \"%s\": %s", path, ex.getMessage ()
+			);
+		}
+	}
+
+	@Override
+	public synchronized void record ( ExecutionStats stats )
+	{
+		// Locale-independent, else locales like it_IT would use the comma as decimal separator
+		String row = String.format ( Locale.ROOT,
+			"\"%s\",%d,%d,%d,%d,%d,%.2f,%.4f,%d,%d,%d,%d,%d\n",
+			stats.getServiceName ().replace ( "\"", "\"\"" ),
+			stats.getStartTime (), stats.getEndTime (), stats.getElapsedTime (), 
+			stats.getTotalCalls (), stats.getFailedCalls (), stats.getThroughput (), stats.getFailedRatio (),
+			stats.getP50Latency (), stats.getP95Latency (), stats.getP99Latency (), stats.getMaxLatency (),
+			stats.getTimedOutCalls ()
+		);
+		try {
+			writer.write ( row );
+			writer.flush ();
+		}
+		catch ( IOException ex ) {
+			ExceptionUtils.throwEx ( UncheckedIOException.class, ex,
+				"Error while writing on the stats file \"%s\": %s", path, ex.getMessage ()
+			);
+		}
+	}
+
+	@Override
+	public synchronized void close () throws IOException
+	{
+		writer.close ();
+	}
+
+	public Path getPath ()
+	{
+		return path;
+	}
+}
@@ -1,16 +1,33 @@
 package uk.ac.ebi.utils.runcontrol;
 
+import java.lang.ref.WeakReference;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.ac.ebi.utils.threading.ThreadUtils;
+
 /**
- * Like {@link RateLimitedExecutor}, but contains a hook where you can dynamically decide which new rate you want to
+ * <p>Like {@link RateLimitedExecutor}, but contains a hook where you can dynamically decide which new rate you want to
  * set. This can be useful to dynamically regulate the throughput of a service, eg, based on its efficiency, measure 
- * via {@link StatsExecutor}.
+ * via {@link StatsExecutor}.</p>
+ * 
+ * <p>By default, the hook is invoked by every {@link #execute(Runnable)} call. If it's expensive, you can 
+ * {@link #setRateUpdatePeriod(long) have it invoked periodically} by a background task instead.</p>  
  *
+ * @see AdaptiveRateExecutor
  * @author brandizi
  * <dl><dt>Date:</dt><dd>19 Oct 2015</dd></dl>
  *
  */
 public abstract class DynamicRateExecutor extends RateLimitedExecutor
 {
+	private volatile long rateUpdatePeriod = 0;
+	private volatile int rateUpdateGeneration = 0;
+	
+	private Logger log = LoggerFactory.getLogger ( this.getClass () );
+	
 	/**
 	 * Default is to start with no rate limitation, hence {@link Double#MAX_VALUE}. 
 	 */
@@ -26,6 +43,15 @@ public abstract class DynamicRateExecutor extends RateLimitedExecutor
 	
 	@Override
 	public void execute ( Runnable action )
+	{
+		if ( this.rateUpdatePeriod <= 0 ) this.updateRate ();
+		super.execute ( action );
+	}
+
+	/**
+	 * Invokes {@link #setNewRate()} and changes the rate accordingly.
+	 */
+	private void updateRate ()
 	{
 		double newRate = setNewRate ();
 		
@@ -37,8 +63,27 @@ public abstract class DynamicRateExecutor extends RateLimitedExecutor
 			if ( oldRate == 0 || Math.abs ( newRate / oldRate - 1 ) > 1d/1000 ) 
 				this.setRate ( newRate );
 		}
-		
-		super.execute ( action );
+	}
+	
+	/**
+	 * Runs {@link #updateRate()} periodically, until the executor is garbage-collected or the period changes.
+	 */
+	private static void scheduleRateUpdate ( WeakReference<DynamicRateExecutor> executorRef, int generation, long delay )
+	{
+		ThreadUtils.getSharedScheduler ().schedule ( () -> 
+		{
+			DynamicRateExecutor executor = executorRef.get ();
+			if ( executor == null || executor.rateUpdateGeneration != generation ) return;
+			try {
+				executor.updateRate ();
+			}
+			catch ( RuntimeException ex ) {
+				executor.log.error ( "Error while updating the executor rate: " + ex.getMessage (), ex );
+			}
+			finally {
+				scheduleRateUpdate ( executorRef, generation, executor.rateUpdatePeriod );
+			}
+		}, delay, TimeUnit.MILLISECONDS );
 	}
 
 	/**
@@ -47,5 +92,23 @@ public abstract class DynamicRateExecutor extends RateLimitedExecutor
 	 * 
 	 * Note that the new rate must be different than the old one by more than 0.1%, otherwise no change takes effect. 
 	 */
-	protected abstract double setNewRate ();	
+	protected abstract double setNewRate ();
+
+	/**
+	 * If &gt; 0, {@link #setNewRate()} isn't invoked by {@link #execute(Runnable)}, but every this number of ms, by
+	 * a background task on the {@link ThreadUtils#getSharedScheduler() shared scheduler}. This keeps the rate 
+	 * evaluation out of the execution path. Default is 0.
+	 */
+	public long getRateUpdatePeriod ()
+	{
+		return rateUpdatePeriod;
+	}
+
+	public synchronized void setRateUpdatePeriod ( long rateUpdatePeriod )
+	{
+		this.rateUpdatePeriod = rateUpdatePeriod;
+		int generation = ++this.rateUpdateGeneration;
+		if ( rateUpdatePeriod > 0 ) 
+			scheduleRateUpdate ( new WeakReference<> ( this ), generation, rateUpdatePeriod );
+	}
 }
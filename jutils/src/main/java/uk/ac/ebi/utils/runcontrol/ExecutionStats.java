@@ -0,0 +1,160 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An immutable snapshot of the statistics that {@link StatsExecutor} collects over a sampling window.
+ *
+ * Latencies are in ns and they're approximated as explained in {@link LatencyHistogram}.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class ExecutionStats
+{
+	private final String serviceName;
+	private final long startTime, endTime;
+	private final long totalCalls, failedCalls, timedOutCalls;
+	private final double throughput;
+	private final long p50Latency, p95Latency, p99Latency, maxLatency;
+
+	/**
+	 * @param startTime the window start, ms since the epoch
+	 * @param endTime the window end, ms since the epoch
+	 * @param timedOutCalls see {@link #getTimedOutCalls()}
+	 * @param throughput calls/min
+	 */
+	public ExecutionStats (
+		String serviceName, long startTime, long endTime, long totalCalls, long failedCalls, long timedOutCalls,
+		double throughput, long p50Latency, long p95Latency, long p99Latency, long maxLatency
+	)
+	{
+		this.serviceName = serviceName;
+		this.startTime = startTime;
+		this.endTime = endTime;
+		this.totalCalls = totalCalls;
+		this.failedCalls = failedCalls;
+		this.timedOutCalls = timedOutCalls;
+		this.throughput = throughput;
+		this.p50Latency = p50Latency;
+		this.p95Latency = p95Latency;
+		this.p99Latency = p99Latency;
+		this.maxLatency = maxLatency;
+	}
+
+	/**
+	 * Builds the stats from a latency histogram.
+	 */
+	public ExecutionStats (
+		String serviceName, long startTime, long endTime, long totalCalls, long failedCalls, long timedOutCalls,
+		double throughput, LatencyHistogram latencies
+	)
+	{
+		this (
+			serviceName, startTime, endTime, totalCalls, failedCalls, timedOutCalls, throughput,
+			latencies.getPercentile ( 50 ), latencies.getPercentile ( 95 ), latencies.getPercentile ( 99 ),
+			latencies.getMax ()
+		);
+	}
+
+	public String getServiceName ()
+	{
+		return serviceName;
+	}
+
+	/**
+	 * When the window these stats refer to was started, in ms since the epoch.
+	 */
+	public long getStartTime ()
+	{
+		return startTime;
+	}
+
+	/**
+	 * When the window these stats refer to was closed, in ms since the epoch.
+	 */
+	public long getEndTime ()
+	{
+		return endTime;
+	}
+
+	/**
+	 * The actual duration of the window, in ms. This is what {@link #getThroughput()} is based on. 
+	 */
+	public long getElapsedTime ()
+	{
+		return endTime - startTime;
+	}
+
+	public long getTotalCalls ()
+	{
+		return totalCalls;
+	}
+
+	public long getFailedCalls ()
+	{
+		return failedCalls;
+	}
+
+	/**
+	 * The calls that failed with {@link ExecutionTimeoutException}. These are counted by {@link #getFailedCalls()}
+	 * too.
+	 */
+	public long getTimedOutCalls ()
+	{
+		return timedOutCalls;
+	}
+
+	/**
+	 * The ratio of failed calls, in [0, 1].
+	 */
+	public double getFailedRatio ()
+	{
+		return totalCalls == 0 ? 0d : 1d * failedCalls / totalCalls;
+	}
+
+	/**
+	 * In calls/min.
+	 */
+	public double getThroughput ()
+	{
+		return throughput;
+	}
+
+	public long getP50Latency ()
+	{
+		return p50Latency;
+	}
+
+	public long getP95Latency ()
+	{
+		return p95Latency;
+	}
+
+	public long getP99Latency ()
+	{
+		return p99Latency;
+	}
+
+	public long getMaxLatency ()
+	{
+		return maxLatency;
+	}
+
+	@Override
+	public String toString ()
+	{
+		return String.format (
+			"%s Statistics, throughput: %.0f calls/min, failed: %.1f %%, timed out: %d, "
+			+ "latency p50: %.1f ms, p95: %.1f ms, p99: %.1f ms, max: %.1f ms",
+			serviceName, throughput, getFailedRatio () * 100, timedOutCalls,
+			toMillis ( p50Latency ), toMillis ( p95Latency ), toMillis ( p99Latency ), toMillis ( maxLatency )
+		);
+	}
+
+	private static double toMillis ( long nanos )
+	{
+		return 1d * nanos / TimeUnit.MILLISECONDS.toNanos ( 1 );
+	}
+}
@@ -0,0 +1,18 @@
+package uk.ac.ebi.utils.runcontrol;
+
+/**
+ * Thrown by {@link TimeoutExecutor} when an action doesn't complete within its timeout. {@link StatsExecutor} 
+ * counts these exceptions separately from other failures.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class ExecutionTimeoutException extends RuntimeException
+{
+	private static final long serialVersionUID = 2860432409726584736L;
+
+	public ExecutionTimeoutException ( String message ) {
+		super ( message );
+	}
+}
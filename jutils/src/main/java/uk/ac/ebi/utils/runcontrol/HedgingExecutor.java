@@ -0,0 +1,323 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.machinezoo.noexception.throwing.ThrowingSupplier;
+
+import uk.ac.ebi.utils.exceptions.UncheckedInterruptedException;
+import uk.ac.ebi.utils.threading.ThreadUtils;
+
+/**
+ * <p>An executor that implements hedged requests, a technique to reduce the tail latency of idempotent operations
+ * against replicated services (eg, lookups on a load-balanced REST API): if the first attempt of an action
+ * takes longer than the {@link #getHedgingPercentile() n-th percentile} of the recent latencies, a backup attempt
+ * is started and the result of the attempt that finishes first is taken.</p>
+ * 
+ * <p>The latencies are measured live, in the same way {@link StatsExecutor} does, over windows of 
+ * {@link #getLatencyWindowTime()}. No hedging happens until {@link #getMinSamples()} latencies are available.</p>
+ * 
+ * <p>The extra load on the service is capped by {@link #getMaxHedgedRatio()}, ie, no backup attempt is started 
+ * when the hedged calls already are above this ratio of the total calls.</p>
+ * 
+ * <p><b>WARNING</b>: the actions submitted here must be idempotent, since they might be run twice. The slower attempt
+ * isn't interrupted, its result is just ignored.</p>
+ * 
+ * <p>Attempts run on {@link #getAsyncExecutor()}, which, by default, is 
+ * {@link ThreadUtils#getSharedWorkerExecutor()}. We don't use {@link java.util.concurrent.ForkJoinPool#commonPool()}, 
+ * since attempts are typically blocking remote calls and, with a few CPUs, a backup attempt could easily be queued 
+ * behind the slow one it is supposed to replace.</p>
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class HedgingExecutor implements Executor
+{
+	private double hedgingPercentile = 95;
+	private double maxHedgedRatio = 0.05;
+	private int minSamples = 100;
+	private long latencyWindowTime = 60 * 1000;
+	
+	private Executor asyncExecutor = ThreadUtils.getSharedWorkerExecutor ();
+	private ScheduledExecutorService scheduler = ThreadUtils.getSharedScheduler ();
+
+	// The latencies of the current window and the last complete one, in ns 
+	private volatile LatencyHistogram currentLatencies = new LatencyHistogram (), lastLatencies = null;
+	private final AtomicLong nextWindowTime = new AtomicLong ( 0 );
+	// Scanning the histogram at every call would be too expensive, see recordLatency()
+	private volatile long hedgingDelay = -1;
+	
+	private final LongAdder totalCalls = new LongAdder (), hedgedCalls = new LongAdder ();
+	
+	
+	/**
+	 * Runs the action via {@link #supplyAsync(ThrowingSupplier)} and waits for its result. Exceptions raised by
+	 * the action are re-thrown, wrapped by {@link CompletionException} if they're checked.
+	 */
+	@Override
+	public void execute ( Runnable action )
+	{
+		get ( () -> { action.run (); return null; } );
+	}
+
+	/**
+	 * Like {@link #execute(Runnable)}, but returns the action result.
+	 */
+	public <T> T get ( ThrowingSupplier<T> action )
+	{
+		try {
+			return supplyAsync ( action ).get ();
+		}
+		catch ( InterruptedException ex ) {
+			throw new UncheckedInterruptedException ( 
+				"Interrupted while waiting for a hedged action: " + ex.getMessage (), ex 
+			);
+		}
+		catch ( ExecutionException ex ) 
+		{
+			Throwable cause = ex.getCause ();
+			if ( cause instanceof RuntimeException ) throw (RuntimeException) cause;
+			if ( cause instanceof Error ) throw (Error) cause;
+			throw new CompletionException ( cause );
+		}
+	}
+	
+	/**
+	 * Runs the action asynchronously, hedging it as explained above. The returned future completes with the 
+	 * result of the first successful attempt or, if all the attempts fail, with the exception of the last one.
+	 */
+	public <T> CompletableFuture<T> supplyAsync ( ThrowingSupplier<T> action )
+	{
+		totalCalls.increment ();
+
+		CompletableFuture<T> result = new CompletableFuture<> ();
+		AtomicInteger runningAttempts = new AtomicInteger ( 1 );
+		submitAttempt ( action, result, runningAttempts );
+		
+		long hedgingDelay = getHedgingDelay ();
+		if ( hedgingDelay < 0 ) return result;
+		
+		try 
+		{
+			scheduler.schedule ( () -> 
+			{
+				if ( result.isDone () ) return;
+				if ( hedgedCalls.sum () >= maxHedgedRatio * totalCalls.sum () ) return;
+				
+				hedgedCalls.increment ();
+				runningAttempts.incrementAndGet ();
+				submitAttempt ( action, result, runningAttempts );
+			}, 
+			hedgingDelay, TimeUnit.NANOSECONDS );
+		}
+		catch ( RejectedExecutionException ex ) {
+			// Just don't hedge
+		}
+		
+		return result;
+	}
+
+	private <T> void submitAttempt ( 
+		ThrowingSupplier<T> action, CompletableFuture<T> result, AtomicInteger runningAttempts 
+	)
+	{
+		try {
+			asyncExecutor.execute ( () -> runAttempt ( action, result, runningAttempts ) );
+		}
+		catch ( RejectedExecutionException ex ) {
+			attemptFailed ( ex, result, runningAttempts );
+		}
+	}
+	
+	private <T> void runAttempt ( 
+		ThrowingSupplier<T> action, CompletableFuture<T> result, AtomicInteger runningAttempts 
+	)
+	{
+		// Typically, the other attempt won
+		if ( result.isDone () ) return;
+		
+		long startTime = System.nanoTime ();
+		try 
+		{
+			T value = action.get ();
+			recordLatency ( System.nanoTime () - startTime );
+			result.complete ( value );
+		}
+		catch ( Exception ex ) {
+			attemptFailed ( ex, result, runningAttempts );
+		}
+		catch ( Error err ) {
+			result.completeExceptionally ( err );
+			throw err;
+		}
+	}
+	
+	/**
+	 * A failure is reported only if no other attempt is running, so that the action still succeeds if the other 
+	 * attempt does.
+	 */
+	private <T> void attemptFailed ( 
+		Throwable ex, CompletableFuture<T> result, AtomicInteger runningAttempts 
+	)
+	{
+		if ( runningAttempts.decrementAndGet () > 0 ) return;
+		result.completeExceptionally ( ex );
+	}
+	
+	private void recordLatency ( long latency )
+	{
+		long now = System.currentTimeMillis ();
+		long next = nextWindowTime.get ();
+		if ( next == 0 ) 
+			nextWindowTime.compareAndSet ( 0, now + latencyWindowTime );
+		else if ( now >= next && nextWindowTime.compareAndSet ( next, now + latencyWindowTime ) ) 
+		{
+			// Only one thread wins the CAS and rolls the window over
+			LatencyHistogram completedLatencies = lastLatencies = currentLatencies;
+			currentLatencies = new LatencyHistogram ();
+			hedgingDelay = completedLatencies.getCount () < minSamples 
+				? -1 
+				: completedLatencies.getPercentile ( hedgingPercentile );
+		}
+		
+		LatencyHistogram latencies = currentLatencies;
+		latencies.record ( latency );
+		
+		// Until a complete window has enough data, use the current one, updating the delay every minSamples calls
+		LatencyHistogram last = lastLatencies;
+		if ( last != null && last.getCount () >= minSamples ) return;
+		long count = latencies.getCount ();
+		if ( count >= minSamples && count % minSamples == 0 ) 
+			hedgingDelay = latencies.getPercentile ( hedgingPercentile );
+	}
+	
+	/**
+	 * The time after which the backup attempt is started, in ns. This is the {@link #getHedgingPercentile()} of 
+	 * the last complete window, or the current one, if there isn't enough data in the last one. Returns -1 
+	 * if there aren't enough data at all. This is computed when a latency window is completed (or every 
+	 * {@link #getMinSamples()} calls, while the current window is used), not at every call.
+	 */
+	protected long getHedgingDelay ()
+	{
+		return hedgingDelay;
+	}
+
+
+	/**
+	 * The number of calls received so far.
+	 */
+	public long getTotalCalls ()
+	{
+		return totalCalls.sum ();
+	}
+
+	/**
+	 * The number of calls for which a backup attempt was started.
+	 */
+	public long getHedgedCalls ()
+	{
+		return hedgedCalls.sum ();
+	}
+
+	/**
+	 * The latency percentile (0-100) after which a backup attempt is started. Default is 95.
+	 */
+	public double getHedgingPercentile ()
+	{
+		return hedgingPercentile;
+	}
+
+	public HedgingExecutor setHedgingPercentile ( double hedgingPercentile )
+	{
+		if ( hedgingPercentile < 0 || hedgingPercentile > 100 ) throw new IllegalArgumentException ( 
+			"Invalid hedging percentile " + hedgingPercentile + ", it must be in [0, 100]" 
+		);
+		this.hedgingPercentile = hedgingPercentile;
+		return this;
+	}
+
+	/**
+	 * The max ratio of calls that can be hedged, which caps the extra load we put on the service. Default is 
+	 * 0.05, ie, 5%.
+	 */
+	public double getMaxHedgedRatio ()
+	{
+		return maxHedgedRatio;
+	}
+
+	public HedgingExecutor setMaxHedgedRatio ( double maxHedgedRatio )
+	{
+		this.maxHedgedRatio = maxHedgedRatio;
+		return this;
+	}
+
+	/**
+	 * The min no. of latency samples needed to compute {@link #getHedgingPercentile() the hedging percentile}. 
+	 * Default is 100.
+	 */
+	public int getMinSamples ()
+	{
+		return minSamples;
+	}
+
+	public HedgingExecutor setMinSamples ( int minSamples )
+	{
+		if ( minSamples < 1 ) throw new IllegalArgumentException ( 
+			"Invalid hedging min samples " + minSamples + ", it must be at least 1" 
+		);
+		this.minSamples = minSamples;
+		return this;
+	}
+
+	/**
+	 * Latencies are measured over windows of this duration, in ms, so that the hedging delay follows the service 
+	 * behaviour. Default is 1 min.
+	 */
+	public long getLatencyWindowTime ()
+	{
+		return latencyWindowTime;
+	}
+
+	public HedgingExecutor setLatencyWindowTime ( long latencyWindowTime )
+	{
+		this.latencyWindowTime = latencyWindowTime;
+		return this;
+	}
+
+	/**
+	 * Where the attempts are run, see the class comment for details.
+	 */
+	public Executor getAsyncExecutor ()
+	{
+		return asyncExecutor;
+	}
+
+	public HedgingExecutor setAsyncExecutor ( Executor asyncExecutor )
+	{
+		this.asyncExecutor = asyncExecutor;
+		return this;
+	}
+
+	/**
+	 * Used to start the backup attempts. Default is {@link ThreadUtils#getSharedScheduler()}.
+	 */
+	public ScheduledExecutorService getScheduler ()
+	{
+		return scheduler;
+	}
+
+	public HedgingExecutor setScheduler ( ScheduledExecutorService scheduler )
+	{
+		this.scheduler = scheduler;
+		return this;
+	}
+}
@@ -0,0 +1,19 @@
+package uk.ac.ebi.utils.runcontrol;
+
+/**
+ * A {@link TokenBucketState} kept in memory, which can be shared by limiters in the same JVM only.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class InMemoryTokenBucketState implements TokenBucketState
+{
+	private final Values values = new Values ();
+
+	@Override
+	public synchronized long update ( Operation operation )
+	{
+		return operation.apply ( values );
+	}
+}
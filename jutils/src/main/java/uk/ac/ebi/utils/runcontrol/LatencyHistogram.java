@@ -0,0 +1,134 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>A lock-free recorder of latency values (or any other non-negative long values), which can report
+ * percentiles from the recorded data.</p>
+ *
+ * <p>Values are counted in log-linear buckets: each power-of-2 range is split into {@link #SUB_BUCKETS} linear
+ * sub-buckets, so that percentiles have a relative error of about 3%, while the memory footprint is fixed and
+ * small. This is similar to what libraries like HdrHistogram do, but much simpler, since we only need to
+ * size things like timeouts.</p>
+ *
+ * <p>{@link #record(long)} only touches atomic counters and hence it is suitable for being invoked by many
+ * threads on every call of some service. Reading methods are based on a non-atomic scan of the buckets, so
+ * they're approximated when invoked while values are being recorded.</p>
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class LatencyHistogram
+{
+	private static final int SUB_BITS = 5;
+
+	/**
+	 * Each power-of-2 range is split into this number of linear buckets.
+	 */
+	public static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+	/**
+	 * Values above 2^this are counted in the last bucket. With ns values, this is about 1.3 days.
+	 */
+	private static final int MAX_EXPONENT = 46;
+
+	private static final int N_BUCKETS = ( MAX_EXPONENT - SUB_BITS + 2 ) * SUB_BUCKETS;
+
+	private final AtomicLongArray buckets = new AtomicLongArray ( N_BUCKETS );
+	private final LongAdder count = new LongAdder ();
+	private final LongAdder sum = new LongAdder ();
+	private final LongAccumulator max = new LongAccumulator ( Math::max, 0 );
+
+
+	/**
+	 * Negative values are recorded as 0.
+	 */
+	public void record ( long value )
+	{
+		if ( value < 0 ) value = 0;
+
+		buckets.incrementAndGet ( bucketIndex ( value ) );
+		count.increment ();
+		sum.add ( value );
+		max.accumulate ( value );
+	}
+
+	/**
+	 * The value at the given percentile (0-100). The result is approximated according to the bucket resolution
+	 * and it's never greater than {@link #getMax()}. Returns 0 if no value was recorded.
+	 */
+	public long getPercentile ( double percentile )
+	{
+		if ( percentile < 0 || percentile > 100 ) throw new IllegalArgumentException (
+			"Invalid percentile value " + percentile + ", it must be in [0, 100]"
+		);
+
+		long n = 0;
+		for ( int i = 0; i < N_BUCKETS; i++ ) n += buckets.get ( i );
+		if ( n == 0 ) return 0;
+
+		long rank = Math.max ( 1, (long) Math.ceil ( percentile / 100d * n ) );
+		long cumulated = 0;
+		for ( int i = 0; i < N_BUCKETS; i++ )
+		{
+			cumulated += buckets.get ( i );
+			if ( cumulated < rank ) continue;
+			// The top bucket is better represented by the exact max
+			if ( cumulated >= n ) return getMax ();
+			return Math.min ( bucketMidValue ( i ), getMax () );
+		}
+		return getMax ();
+	}
+
+	/**
+	 * The number of recorded values.
+	 */
+	public long getCount ()
+	{
+		return count.sum ();
+	}
+
+	/**
+	 * The max recorded value, 0 if nothing was recorded.
+	 */
+	public long getMax ()
+	{
+		return max.get ();
+	}
+
+	/**
+	 * The average of recorded values, 0 if nothing was recorded.
+	 */
+	public double getMean ()
+	{
+		long n = count.sum ();
+		return n == 0 ? 0d : 1d * sum.sum () / n;
+	}
+
+
+	private static int bucketIndex ( long value )
+	{
+		if ( value < SUB_BUCKETS ) return (int) value;
+
+		int exp = 63 - Long.numberOfLeadingZeros ( value );
+		if ( exp > MAX_EXPONENT ) return N_BUCKETS - 1;
+
+		int mantissa = (int) ( value >>> ( exp - SUB_BITS ) ) - SUB_BUCKETS;
+		return ( exp - SUB_BITS + 1 ) * SUB_BUCKETS + mantissa;
+	}
+
+	/**
+	 * The middle value in the range of values corresponding to a bucket.
+	 */
+	private static long bucketMidValue ( int index )
+	{
+		if ( index < SUB_BUCKETS ) return index;
+
+		int shift = index / SUB_BUCKETS - 1;
+		long lower = (long) ( SUB_BUCKETS + index % SUB_BUCKETS ) << shift;
+		return lower + ( ( 1L << shift ) >>> 1 );
+	}
+}
@@ -0,0 +1,53 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import uk.org.lidalia.slf4jext.Level;
+import uk.org.lidalia.slf4jext.Logger;
+import uk.org.lidalia.slf4jext.LoggerFactory;
+
+/**
+ * A {@link StatsSink} that reports the stats via a logger. This is the default for {@link StatsExecutor}.
+ * 
+ * Windows without any call are not reported, to avoid filling the logs of idle applications.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class LoggingStatsSink implements StatsSink
+{
+	private final Logger log;
+	private Level loggingLevel = Level.INFO;
+	
+	public LoggingStatsSink ( Logger log ) {
+		this.log = log;
+	}
+
+	public LoggingStatsSink ( Class<?> loggerClass ) {
+		this ( LoggerFactory.getLogger ( loggerClass ) );
+	}
+	
+	public LoggingStatsSink () {
+		this ( StatsExecutor.class );
+	}
+
+	@Override
+	public void record ( ExecutionStats stats )
+	{
+		if ( stats.getTotalCalls () == 0 ) return;
+		log.log ( loggingLevel, "---- {}", stats );
+	}
+
+	/**
+	 * Default is {@link Level#INFO}.
+	 */
+	public Level getLoggingLevel ()
+	{
+		return loggingLevel;
+	}
+
+	public LoggingStatsSink setLoggingLevel ( Level loggingLevel )
+	{
+		this.loggingLevel = loggingLevel;
+		return this;
+	}
+}
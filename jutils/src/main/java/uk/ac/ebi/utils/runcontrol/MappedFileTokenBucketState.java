@@ -0,0 +1,140 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import uk.ac.ebi.utils.exceptions.ExceptionUtils;
+
+/**
+ * <p>A {@link TokenBucketState} kept in a memory-mapped file, so that it can be shared by processes running 
+ * on the same host (eg, multiple loader JVMs calling the same service), without the need of an external 
+ * service.</p>
+ * 
+ * <p>Updates are made atomic by means of a {@link FileLock} on the file, which works across processes, and 
+ * an in-JVM monitor per file, since file locks can't be used to synchronise threads of the same JVM.</p>
+ * 
+ * <p>Clearly, this doesn't work with file systems that don't support memory mapping or locking properly
+ * (eg, several network file systems), nor with processes on different hosts.</p>
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class MappedFileTokenBucketState implements TokenBucketState, Closeable
+{
+	private static final int SIZE = Double.BYTES + Long.BYTES;
+	
+	/** 
+	 * Per-file monitors, see above. They count the instances using them, so that they can be removed when the last 
+	 * one is closed.
+	 */
+	private static class FileMonitor {
+		private int users = 0;
+	}
+	
+	private static final Map<Path, FileMonitor> FILE_MONITORS = new ConcurrentHashMap<> ();
+	
+	private final Path path;
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+	private final FileMonitor monitor;
+	private boolean isClosed = false;
+	
+	/**
+	 * The file is created if it doesn't exist, and, in such a case, the bucket starts from a full state. 
+	 */
+	public MappedFileTokenBucketState ( Path path )
+	{
+		this.path = path.toAbsolutePath ().normalize ();
+		this.monitor = FILE_MONITORS.compute ( this.path, ( p, m ) -> 
+		{
+			if ( m == null ) m = new FileMonitor ();
+			m.users++;
+			return m;
+		});
+		try 
+		{
+			this.channel = FileChannel.open ( 
+				this.path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE 
+			);
+			// A new file is zero-filled, which is the initial state
+			this.buffer = channel.map ( FileChannel.MapMode.READ_WRITE, 0, SIZE );
+		}
+		catch ( IOException ex ) 
+		{
+			releaseMonitor ();
+			throw ExceptionUtils.buildEx ( UncheckedIOException.class, ex, 
+				"Error while opening the token bucket file \"%s\": %s", path, ex.getMessage () 
+			);
+		}
+	}
+
+	@Override
+	public long update ( Operation operation )
+	{
+		synchronized ( monitor )
+		{
+			try
+			{
+				FileLock lock = channel.lock ();
+				try 
+				{
+					Values values = new Values ();
+					values.tokens = buffer.getDouble ( 0 );
+					values.lastRefillTime = buffer.getLong ( Double.BYTES );
+					
+					long result = operation.apply ( values );
+					
+					buffer.putDouble ( 0, values.tokens );
+					buffer.putLong ( Double.BYTES, values.lastRefillTime );
+					return result;
+				}
+				finally {
+					lock.release ();
+				}
+			}
+			catch ( IOException ex ) {
+				throw ExceptionUtils.buildEx ( UncheckedIOException.class, ex, 
+					"Error while updating the token bucket file \"%s\": %s", path, ex.getMessage () 
+				);
+			}
+		}
+	}
+
+	/**
+	 * Closes the underlining file. The file isn't deleted, so that other processes can keep using it.
+	 */
+	@Override
+	public void close () throws IOException
+	{
+		synchronized ( monitor )
+		{
+			if ( isClosed ) return;
+			isClosed = true;
+		}
+		try {
+			channel.close ();
+		}
+		finally {
+			releaseMonitor ();
+		}
+	}
+	
+	private void releaseMonitor ()
+	{
+		FILE_MONITORS.computeIfPresent ( path, ( p, m ) -> --m.users == 0 ? null : m );
+	}
+	
+	public Path getPath ()
+	{
+		return path;
+	}
+}
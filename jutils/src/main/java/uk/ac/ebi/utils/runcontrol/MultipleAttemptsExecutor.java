@@ -1,20 +1,32 @@
 package uk.ac.ebi.utils.runcontrol;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.RandomUtils;
 
 import com.machinezoo.noexception.throwing.ThrowingRunnable;
+import com.machinezoo.noexception.throwing.ThrowingSupplier;
 
 import uk.ac.ebi.utils.exceptions.UncheckedInterruptedException;
+import uk.ac.ebi.utils.threading.ThreadUtils;
 import uk.org.lidalia.slf4jext.Level;
 import uk.org.lidalia.slf4jext.Logger;
 import uk.org.lidalia.slf4jext.LoggerFactory;
 
 
 /**
- * An executor to attempt an operation multiple times, knowing it can fail from time to time (e.g. getting data from
- * a REST API).
+ * <p>An executor to attempt an operation multiple times, knowing it can fail from time to time (e.g. getting data from
+ * a REST API).</p>
+ * 
+ * <p>Other than the blocking {@link #execute(Runnable)} and {@link #executeChecked(ThrowingRunnable)}, which pause
+ * the current thread between attempts, there are the asynchronous {@link #supplyAsync(ThrowingSupplier)} and
+ * {@link #runAsync(ThrowingRunnable)}, which run the attempts on {@link #getAsyncExecutor()} and schedule the 
+ * re-attempts on {@link #getScheduler()}, so that no thread is kept idle during the pauses. This is what you want 
+ * when many remote calls are run in parallel.</p> 
  *
  * @author brandizi
  * <dl><dt>Date:</dt><dd>9 Oct 2015</dd></dl>
@@ -28,6 +40,12 @@ public class MultipleAttemptsExecutor implements Executor
 	
 	private Class<Exception>[] interceptedExceptions;
 	
+	private boolean isExponentialBackoff = false;
+	private long backoffBaseTime = 100;
+	
+	private Executor asyncExecutor = ThreadUtils.getSharedWorkerExecutor ();
+	private ScheduledExecutorService scheduler = ThreadUtils.getSharedScheduler ();
+	
 	private Level attemptMsgLogLevel = Level.INFO;
 	private Logger log = LoggerFactory.getLogger ( this.getClass () );
 	
@@ -74,7 +92,8 @@ public class MultipleAttemptsExecutor implements Executor
 	 * Tries to run the action and, if it fails with one of {@link #getInterceptedExceptions()}, re-run it up to 
 	 * {@link #getMaxAttempts()}. A pause with a random time between {@link #getMinPauseTime()} and {@link #getMaxPauseTime()}
 	 * is inserted between attempts, so that, in case of race conditions between parallel threads, they don't 
-	 * re-attempt the same conflicting operation at the same time.
+	 * re-attempt the same conflicting operation at the same time. If {@link #isExponentialBackoff()} is set, the 
+	 * pause is computed by {@link #getBackoffPauseTime(int)} instead.
 	 * 
 	 * This version is based on the possibility that a checked exception occurs, use {@link #execute(Runnable)}
 	 * when you have only unchecked exceptions. 
@@ -94,27 +113,18 @@ public class MultipleAttemptsExecutor implements Executor
 				}
 				catch ( RuntimeException ex ) 
 				{
-					boolean mustReattempt = false;
 					lastInterceptedEx = ex;
 					
-					for ( Class<Exception> exi: interceptedExceptions )
-					{
-						if ( exi.isAssignableFrom ( ex.getClass () ) ) 
-						{
-							log.log ( attemptMsgLogLevel,
-								"Operation failure due to: {}, re-attempting for {} more time(s)", ex.getMessage (), attempts - 1
-							);
-					
-							mustReattempt = true;
-							break;
-						}
-					}
-					if ( !mustReattempt )
+					if ( !isIntercepted ( ex ) )
 						throw ex;
 
+					log.log ( attemptMsgLogLevel,
+						"Operation failure due to: {}, re-attempting for {} more time(s)", ex.getMessage (), attempts - 1
+					);
+
 					// Let's pause
-					if ( this.maxPauseTime - this.minPauseTime > 0 )
-						Thread.sleep ( RandomUtils.nextLong ( this.minPauseTime, this.maxPauseTime + 1 ) );
+					long pause = this.getPauseTime ( this.maxAttempts - attempts + 1 );
+					if ( pause > 0 ) Thread.sleep ( pause );
 					
 				} // catch attempt
 			} // attempts
@@ -130,6 +140,132 @@ public class MultipleAttemptsExecutor implements Executor
 		}
 	} // execute ( action )
 
+	
+	/**
+	 * <p>The asynchronous version of {@link #executeChecked(ThrowingRunnable)}.</p>
+	 * 
+	 * <p>The action is run on {@link #getAsyncExecutor()} and, if it fails with one of 
+	 * {@link #getInterceptedExceptions()}, it's re-attempted up to {@link #getMaxAttempts()}. Each re-attempt is
+	 * scheduled on {@link #getScheduler()} after a pause computed by {@link #getBackoffPauseTime(int)}, 
+	 * so that no thread is blocked while waiting.</p>
+	 * 
+	 * <p>The returned future completes with the action result or, if the action fails with a non-intercepted 
+	 * exception or fails too many times, with the last exception it threw. If you cancel the future, no further 
+	 * attempt is made.</p>
+	 * 
+	 * <p>Unlike the blocking version, which only considers {@link RuntimeException}s, here checked exceptions 
+	 * can be re-attempted too, if they're listed in {@link #getInterceptedExceptions()}.</p>
+	 */
+	public <T> CompletableFuture<T> supplyAsync ( ThrowingSupplier<T> action )
+	{
+		CompletableFuture<T> result = new CompletableFuture<> ();
+		this.submitAttempt ( action, result, 1 );
+		return result;
+	}
+
+	/**
+	 * A wrapper of {@link #supplyAsync(ThrowingSupplier)} for actions that don't return anything.
+	 */
+	public CompletableFuture<Void> runAsync ( ThrowingRunnable action )
+	{
+		return this.supplyAsync ( () -> { action.run (); return null; } );
+	}
+	
+	private <T> void submitAttempt ( ThrowingSupplier<T> action, CompletableFuture<T> result, int attempt )
+	{
+		try {
+			this.asyncExecutor.execute ( () -> this.runAttempt ( action, result, attempt ) );
+		}
+		catch ( RejectedExecutionException ex ) {
+			result.completeExceptionally ( ex );
+		}
+	}
+
+	private <T> void runAttempt ( ThrowingSupplier<T> action, CompletableFuture<T> result, int attempt )
+	{
+		// Typically, it was cancelled
+		if ( result.isDone () ) return;
+		
+		try {
+			result.complete ( action.get () );
+		}
+		catch ( Exception ex ) 
+		{
+			if ( !isIntercepted ( ex ) ) {
+				result.completeExceptionally ( ex );
+				return;
+			}
+			
+			int remainingAttempts = this.maxAttempts - attempt;
+			if ( remainingAttempts <= 0 ) 
+			{
+				log.error ( "Operation failed after {} attempts, rethrowing exception", this.maxAttempts );
+				result.completeExceptionally ( ex );
+				return;
+			}
+			
+			log.log ( attemptMsgLogLevel,
+				"Operation failure due to: {}, re-attempting for {} more time(s)", ex.getMessage (), remainingAttempts
+			);
+			
+			long pause = this.getBackoffPauseTime ( attempt );
+			if ( pause <= 0 ) {
+				this.submitAttempt ( action, result, attempt + 1 );
+				return;
+			}
+			
+			try {
+				this.scheduler.schedule ( 
+					() -> this.submitAttempt ( action, result, attempt + 1 ), pause, TimeUnit.MILLISECONDS 
+				);
+			}
+			catch ( RejectedExecutionException rex ) {
+				result.completeExceptionally ( rex );
+			}
+		}
+		catch ( Error err ) {
+			result.completeExceptionally ( err );
+			throw err;
+		}
+	}
+	
+	/**
+	 * Tells if an exception is one of {@link #getInterceptedExceptions()} or a subclass of them.
+	 */
+	boolean isIntercepted ( Exception ex )
+	{
+		for ( Class<Exception> exi: interceptedExceptions )
+			if ( exi.isAssignableFrom ( ex.getClass () ) ) return true;
+		return false;
+	}
+	
+	/**
+	 * The pause used by the blocking {@link #executeChecked(ThrowingRunnable)} after the failed attempt number 
+	 * attempt (starting from 1), which depends on {@link #isExponentialBackoff()}.
+	 */
+	long getPauseTime ( int attempt )
+	{
+		if ( this.isExponentialBackoff ) return this.getBackoffPauseTime ( attempt );
+		if ( this.maxPauseTime - this.minPauseTime <= 0 ) return 0;
+		return RandomUtils.nextLong ( this.minPauseTime, this.maxPauseTime + 1 );
+	}
+	
+	/**
+	 * <p>The pause before the re-attempt that follows the failed attempt number attempt (starting from 1). This
+	 * implements an exponential backoff with full jitter, ie, a random time between {@link #getMinPauseTime()} and
+	 * min ( {@link #getMaxPauseTime()}, {@link #getBackoffBaseTime()} * 2^(attempt-1) ).</p>
+	 * 
+	 * <p>The randomisation prevents many parallel clients from re-trying at the same time, while the exponential 
+	 * growth gives some time to an overloaded service to recover.</p>
+	 */
+	protected long getBackoffPauseTime ( int attempt )
+	{
+		int exp = Math.min ( Math.max ( attempt - 1, 0 ), 30 );
+		long ceiling = Math.min ( this.maxPauseTime, this.backoffBaseTime << exp );
+		if ( ceiling <= this.minPauseTime ) return this.minPauseTime;
+		return RandomUtils.nextLong ( this.minPauseTime, ceiling + 1 );
+	}
+
 	/**
 	 * If the operation run by {@link #execute(Runnable)} fails even after this number of times, the exception it 
 	 * raises is re-thrown to the caller. Default is 3.
@@ -196,6 +332,64 @@ public class MultipleAttemptsExecutor implements Executor
 		this.interceptedExceptions = (Class<Exception>[]) interceptedExceptions;
 	}
 
+	/**
+	 * If true, {@link #executeChecked(ThrowingRunnable)} pauses according to {@link #getBackoffPauseTime(int)}, 
+	 * rather than a uniform random time. This is false by default, for compatibility reasons. The asynchronous methods
+	 * always use the exponential backoff.
+	 */
+	public boolean isExponentialBackoff ()
+	{
+		return isExponentialBackoff;
+	}
+
+	public void setExponentialBackoff ( boolean isExponentialBackoff )
+	{
+		this.isExponentialBackoff = isExponentialBackoff;
+	}
+
+	/**
+	 * The base time for {@link #getBackoffPauseTime(int)}, in ms. Default is 100.
+	 */
+	public long getBackoffBaseTime ()
+	{
+		return backoffBaseTime;
+	}
+
+	public void setBackoffBaseTime ( long backoffBaseTimeMs )
+	{
+		this.backoffBaseTime = backoffBaseTimeMs;
+	}
+
+	/**
+	 * The executor used by {@link #supplyAsync(ThrowingSupplier)} to run the attempts. Default is 
+	 * {@link ThreadUtils#getSharedWorkerExecutor()}, which is suitable for blocking actions (eg, remote calls), 
+	 * since it uses virtual threads, where available.
+	 */
+	public Executor getAsyncExecutor ()
+	{
+		return asyncExecutor;
+	}
+
+	public void setAsyncExecutor ( Executor asyncExecutor )
+	{
+		this.asyncExecutor = asyncExecutor;
+	}
+
+	/**
+	 * The scheduler used by {@link #supplyAsync(ThrowingSupplier)} to wait for the re-attempts. Its tasks
+	 * only submit the next attempt to {@link #getAsyncExecutor()}, so the default 
+	 * {@link ThreadUtils#getSharedScheduler() shared scheduler} is usually fine.
+	 */
+	public ScheduledExecutorService getScheduler ()
+	{
+		return scheduler;
+	}
+
+	public void setScheduler ( ScheduledExecutorService scheduler )
+	{
+		this.scheduler = scheduler;
+	}
+
 	/**
 	 * Failed attempts are logged with this logging level. Default is INFO.
 	 */
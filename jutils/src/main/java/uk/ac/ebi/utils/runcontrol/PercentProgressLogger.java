@@ -1,5 +1,10 @@
 package uk.ac.ebi.utils.runcontrol;
 
+import java.time.Duration;
+import java.time.Instant;
+
+import org.apache.commons.lang3.time.DurationFormatUtils;
+
 /**
  * <p>It's like {@link ProgressLogger} but reports percentages, given a max value that you set initially.</p> 
  * 
@@ -11,6 +16,9 @@ package uk.ac.ebi.utils.runcontrol;
  * 
  * <p>{@link #getProgress()} reports the absolute progress too, while {@link #getPercentProgress()} is provided as 
  * a shortcut to the percent progress.</p>
+ * 
+ * <p>When {@link #isRateReportingEnabled() rate reporting} is enabled, the log messages also report the 
+ * {@link #getEstimatedTimeToCompletion() estimated time to completion}.</p>
  *
  * @author brandizi
  * <dl><dt>Date:</dt><dd>22 May 2019</dd></dl>
@@ -18,12 +26,13 @@ package uk.ac.ebi.utils.runcontrol;
  */
 public class PercentProgressLogger extends ProgressLogger
 {
-	private long maxProgress;
+	private volatile long maxProgress;
 	
 	public PercentProgressLogger ( String logMessageTemplate, long maxProgress, long progressResolutionPercent )
 	{
 		super ( logMessageTemplate, progressResolutionPercent );
 		this.maxProgress = maxProgress;
+		this.resetCheckPoint ();
 	}
 
 	public PercentProgressLogger ( String logMessageTemplate, long maxProgress )
@@ -36,6 +45,24 @@ public class PercentProgressLogger extends ProgressLogger
 		this ( "{}% done", maxProgress );
 	}
 
+	/**
+	 * The checkpoints are the absolute progress values that correspond to the next multiple of the 
+	 * {@link #getProgressResolution() percent resolution}.
+	 */
+	@Override
+	protected long getNextCheckPoint ( long progress )
+	{
+		// We might be invoked by the parent constructor, when we aren't initialised yet
+		if ( this.maxProgress <= 0 ) return Long.MAX_VALUE;
+		
+		double step = this.maxProgress * this.getProgressResolution () / 100d;
+		long nextPt = (long) Math.ceil ( ( Math.floor ( progress / step ) + 1 ) * step );
+		return nextPt > progress ? nextPt : progress + 1;
+	}
+
+	/**
+	 * Converts the absolute progress values into percentages and passes them to the parent's version.
+	 */
 	@Override
 	protected void progressReport ( long oldProgress, long newProgress )
 	{
@@ -44,10 +71,46 @@ public class PercentProgressLogger extends ProgressLogger
 		super.progressReport ( oldPercent, newPercent );
 	}
 
+	/**
+	 * Adds the {@link #getEstimatedTimeToCompletion() ETA} to the parent's report. 
+	 */
+	@Override
+	protected String getRateReport ()
+	{
+		String result = super.getRateReport ();
+		Duration eta = this.getEstimatedTimeToCompletion ();
+		if ( eta == null ) return result;
+		return result + ", ETA: " + DurationFormatUtils.formatDuration ( eta.toMillis (), "HH:mm:ss" );
+	}
+
+	/**
+	 * The time needed to reach {@link #getMaxProgress()}, estimated from the {@link #getWindowRate() recent 
+	 * progress rate}. Returns null if we don't have enough data to estimate the rate yet.
+	 */
+	public Duration getEstimatedTimeToCompletion ()
+	{
+		double rate = this.getWindowRate ();
+		if ( rate <= 0 ) return null;
+		
+		long remaining = Math.max ( 0, this.maxProgress - this.getProgress () );
+		return Duration.ofMillis ( Math.round ( remaining * 1000d / rate ) );
+	}
+
+	/**
+	 * The wall clock time at which we expect to complete, based on {@link #getEstimatedTimeToCompletion()}. 
+	 * Returns null if we don't have enough data yet.
+	 */
+	public Instant getEstimatedCompletionTime ()
+	{
+		Duration eta = this.getEstimatedTimeToCompletion ();
+		return eta == null ? null : Instant.now ().plus ( eta );
+	}
+	
 	/**
 	 * Every progress is reported in integer percentage points calculated with respect to this max 
 	 * value. Methods like {@link #update(long)} should keep updating with the absolute progress and
-	 * then {@link #progressReport(long, long)} will convert everything as needed.
+	 * then {@link #getNextCheckPoint(long)} and {@link #progressReport(long, long)} will convert everything 
+	 * as needed.
 	 */
 	public long getMaxProgress ()
 	{
@@ -57,6 +120,7 @@ public class PercentProgressLogger extends ProgressLogger
 	public void setMaxProgress ( long maxProgress )
 	{
 		this.maxProgress = maxProgress;
+		this.resetCheckPoint ();
 	}
 
 	/**
@@ -1,17 +1,42 @@
 package uk.ac.ebi.utils.runcontrol;
 
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiConsumer;
 
+import uk.ac.ebi.utils.threading.ThreadUtils;
 import uk.org.lidalia.slf4jext.Level;
 import uk.org.lidalia.slf4jext.Logger;
 import uk.org.lidalia.slf4jext.LoggerFactory;
 
 /**
- * Reports (using a logger) the progress of some process, represented by a long number.
- * The progress-update operations in this class are thread-safe.
+ * <p>Reports (using a logger) the progress of some process, represented by a long number.</p>
+ * 
+ * <p>The progress-update operations in this class are thread-safe and they're designed to be called very 
+ * often by multiple threads (e.g., once per processed item in parallel batch jobs). To this end, the progress
+ * is kept by means of a {@link LongAdder}, while the decision about whether a new report is due is taken by 
+ * comparing the new progress to the next checkpoint. The latter is moved forward by means of a compare-and-set 
+ * operation, so that exactly one updating thread gets to invoke the report for a given checkpoint, without any 
+ * locking.</p>
+ * 
+ * <p>Reading the total of a {@link LongAdder} is much more expensive than incrementing it, so 
+ * {@link #updateWithIncrement(long)} doesn't do it at every call. Each thread tracks the progress it has seen plus 
+ * its own increments, which is a lower bound of the total, and reads the total only when such lower bound reaches 
+ * the next checkpoint, or every {@link #PROGRESS_CHECK_INTERVAL} calls. Hence, when a single thread updates the 
+ * progress, the checkpoints are reported exactly, while, with multiple threads, a report can be issued a few 
+ * increments later than the checkpoint, and the last checkpoint can be missed.</p>
+ * 
+ * <p>Optionally, the reports can include {@link #isRateReportingEnabled() throughput figures}, which are
+ * computed by means of a {@link RateEstimator} and can also be read programmatically (eg, to adapt the 
+ * rate of a {@link DynamicRateExecutor} to the current processing speed).</p>
+ * 
+ * <p>Reports can also be driven by time, independently of the progress resolution: 
+ * {@link #getMinReportInterval()} prevents too frequent reports when the progress is fast, while 
+ * {@link #getMaxReportInterval()} ensures a report is issued periodically, even when the progress is slow or 
+ * stuck. The latter is implemented by means of a task on the {@link ThreadUtils#getSharedScheduler() shared scheduler}, 
+ * not a thread per logger.</p>
  *
  * @author brandizi
  * <dl><dt>Date:</dt><dd>22 May 2019</dd></dl>
@@ -21,31 +46,79 @@ public class ProgressLogger
 {
 	private Logger log = LoggerFactory.getLogger ( this.getClass () );
 	
-	private long progress = 0;
-	private long progressResolution = 1000;
+	/**
+	 * Max no. of {@link #updateWithIncrement(long)} calls by one thread without checking the total progress, see 
+	 * the class comment.
+	 */
+	public static final int PROGRESS_CHECK_INTERVAL = 64;
+	
+	private final LongAdder progress = new LongAdder ();
+	private volatile long progressResolution = 1000;
+	
+	/**
+	 * The per-thread state used by {@link #updateWithIncrement(long)}, see the class comment.
+	 */
+	private static class LocalProgress 
+	{
+		private long progressLowerBound = 0;
+		private int uncheckedUpdates = 0;
+	}
+	private final ThreadLocal<LocalProgress> localProgress = ThreadLocal.withInitial ( LocalProgress::new );
+	
+	/**
+	 * When the progress reaches this value, a new report is due, see {@link #getNextCheckPoint(long)}.
+	 */
+	private final AtomicLong nextCheckPoint = new AtomicLong ( Long.MAX_VALUE );
 	
 	private String logMessageTemplate = "{} items processed";
 	private Level loggingLevel = Level.INFO;
 		
-	private BiConsumer<Long, Long> progressReportAction =
-		(oldProgress, newProgress) -> log.log ( loggingLevel, logMessageTemplate, newProgress );
-
+	private volatile long minReportInterval = 0;
+	private volatile long maxReportInterval = 0;
+	
+	/**
+	 * Used to ensure that only one report is issued at once when time-based reporting is enabled, 
+	 * see {@link #acquireReport(boolean)}.
+	 */
+	private final AtomicLong lastReportTime = new AtomicLong ( System.nanoTime () );
+	private volatile long lastReportedProgress = 0;
+	
+	/**
+	 * Used to stop the previous {@link #scheduleTimedReport(WeakReference, int, long) timed report} task 
+	 * when the max interval changes.
+	 */
+	private volatile int timedReportGeneration = 0;
 	
-	private ReadWriteLock lock = new ReentrantReadWriteLock ();
+	private final RateEstimator rateEstimator = new RateEstimator ();
+	private volatile boolean isRateReportingEnabled = false;
 		
+	private volatile BiConsumer<Long, Long> progressReportAction = (oldProgress, newProgress) -> 
+	{
+		if ( !this.isRateReportingEnabled ) {
+			log.log ( loggingLevel, logMessageTemplate, newProgress );
+			return;
+		}
+		if ( !log.isEnabled ( loggingLevel ) ) return;
+		log.log ( loggingLevel, logMessageTemplate + " (" + this.getRateReport () + ")", newProgress );
+	};
+
+	
 	public ProgressLogger ( String logMessageTemplate, long progressResolution )
 	{
 		this.logMessageTemplate = logMessageTemplate;
 		this.progressResolution = progressResolution;
+		this.resetCheckPoint ();
+		this.rateEstimator.sample ( 0 );
 	}
 
 	public ProgressLogger ( long progressResolution ) {
-		this.progressResolution = progressResolution;
+		this ( "{} items processed", progressResolution );
 	}
 
 
 	public ProgressLogger ()
 	{
+		this ( 1000 );
 	}
 
 	
@@ -56,41 +129,57 @@ public class ProgressLogger
 	/**
 	 * Updates the current progress and possibly generates a new log message, according to {@link #getProgressResolution()}.
 	 * The new progress should be greater than the existing one, except for the value 0, which resets the logger for a new
-	 * run of items. 
+	 * run of items.
+	 * 
+	 * Note that setting absolute values is thread-safe, but it isn't atomic with respect to 
+	 * {@link #updateWithIncrement(long) increments} issued by other threads at the same time. Typically, you 
+	 * should use this method when a single thread drives the progress, and increments when multiple threads
+	 * contribute to the progress.
 	 * 
 	 */
 	public void update ( long newProgress )
 	{
-		long oldProgress;
-		
-		Lock wlock = lock.writeLock ();
-		wlock.lock ();
-		try
+		if ( newProgress == 0 ) 
 		{
-			oldProgress = this.progress;
-			this.progress = newProgress;
+			this.progress.reset ();
+			this.lastReportedProgress = 0;
+			this.resetCheckPoint ();
+			this.resetRateEstimator ();
+			return;
 		}
-		finally { 
-			wlock.unlock ();
+		
+		long oldProgress = this.progress.sum ();
+		this.progress.add ( newProgress - oldProgress );
+		this.localProgress.get ().progressLowerBound = newProgress;
+		
+		// We're going backward, the current checkpoint might be too far 
+		if ( newProgress < oldProgress ) {
+			this.resetCheckPoint ();
+			this.resetRateEstimator ();
 		}
-		if ( newProgress == 0 ) return;
 		
-		this.progressReport ( oldProgress, newProgress );
+		this.checkProgress ( oldProgress, newProgress );
 	}
 
 	/**
-	 * Wrapper of {@link #update(long)}
+	 * Adds the increment to the current progress. This is the version to be preferred when multiple threads
+	 * update the same logger, since it doesn't require any locking. 
 	 */
 	public void updateWithIncrement ( long increment )
 	{
-		Lock wlock = lock.writeLock ();
-		wlock.lock ();
-		try {
-			this.update ( this.progress + increment );
-		}
-		finally { 
-			wlock.unlock (); 
-		}
+		this.progress.add ( increment );
+		
+		// The total can't be lower than this, so it can't have reached the checkpoint if this didn't, unless other 
+		// threads contributed, which is checked periodically. 
+		LocalProgress local = this.localProgress.get ();
+		long progressLowerBound = local.progressLowerBound += increment;
+		if ( progressLowerBound < this.nextCheckPoint.get () && ++local.uncheckedUpdates < PROGRESS_CHECK_INTERVAL ) 
+			return;
+		
+		long newProgress = this.progress.sum ();
+		local.progressLowerBound = newProgress;
+		local.uncheckedUpdates = 0;
+		this.checkProgress ( newProgress - increment, newProgress );
 	}
 
 	/**
@@ -100,24 +189,154 @@ public class ProgressLogger
 	{
 		this.updateWithIncrement ( 1 );
 	}
-		
+	
 	/**
-	 * Invoked by {@link #update(long)}, decides if we have to log the new progress and possibly does it.
-	 * If yes, it invokes {@link #getProgressReportAction()}.
+	 * Decides if a new report is due. This happens if the new progress reached the {@link #nextCheckPoint next 
+	 * checkpoint} and the current thread is the one that succeeds in moving it forward. This is what ensures that only
+	 * one thread reports a given checkpoint, even when many threads cross it at the same time.
 	 */
-	protected void progressReport ( long oldProgress, long newProgress )
+	private void checkProgress ( long oldProgress, long newProgress )
 	{
-		Lock rlock = lock.readLock ();
-		rlock.lock ();
-		try {
-			long oldCheckPt = oldProgress / progressResolution;
-			long newCheckPt = newProgress / progressResolution;
-			if ( newCheckPt - oldCheckPt == 0 ) return;
+		// If we fail, another thread moved the checkpoint, but it might have done it with a progress older 
+		// than ours, so we need to re-check.
+		for ( long checkPt = this.nextCheckPoint.get (); newProgress >= checkPt; checkPt = this.nextCheckPoint.get () )
+		{
+			if ( !this.nextCheckPoint.compareAndSet ( checkPt, this.getNextCheckPoint ( newProgress ) ) ) continue;
+			if ( !this.acquireReport ( false ) ) return;
+			
+			this.lastReportedProgress = newProgress;
+			this.rateEstimator.sample ( newProgress );
+			this.progressReport ( oldProgress, newProgress );
+			return;
 		}
-		finally {
-			rlock.unlock ();
+	}
+	
+	/**
+	 * Decides if a report can be issued now, based on the {@link #getMinReportInterval() min} or 
+	 * {@link #getMaxReportInterval() max} report interval, and, if yes, marks the current time as the last
+	 * report time.
+	 * 
+	 * @param isTimedReport true when we're invoked by the {@link #getMaxReportInterval() timed reports}, false
+	 * when we're invoked by a checkpoint crossing.  
+	 */
+	private boolean acquireReport ( boolean isTimedReport )
+	{
+		long now = System.nanoTime ();
+		long minInterval = isTimedReport ? this.maxReportInterval : this.minReportInterval;
+		
+		if ( minInterval <= 0 ) 
+		{
+			// The interval was disabled in the meantime, no time-based report is due
+			if ( isTimedReport ) return false;
+			this.lastReportTime.set ( now );
+			return true;
 		}
-		progressReportAction.accept ( oldProgress, newProgress );
+		
+		long lastTime = this.lastReportTime.get ();
+		if ( now - lastTime < TimeUnit.MILLISECONDS.toNanos ( minInterval ) ) return false;
+		
+		// If this fails, another thread has just reported 
+		return this.lastReportTime.compareAndSet ( lastTime, now );
+	}
+	
+	/**
+	 * Issues a report triggered by the {@link #getMaxReportInterval() max report interval}, if it's still due.
+	 */
+	private void timedReport ()
+	{
+		if ( !this.acquireReport ( true ) ) return;
+		
+		long oldProgress = this.lastReportedProgress;
+		long newProgress = this.getProgress ();
+		this.lastReportedProgress = newProgress;
+		this.rateEstimator.sample ( newProgress );
+		this.progressReport ( oldProgress, newProgress );
+	}
+	
+	/**
+	 * <p>Schedules the next check for a {@link #timedReport() timed report}. When run, the task issues a 
+	 * report if {@link #getMaxReportInterval()} has elapsed since the last one, and then it re-schedules itself
+	 * for when the next report would be due.</p>
+	 * 
+	 * <p>This is static and refers the logger via a weak reference, so that the task doesn't prevent an 
+	 * abandoned logger from being garbage-collected. The task stops itself when the logger is gone or when
+	 * its generation is no longer the current one, ie, the max interval was changed.</p>  
+	 */
+	private static void scheduleTimedReport ( WeakReference<ProgressLogger> loggerRef, int generation, long delay )
+	{
+		ThreadUtils.getSharedScheduler ().schedule ( () -> 
+		{
+			ProgressLogger logger = loggerRef.get ();
+			if ( logger == null || logger.timedReportGeneration != generation ) return;
+			
+			try {
+				logger.timedReport ();
+			}
+			catch ( RuntimeException ex ) {
+				logger.log.error ( "Error while issuing a timed progress report: " + ex.getMessage (), ex );
+			}
+			finally 
+			{
+				long maxInterval = logger.maxReportInterval;
+				if ( maxInterval > 0 )
+				{
+					long elapsed = TimeUnit.NANOSECONDS.toMillis ( System.nanoTime () - logger.lastReportTime.get () );
+					scheduleTimedReport ( loggerRef, generation, Math.max ( 1, maxInterval - elapsed ) );
+				}
+			}
+		}, delay, TimeUnit.MILLISECONDS );
+	}
+	
+	/**
+	 * Recomputes the next checkpoint based on the current progress. This is needed when the parameters 
+	 * that {@link #getNextCheckPoint(long)} depends on change.  
+	 */
+	protected void resetCheckPoint ()
+	{
+		this.nextCheckPoint.set ( this.getNextCheckPoint ( this.getProgress () ) );
+	}
+	
+	private void resetRateEstimator ()
+	{
+		this.rateEstimator.reset ();
+		this.rateEstimator.sample ( this.getProgress () );
+	}
+	
+	/**
+	 * The first progress value after the parameter that requires a new report. This is used to decide when 
+	 * {@link #progressReport(long, long)} has to be invoked and, by default, it is the next multiple of 
+	 * {@link #getProgressResolution()}. 
+	 */
+	protected long getNextCheckPoint ( long progress )
+	{
+		return ( progress / this.progressResolution + 1 ) * this.progressResolution;
+	}
+	
+	/**
+	 * Invoked by {@link #update(long)} and similar methods, when the progress reaches a 
+	 * {@link #getNextCheckPoint(long) new checkpoint}, or by the {@link #getMaxReportInterval() timed reports}, 
+	 * it invokes {@link #getProgressReportAction()}.
+	 * 
+	 * This is invoked by one thread only per checkpoint, however, reports for subsequent checkpoints can be 
+	 * run in parallel (so, your custom actions should be thread-safe). 
+	 */
+	protected void progressReport ( long oldProgress, long newProgress )
+	{
+		BiConsumer<Long, Long> action = this.progressReportAction;
+		if ( action == null ) return;
+		action.accept ( oldProgress, newProgress );
+	}
+	
+	/**
+	 * The throughput figures that are appended to the log messages when {@link #isRateReportingEnabled()} is set.
+	 * By default, this reports {@link #getLastRate()} and {@link #getWindowRate()}.
+	 */
+	protected String getRateReport ()
+	{
+		return String.format ( 
+			"rate: %.1f/s, last %ds average: %.1f/s", 
+			this.getLastRate (), this.getRateWindowTime () / 1000, this.getWindowRate () 
+		);
 	}
 	
 	/**
@@ -132,8 +351,45 @@ public class ProgressLogger
 	public void setProgressResolution ( long progressResolution )
 	{
 		this.progressResolution = progressResolution;
+		this.resetCheckPoint ();
 	}
 
+	/**
+	 * If &gt; 0, reports are issued at most every this number of ms, ie, if a checkpoint is reached too early
+	 * after the last report, a new report is skipped. Default is 0, ie, every checkpoint is reported.
+	 */
+	public long getMinReportInterval ()
+	{
+		return minReportInterval;
+	}
+
+	public void setMinReportInterval ( long minReportInterval )
+	{
+		this.minReportInterval = minReportInterval;
+	}
+
+	/**
+	 * <p>If &gt; 0, a report is issued at least every this number of ms, no matter if the progress has reached a new 
+	 * checkpoint or not. Default is 0, ie, reports only depend on the progress checkpoints.</p>
+	 * 
+	 * <p>If you want reports based on time only, set this and set a very high {@link #getProgressResolution()}
+	 * (eg, {@link Long#MAX_VALUE}).</p>
+	 * 
+	 * <p>Note that these reports are run by the {@link ThreadUtils#getSharedScheduler() shared scheduler}, 
+	 * so your {@link #getProgressReportAction() custom report actions} should be quick.</p>
+	 */
+	public long getMaxReportInterval ()
+	{
+		return maxReportInterval;
+	}
+
+	public synchronized void setMaxReportInterval ( long maxReportInterval )
+	{
+		this.maxReportInterval = maxReportInterval;
+		int generation = ++this.timedReportGeneration;
+		if ( maxReportInterval > 0 ) scheduleTimedReport ( new WeakReference<> ( this ), generation, maxReportInterval );
+	}
+	
 	/**
 	 * Default "{} items processed". This is passed to the underlining logger 
 	 */
@@ -165,7 +421,60 @@ public class ProgressLogger
 	 */
 	public long getProgress ()
 	{
-		return progress;
+		return progress.sum ();
+	}
+
+	/**
+	 * The progress rate (in units/sec) between the last two reports. This and the other rates are updated 
+	 * every time a report is issued, independently of the {@link #getProgressReportAction() report action}.
+	 */
+	public double getLastRate ()
+	{
+		return this.rateEstimator.getLastRate ();
+	}
+
+	/**
+	 * The average progress rate (in units/sec) over the last {@link #getRateWindowTime()}.
+	 */
+	public double getWindowRate ()
+	{
+		return this.rateEstimator.getWindowRate ();
+	}
+
+	/**
+	 * The average progress rate (in units/sec) since the beginning (ie, the logger creation or the last 
+	 * {@link #reset()}).
+	 */
+	public double getOverallRate ()
+	{
+		return this.rateEstimator.getOverallRate ();
+	}
+	
+	/**
+	 * The time window used for {@link #getWindowRate()}, in ms. Default is 1 min.
+	 */
+	public long getRateWindowTime ()
+	{
+		return this.rateEstimator.getWindowTime ();
+	}
+
+	public void setRateWindowTime ( long rateWindowTime )
+	{
+		this.rateEstimator.setWindowTime ( rateWindowTime );
+	}
+
+	/**
+	 * If true, the default {@link #getProgressReportAction() report action} adds {@link #getRateReport() throughput 
+	 * figures} to the log messages. Default is false.
+	 */
+	public boolean isRateReportingEnabled ()
+	{
+		return isRateReportingEnabled;
+	}
+
+	public void setRateReportingEnabled ( boolean isRateReportingEnabled )
+	{
+		this.isRateReportingEnabled = isRateReportingEnabled;
 	}
 
 	/**
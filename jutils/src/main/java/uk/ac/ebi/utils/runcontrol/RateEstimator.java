@@ -0,0 +1,167 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Estimates the rate of a growing quantity (eg, the number of processed items), based on periodic samples
+ * of its value.</p>
+ *
+ * <p>Three rates are offered: the {@link #getLastRate() last rate}, which is based on the two most recent
+ * samples, the {@link #getWindowRate() window rate}, which is a moving average over the last
+ * {@link #getWindowTime() window time}, and the {@link #getOverallRate() overall rate}, computed since the first
+ * sample.</p>
+ *
+ * <p>Samples are kept in a ring buffer of fixed size and they're spaced by at least
+ * {@link #getWindowTime() window time} / capacity, so that the moving average always spans the whole window,
+ * no matter how frequently {@link #sample(long)} is invoked.</p>
+ *
+ * <p>The methods of this class are synchronised, it is meant to be sampled and queried from time to time
+ * (eg, by {@link ProgressLogger} reports), not from hot loops.</p>
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class RateEstimator
+{
+	private final long[] times, values;
+	private int head = -1, size = 0;
+
+	private long windowTime;
+
+	private long firstTime = -1, firstValue;
+	private long prevTime = -1, prevValue;
+	private long lastTime = -1, lastValue;
+
+	/**
+	 * @param windowTime the time span used for the {@link #getWindowRate() moving average}, in ms.
+	 * @param capacity how many samples are kept for the moving average
+	 */
+	public RateEstimator ( long windowTime, int capacity )
+	{
+		if ( capacity < 2 ) throw new IllegalArgumentException ( "RateEstimator needs a capacity of at least 2 samples" );
+		this.windowTime = windowTime;
+		this.times = new long [ capacity ];
+		this.values = new long [ capacity ];
+	}
+
+	/**
+	 * Defaults to a capacity of 120 samples.
+	 */
+	public RateEstimator ( long windowTime ) {
+		this ( windowTime, 120 );
+	}
+
+	/**
+	 * Defaults to a window of 1 min.
+	 */
+	public RateEstimator () {
+		this ( 60 * 1000 );
+	}
+
+	/**
+	 * Records a new value for the quantity we're tracking, using {@link System#nanoTime()} as its time.
+	 */
+	public void sample ( long value ) {
+		sample ( System.nanoTime (), value );
+	}
+
+	/**
+	 * Time is in ns.
+	 */
+	synchronized void sample ( long time, long value )
+	{
+		if ( this.firstTime == -1 ) {
+			this.firstTime = time; this.firstValue = value;
+		}
+
+		this.prevTime = this.lastTime; this.prevValue = this.lastValue;
+		this.lastTime = time; this.lastValue = value;
+
+		// Keep the samples spaced, so that the ring covers the whole window
+		long minSpacing = TimeUnit.MILLISECONDS.toNanos ( this.windowTime ) / this.times.length;
+		if ( size > 0 && time - this.times [ head ] < minSpacing ) return;
+
+		head = ( head + 1 ) % this.times.length;
+		this.times [ head ] = time;
+		this.values [ head ] = value;
+		if ( size < this.times.length ) size++;
+	}
+
+	/**
+	 * Removes all the samples, so that the estimator is ready for a new measurement.
+	 */
+	public synchronized void reset ()
+	{
+		head = -1; size = 0;
+		firstTime = prevTime = lastTime = -1;
+	}
+
+	/**
+	 * The rate between the last two samples, in units/sec, 0 if we don't have enough data yet.
+	 */
+	public synchronized double getLastRate ()
+	{
+		if ( this.prevTime == -1 ) return 0d;
+		return rate ( this.prevTime, this.prevValue, this.lastTime, this.lastValue );
+	}
+
+	/**
+	 * The average rate within the last {@link #getWindowTime() window time}, ending at the most recent sample,
+	 * in units/sec, 0 if we don't have enough data yet.
+	 */
+	public synchronized double getWindowRate ()
+	{
+		if ( this.lastTime == -1 ) return 0d;
+
+		long windowStart = this.lastTime - TimeUnit.MILLISECONDS.toNanos ( this.windowTime );
+
+		// Look for the oldest sample that is still in the window, starting from the most recent one
+		int oldest = -1;
+		for ( int i = 0; i < size; i++ )
+		{
+			int idx = Math.floorMod ( head - i, this.times.length );
+			if ( this.times [ idx ] < windowStart ) break;
+			oldest = idx;
+		}
+		if ( oldest == -1 ) return getLastRate ();
+		return rate ( this.times [ oldest ], this.values [ oldest ], this.lastTime, this.lastValue );
+	}
+
+	/**
+	 * The average rate since the first sample, in units/sec, 0 if we don't have enough data yet.
+	 */
+	public synchronized double getOverallRate ()
+	{
+		if ( this.lastTime == -1 ) return 0d;
+		return rate ( this.firstTime, this.firstValue, this.lastTime, this.lastValue );
+	}
+
+	/**
+	 * The value of the most recent sample.
+	 */
+	public synchronized long getLastValue ()
+	{
+		return this.lastTime == -1 ? 0 : this.lastValue;
+	}
+
+	private static double rate ( long t0, long v0, long t1, long v1 )
+	{
+		if ( t1 <= t0 ) return 0d;
+		return ( v1 - v0 ) * 1E9 / ( t1 - t0 );
+	}
+
+
+	/**
+	 * The time span for {@link #getWindowRate()}, in ms.
+	 */
+	public synchronized long getWindowTime ()
+	{
+		return windowTime;
+	}
+
+	public synchronized void setWindowTime ( long windowTime )
+	{
+		this.windowTime = windowTime;
+	}
+}
@@ -0,0 +1,290 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import uk.ac.ebi.utils.exceptions.UncheckedInterruptedException;
+import uk.ac.ebi.utils.threading.ThreadUtils;
+import uk.ac.ebi.utils.threading.batchproc.ItemizedSizedBatchCollector;
+import uk.ac.ebi.utils.threading.batchproc.collectors.SetBatchCollector;
+
+/**
+ * <p>Coalesces individual keyed requests coming from many threads into bulk calls, which is useful when 
+ * a remote service has a bulk endpoint (eg, fetching many accessions at once), but the client code is naturally 
+ * written to look up one item at a time.</p>
+ * 
+ * <p>Keys passed to {@link #submit(Object)} are gathered into a batch, which is managed by an 
+ * {@link ItemizedSizedBatchCollector}, in the same way {@link uk.ac.ebi.utils.threading.batchproc.BatchProcessor} 
+ * does. When the batch is full or when {@link #getMaxWaitTime()} has passed since the first key was added, 
+ * the batch is passed to the {@link #getBulkFunction() bulk function} and each caller's future is completed with 
+ * the value that the bulk call returns for its key (or null if the key isn't in the result). If the bulk call 
+ * fails, all the futures in the batch fail with its exception. Requests for the same key in the same batch share
+ * the same future.</p>
+ * 
+ * <p>Bulk calls are run on {@link #getAsyncExecutor()}, through {@link #getBulkCallExecutor()}, which allows for 
+ * composing this component with executors like {@link RateLimitedExecutor} or {@link MultipleAttemptsExecutor} 
+ * (possibly via {@link ChainExecutor}).</p>
+ *
+ * @param <K> the type of request keys
+ * @param <V> the type of results
+ * 
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class RequestCoalescer<K, V>
+{
+	private class Batch
+	{
+		private final Set<K> keys = batchCollector.batchFactory ().get ();
+		private final Map<K, CompletableFuture<V>> futures = new HashMap<> ();
+		private ScheduledFuture<?> timeoutTask;
+	}
+	
+	private final Function<Set<K>, Map<K, V>> bulkFunction;
+	private final ItemizedSizedBatchCollector<Set<K>, K> batchCollector;
+	private final long maxWaitTime;
+	
+	private Executor bulkCallExecutor = Runnable::run;
+	private Executor asyncExecutor = ThreadUtils.getSharedWorkerExecutor ();
+	private ScheduledExecutorService scheduler = ThreadUtils.getSharedScheduler ();
+	
+	private Batch currentBatch = null;
+	
+	/**
+	 * @param bulkFunction see {@link #getBulkFunction()}
+	 * @param batchCollector see {@link #getBatchCollector()}
+	 * @param maxWaitTime see {@link #getMaxWaitTime()}
+	 */
+	public RequestCoalescer ( 
+		Function<Set<K>, Map<K, V>> bulkFunction, ItemizedSizedBatchCollector<Set<K>, K> batchCollector, long maxWaitTime 
+	)
+	{
+		this.bulkFunction = bulkFunction;
+		this.batchCollector = batchCollector;
+		this.maxWaitTime = maxWaitTime;
+	}
+
+	/**
+	 * Uses a {@link SetBatchCollector}. 
+	 */
+	public RequestCoalescer ( Function<Set<K>, Map<K, V>> bulkFunction, int maxBatchSize, long maxWaitTime ) {
+		this ( bulkFunction, new SetBatchCollector<> ( maxBatchSize ), maxWaitTime );
+	}
+
+	
+	/**
+	 * Adds a key to the current batch and returns a future for its value. 
+	 */
+	public CompletableFuture<V> submit ( K key )
+	{
+		Batch readyBatch = null;
+		CompletableFuture<V> result;
+		
+		synchronized ( this )
+		{
+			if ( currentBatch == null ) 
+			{
+				Batch newBatch = currentBatch = new Batch ();
+				try {
+					newBatch.timeoutTask = scheduler.schedule ( 
+						() -> flush ( newBatch ), maxWaitTime, TimeUnit.MILLISECONDS 
+					);
+				}
+				catch ( RejectedExecutionException ex ) {
+					// No timeout, the batch will be flushed when full or by flush()
+				}
+			}
+			
+			result = currentBatch.futures.computeIfAbsent ( key, k -> new CompletableFuture<> () );
+			batchCollector.accumulator ().accept ( currentBatch.keys, key );
+			
+			if ( batchCollector.batchReadyFlag ().test ( currentBatch.keys ) ) {
+				readyBatch = currentBatch;
+				currentBatch = null;
+			}
+		}
+		
+		if ( readyBatch != null ) dispatch ( readyBatch );
+		return result;
+	}
+	
+	/**
+	 * Blocking version of {@link #submit(Object)}, which waits for the value. Exceptions from the bulk call 
+	 * are re-thrown, wrapped by {@link CompletionException} if they're checked.  
+	 */
+	public V get ( K key )
+	{
+		try {
+			return submit ( key ).get ();
+		}
+		catch ( InterruptedException ex ) {
+			throw new UncheckedInterruptedException ( 
+				"Interrupted while waiting for a coalesced request: " + ex.getMessage (), ex 
+			);
+		}
+		catch ( ExecutionException ex ) 
+		{
+			Throwable cause = ex.getCause ();
+			if ( cause instanceof RuntimeException ) throw (RuntimeException) cause;
+			if ( cause instanceof Error ) throw (Error) cause;
+			throw new CompletionException ( cause );
+		}
+	}
+
+	/**
+	 * Dispatches the current batch immediately, without waiting for it to be full or for 
+	 * {@link #getMaxWaitTime()}. Typically, you want to call this when no more requests are expected. 
+	 */
+	public void flush ()
+	{
+		Batch batch;
+		synchronized ( this ) {
+			batch = currentBatch;
+			currentBatch = null;
+		}
+		if ( batch != null ) dispatch ( batch );
+	}
+	
+	/**
+	 * Used for the timeout, does nothing if the batch was already dispatched. 
+	 */
+	private void flush ( Batch batch )
+	{
+		synchronized ( this ) 
+		{
+			if ( currentBatch != batch ) return;
+			currentBatch = null;
+		}
+		dispatch ( batch );
+	}
+
+	private void dispatch ( Batch batch )
+	{
+		if ( batch.timeoutTask != null ) batch.timeoutTask.cancel ( false );
+		try {
+			asyncExecutor.execute ( () -> runBulkCall ( batch ) );
+		}
+		catch ( RejectedExecutionException ex ) {
+			batch.futures.values ().forEach ( f -> f.completeExceptionally ( ex ) );
+		}
+	}
+	
+	private void runBulkCall ( Batch batch )
+	{
+		Thread runnerThread = Thread.currentThread ();
+		AtomicReference<Throwable> runnerThreadFailure = new AtomicReference<> ();
+		try 
+		{
+			// The futures are completed from the action, since the executor might be asynchronous 
+			bulkCallExecutor.execute ( () -> 
+			{
+				try {
+					Map<K, V> values = bulkFunction.apply ( batch.keys );
+					batch.futures.forEach ( 
+						( key, future ) -> future.complete ( values == null ? null : values.get ( key ) ) 
+					);
+				}
+				catch ( RuntimeException | Error ex ) 
+				{
+					// In this thread, the executor might re-attempt, the final failure is dealt with below
+					if ( Thread.currentThread () == runnerThread ) runnerThreadFailure.set ( ex );
+					else batch.futures.values ().forEach ( f -> f.completeExceptionally ( ex ) );
+					throw ex;
+				}
+			});
+			
+			// The executor didn't re-throw the last failure (completed futures aren't affected by this)
+			Throwable failure = runnerThreadFailure.get ();
+			if ( failure != null ) batch.futures.values ().forEach ( f -> f.completeExceptionally ( failure ) );
+		}
+		catch ( Throwable ex ) 
+		{
+			batch.futures.values ().forEach ( f -> f.completeExceptionally ( ex ) );
+			if ( ex instanceof Error ) throw (Error) ex;
+		}
+	}
+	
+	
+	/**
+	 * Gets a batch of keys and returns the values for them. Keys that don't have a value can be omitted in 
+	 * the result.
+	 */
+	public Function<Set<K>, Map<K, V>> getBulkFunction ()
+	{
+		return bulkFunction;
+	}
+
+	/**
+	 * Manages the key batches and establishes when they're full.
+	 */
+	public ItemizedSizedBatchCollector<Set<K>, K> getBatchCollector ()
+	{
+		return batchCollector;
+	}
+
+	/**
+	 * A batch is dispatched after this time since its first key was added, even if it isn't full. 
+	 * In ms.
+	 */
+	public long getMaxWaitTime ()
+	{
+		return maxWaitTime;
+	}
+
+	/**
+	 * The bulk function is run through this executor, which can be used to wrap it with rate limiting, 
+	 * re-attempts and alike. By default, the function is just run. This can be asynchronous too, but, in that case,
+	 * the first failure of the bulk function fails the batch, even if the executor re-attempts it.
+	 */
+	public Executor getBulkCallExecutor ()
+	{
+		return bulkCallExecutor;
+	}
+
+	public RequestCoalescer<K, V> setBulkCallExecutor ( Executor bulkCallExecutor )
+	{
+		this.bulkCallExecutor = bulkCallExecutor;
+		return this;
+	}
+
+	/**
+	 * Where bulk calls are run. Default is {@link ThreadUtils#getSharedWorkerExecutor()}, since bulk calls are
+	 * usually blocking (eg, remote calls) and they shouldn't starve the common fork/join pool.
+	 */
+	public Executor getAsyncExecutor ()
+	{
+		return asyncExecutor;
+	}
+
+	public RequestCoalescer<K, V> setAsyncExecutor ( Executor asyncExecutor )
+	{
+		this.asyncExecutor = asyncExecutor;
+		return this;
+	}
+
+	/**
+	 * Used for {@link #getMaxWaitTime()}. Default is {@link ThreadUtils#getSharedScheduler()}.
+	 */
+	public ScheduledExecutorService getScheduler ()
+	{
+		return scheduler;
+	}
+
+	public RequestCoalescer<K, V> setScheduler ( ScheduledExecutorService scheduler )
+	{
+		this.scheduler = scheduler;
+		return this;
+	}
+}
@@ -0,0 +1,530 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+
+import uk.ac.ebi.utils.exceptions.UncheckedInterruptedException;
+import uk.org.lidalia.slf4jext.Logger;
+import uk.org.lidalia.slf4jext.LoggerFactory;
+
+/**
+ * <p>An executor that fuses the most common run control policies into a single one, so that you don't need to
+ * stack them by hand with {@link ChainExecutor}. The policies are applied in this order:</p>
+ *
+ * <ol>
+ *   <li>{@link StatsExecutor stats}, over the whole call, including re-attempts</li>
+ *   <li>{@link MultipleAttemptsExecutor re-attempts}</li>
+ *   <li>{@link CircuitBreakerExecutor circuit breaker}, checked at each attempt. {@link CircuitBreakerOpenException}
+ *   is never re-attempted</li>
+ *   <li>rate limiting, either via {@link RateLimitedExecutor} or {@link TokenBucketRateLimiter}, at each attempt</li>
+ *   <li>{@link TimeoutExecutor timeout}, at each attempt</li>
+ * </ol>
+ *
+ * <p>Each policy is optional. Instances are created via {@link #builder(String)}, either programmatically or
+ * from a configuration map (see {@link Builder#configure(Map)}), so that parameters like re-attempts or rates can
+ * be tuned without rebuilding the application.</p>
+ *
+ * <p>Unlike a chain of executors, where each layer wraps the action with a new {@link Runnable},
+ * {@link #execute(Runnable)} invokes the policy components directly, without allocating wrappers per call. The
+ * exception is the timeout, which needs to submit the action to a worker.</p>
+ *
+ * <p>The components are exposed by getters, so that you can tune them at runtime (eg, change the rate).</p>
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class ResilientExecutor implements Executor
+{
+	/**
+	 * Builds a {@link ResilientExecutor}.
+	 */
+	public static class Builder
+	{
+		private final String serviceName;
+
+		private StatsExecutor statsExecutor;
+		private MultipleAttemptsExecutor retryExecutor;
+		private CircuitBreakerExecutor circuitBreaker;
+		private RateLimitedExecutor rateLimitedExecutor;
+		private TokenBucketRateLimiter tokenBucketRateLimiter;
+		private TimeoutExecutor timeoutExecutor;
+
+		private Builder ( String serviceName ) {
+			this.serviceName = serviceName;
+		}
+
+		public Builder withStats ( StatsExecutor statsExecutor ) {
+			this.statsExecutor = statsExecutor;
+			return this;
+		}
+
+		/**
+		 * @param samplingTime see {@link StatsExecutor#getSamplingTime()}.
+		 */
+		public Builder withStats ( long samplingTime ) {
+			return withStats ( new StatsExecutor ( serviceName, samplingTime ) );
+		}
+
+		public Builder withRetry ( MultipleAttemptsExecutor retryExecutor ) {
+			this.retryExecutor = retryExecutor;
+			return this;
+		}
+
+		/**
+		 * If no exception is specified, re-attempts any {@link RuntimeException}.
+		 */
+		@SafeVarargs
+		public final Builder withRetry (
+			int maxAttempts, long minPauseTime, long maxPauseTime, Class<? extends Exception>... interceptedExceptions
+		)
+		{
+			if ( interceptedExceptions == null || interceptedExceptions.length == 0 )
+				interceptedExceptions = toExceptionArray ( List.of ( RuntimeException.class ) );
+			return withRetry (
+				new MultipleAttemptsExecutor ( maxAttempts, minPauseTime, maxPauseTime, interceptedExceptions )
+			);
+		}
+
+		public Builder withCircuitBreaker ( CircuitBreakerExecutor circuitBreaker ) {
+			this.circuitBreaker = circuitBreaker;
+			return this;
+		}
+
+		/**
+		 * @see CircuitBreakerExecutor#CircuitBreakerExecutor(String, int, Class...).
+		 */
+		@SafeVarargs
+		public final Builder withCircuitBreaker ( int windowSize, Class<? extends Exception>... recordedExceptions ) {
+			return withCircuitBreaker ( new CircuitBreakerExecutor ( serviceName, windowSize, recordedExceptions ) );
+		}
+
+		/**
+		 * Only {@link RateLimitedExecutor#getRate()} is considered here, ie, subclasses like
+		 * {@link DynamicRateExecutor} don't receive the actions.
+		 */
+		public Builder withRateLimit ( RateLimitedExecutor rateLimitedExecutor )
+		{
+			this.rateLimitedExecutor = rateLimitedExecutor;
+			this.tokenBucketRateLimiter = null;
+			return this;
+		}
+
+		public Builder withRateLimit ( double requestsPerSecond ) {
+			return withRateLimit ( new RateLimitedExecutor ( requestsPerSecond ) );
+		}
+
+		/**
+		 * Useful to share the rate with other processes.
+		 */
+		public Builder withRateLimit ( TokenBucketRateLimiter tokenBucketRateLimiter )
+		{
+			this.tokenBucketRateLimiter = tokenBucketRateLimiter;
+			this.rateLimitedExecutor = null;
+			return this;
+		}
+
+		public Builder withTimeout ( TimeoutExecutor timeoutExecutor ) {
+			this.timeoutExecutor = timeoutExecutor;
+			return this;
+		}
+
+		/**
+		 * @param timeout in ms.
+		 */
+		public Builder withTimeout ( long timeout ) {
+			return withTimeout ( new TimeoutExecutor ( timeout ) );
+		}
+
+		/**
+		 * <p>Sets up the policies from a configuration map. This can have flat keys like {@code retry.maxAttempts}
+		 * (eg, from a {@link Properties} file) or be nested (eg, from a YAML file parsed with libraries like
+		 * SnakeYAML), in which case the nested keys are joined with dots. Values can be strings or the types they
+		 * represent. The recognised keys are:</p>
+		 *
+		 * <ul>
+		 *   <li>{@code stats.enabled}, {@code stats.samplingTime}, {@code stats.popUpExceptions}</li>
+		 *   <li>{@code retry.maxAttempts}, {@code retry.minPauseTime}, {@code retry.maxPauseTime},
+		 *   {@code retry.exponentialBackoff}, {@code retry.backoffBaseTime}, {@code retry.exceptions}</li>
+		 *   <li>{@code circuitBreaker.windowSize}, {@code circuitBreaker.minCalls},
+		 *   {@code circuitBreaker.failureRateThreshold}, {@code circuitBreaker.openStateTime},
+		 *   {@code circuitBreaker.halfOpenCalls}, {@code circuitBreaker.exceptions}</li>
+		 *   <li>{@code rateLimit.rate} (required, if the section is present)</li>
+		 *   <li>{@code timeout.time} (required, if the section is present)</li>
+		 * </ul>
+		 *
+		 * <p>A policy is enabled if any of its keys is present, except stats, which can also be disabled via
+		 * {@code stats.enabled}. Times are in ms. The exceptions are fully qualified class names, either as a list
+		 * or a comma-separated string. Keys that aren't in the list above are ignored, so that the map can contain
+		 * other configuration too. Parameters that are missing take the defaults of the corresponding executor.</p>
+		 */
+		public Builder configure ( Map<String, ?> config )
+		{
+			Map<String, Object> flatConfig = new HashMap<> ();
+			flatten ( "", config, flatConfig );
+
+			if ( hasSection ( flatConfig, "stats" ) && getBoolean ( flatConfig, "stats.enabled", true ) )
+			{
+				StatsExecutor stats = new StatsExecutor ( serviceName );
+				stats.setSamplingTime ( getLong ( flatConfig, "stats.samplingTime", stats.getSamplingTime () ) );
+				stats.setPopUpExceptions (
+					getBoolean ( flatConfig, "stats.popUpExceptions", stats.isPopUpExceptions () )
+				);
+				withStats ( stats );
+			}
+
+			if ( hasSection ( flatConfig, "retry" ) )
+			{
+				List<Class<? extends Exception>> exceptions = getExceptions ( flatConfig, "retry.exceptions" );
+				if ( exceptions.isEmpty () ) exceptions.add ( RuntimeException.class );
+
+				MultipleAttemptsExecutor retry = new MultipleAttemptsExecutor ( toExceptionArray ( exceptions ) );
+				retry.setMaxAttempts ( (int) getLong ( flatConfig, "retry.maxAttempts", retry.getMaxAttempts () ) );
+				retry.setMinPauseTime ( getLong ( flatConfig, "retry.minPauseTime", retry.getMinPauseTime () ) );
+				retry.setMaxPauseTime ( getLong ( flatConfig, "retry.maxPauseTime", retry.getMaxPauseTime () ) );
+				retry.setExponentialBackoff (
+					getBoolean ( flatConfig, "retry.exponentialBackoff", retry.isExponentialBackoff () )
+				);
+				retry.setBackoffBaseTime (
+					getLong ( flatConfig, "retry.backoffBaseTime", retry.getBackoffBaseTime () )
+				);
+				withRetry ( retry );
+			}
+
+			if ( hasSection ( flatConfig, "circuitBreaker" ) )
+			{
+				List<Class<? extends Exception>> exceptions = getExceptions ( flatConfig, "circuitBreaker.exceptions" );
+				CircuitBreakerExecutor breaker = new CircuitBreakerExecutor (
+					serviceName,
+					(int) getLong ( flatConfig, "circuitBreaker.windowSize", 100 ),
+					toExceptionArray ( exceptions )
+				);
+				breaker
+					.setMinCalls ( (int) getLong ( flatConfig, "circuitBreaker.minCalls", breaker.getMinCalls () ) )
+					.setFailureRateThreshold ( getDouble (
+						flatConfig, "circuitBreaker.failureRateThreshold", breaker.getFailureRateThreshold ()
+					))
+					.setOpenStateTime (
+						getLong ( flatConfig, "circuitBreaker.openStateTime", breaker.getOpenStateTime () )
+					)
+					.setHalfOpenCalls (
+						(int) getLong ( flatConfig, "circuitBreaker.halfOpenCalls", breaker.getHalfOpenCalls () )
+					);
+				withCircuitBreaker ( breaker );
+			}
+
+			// These have no sensible default
+			if ( hasSection ( flatConfig, "rateLimit" ) )
+				withRateLimit ( getDouble ( flatConfig, checkRequired ( flatConfig, "rateLimit.rate" ), 0 ) );
+
+			if ( hasSection ( flatConfig, "timeout" ) )
+				withTimeout ( getLong ( flatConfig, checkRequired ( flatConfig, "timeout.time" ), 0 ) );
+
+			return this;
+		}
+
+		/**
+		 * Converts the properties into a map and uses {@link #configure(Map)}.
+		 */
+		public Builder configure ( Properties config )
+		{
+			Map<String, Object> map = new HashMap<> ();
+			config.stringPropertyNames ().forEach ( k -> map.put ( k, config.getProperty ( k ) ) );
+			return configure ( map );
+		}
+
+		public ResilientExecutor build () {
+			return new ResilientExecutor ( this );
+		}
+
+
+		@SuppressWarnings ( "unchecked" )
+		private static void flatten ( String prefix, Map<String, ?> map, Map<String, Object> result )
+		{
+			map.forEach ( ( k, v ) ->
+			{
+				String key = prefix + k;
+				if ( v instanceof Map ) flatten ( key + ".", (Map<String, ?>) v, result );
+				else result.put ( key, v );
+			});
+		}
+
+		private static boolean hasSection ( Map<String, Object> config, String section ) {
+			return config.keySet ().stream ().anyMatch ( k -> k.startsWith ( section + "." ) );
+		}
+
+		/**
+		 * @return the key, for chaining.
+		 */
+		private static String checkRequired ( Map<String, Object> config, String key )
+		{
+			if ( config.get ( key ) == null ) throw new IllegalArgumentException (
+				"The configuration key \"" + key + "\" is required"
+			);
+			return key;
+		}
+
+		private static long getLong ( Map<String, Object> config, String key, long defaultValue )
+		{
+			Object v = config.get ( key );
+			if ( v == null ) return defaultValue;
+			if ( v instanceof Number ) return ( (Number) v ).longValue ();
+			try {
+				return Long.parseLong ( v.toString ().trim () );
+			}
+			catch ( NumberFormatException ex ) {
+				throw new IllegalArgumentException (
+					"Invalid value \"" + v + "\" for the configuration key \"" + key + "\"", ex
+				);
+			}
+		}
+
+		private static double getDouble ( Map<String, Object> config, String key, double defaultValue )
+		{
+			Object v = config.get ( key );
+			if ( v == null ) return defaultValue;
+			if ( v instanceof Number ) return ( (Number) v ).doubleValue ();
+			try {
+				return Double.parseDouble ( v.toString ().trim () );
+			}
+			catch ( NumberFormatException ex ) {
+				throw new IllegalArgumentException (
+					"Invalid value \"" + v + "\" for the configuration key \"" + key + "\"", ex
+				);
+			}
+		}
+
+		private static boolean getBoolean ( Map<String, Object> config, String key, boolean defaultValue )
+		{
+			Object v = config.get ( key );
+			if ( v == null ) return defaultValue;
+			if ( v instanceof Boolean ) return (Boolean) v;
+			return Boolean.parseBoolean ( v.toString ().trim () );
+		}
+
+		@SuppressWarnings ( "unchecked" )
+		private static List<Class<? extends Exception>> getExceptions ( Map<String, Object> config, String key )
+		{
+			List<Class<? extends Exception>> result = new ArrayList<> ();
+
+			Object v = config.get ( key );
+			if ( v == null ) return result;
+
+			Collection<?> names = v instanceof Collection ? (Collection<?>) v : List.of ( v.toString ().split ( "," ) );
+			for ( Object nameObj: names )
+			{
+				String name = nameObj.toString ().trim ();
+				if ( name.isEmpty () ) continue;
+				try
+				{
+					Class<?> cls = Class.forName ( name );
+					if ( !Exception.class.isAssignableFrom ( cls ) ) throw new IllegalArgumentException (
+						"The class \"" + name + "\" in the configuration key \"" + key + "\" isn't an exception"
+					);
+					result.add ( (Class<? extends Exception>) cls );
+				}
+				catch ( ClassNotFoundException ex ) {
+					throw new IllegalArgumentException (
+						"Can't find the exception \"" + name + "\" in the configuration key \"" + key + "\"", ex
+					);
+				}
+			}
+			return result;
+		}
+
+		@SuppressWarnings ( "unchecked" )
+		private static Class<? extends Exception>[] toExceptionArray ( List<Class<? extends Exception>> exceptions ) {
+			return (Class<? extends Exception>[]) exceptions.toArray ( new Class<?> [ 0 ] );
+		}
+	}
+
+
+	private final String serviceName;
+	private final StatsExecutor statsExecutor;
+	private final MultipleAttemptsExecutor retryExecutor;
+	private final CircuitBreakerExecutor circuitBreaker;
+	private final RateLimitedExecutor rateLimitedExecutor;
+	private final TokenBucketRateLimiter tokenBucketRateLimiter;
+	private final TimeoutExecutor timeoutExecutor;
+
+	private Logger log = LoggerFactory.getLogger ( this.getClass () );
+
+	private ResilientExecutor ( Builder builder )
+	{
+		this.serviceName = builder.serviceName;
+		this.statsExecutor = builder.statsExecutor;
+		this.retryExecutor = builder.retryExecutor;
+		this.circuitBreaker = builder.circuitBreaker;
+		this.rateLimitedExecutor = builder.rateLimitedExecutor;
+		this.tokenBucketRateLimiter = builder.tokenBucketRateLimiter;
+		this.timeoutExecutor = builder.timeoutExecutor;
+	}
+
+	/**
+	 * @param serviceName used for the stats and the circuit breaker that the builder creates.
+	 */
+	public static Builder builder ( String serviceName ) {
+		return new Builder ( serviceName );
+	}
+
+
+	/**
+	 * Runs the action with the configured policies, see the class comment.
+	 */
+	@Override
+	public void execute ( Runnable action )
+	{
+		if ( statsExecutor == null ) {
+			runAttempts ( action );
+			return;
+		}
+
+		long startTime = statsExecutor.startCall ();
+		Exception failure = null;
+		try {
+			runAttempts ( action );
+		}
+		catch ( RuntimeException ex )
+		{
+			failure = ex;
+			if ( statsExecutor.isPopUpExceptions () ) throw ex;
+			statsExecutor.logFailure ( ex );
+		}
+		finally {
+			statsExecutor.endCall ( startTime, failure );
+		}
+	}
+
+	private void runAttempts ( Runnable action )
+	{
+		int maxAttempts = retryExecutor == null ? 1 : retryExecutor.getMaxAttempts ();
+		for ( int attempt = 1; ; attempt++ )
+		{
+			try {
+				runAttempt ( action );
+				return;
+			}
+			catch ( RuntimeException ex )
+			{
+				if ( attempt >= maxAttempts )
+				{
+					if ( maxAttempts > 1 && retryExecutor.isIntercepted ( ex ) ) log.error (
+						"Call to {} failed after {} attempts, rethrowing exception", serviceName, maxAttempts
+					);
+					throw ex;
+				}
+				if ( ex instanceof CircuitBreakerOpenException || !retryExecutor.isIntercepted ( ex ) ) throw ex;
+
+				log.log ( retryExecutor.getAttemptMsgLogLevel (),
+					"Call to {} failed due to: {}, re-attempting for {} more time(s)",
+					serviceName, ex.getMessage (), maxAttempts - attempt
+				);
+
+				long pause = retryExecutor.getPauseTime ( attempt );
+				if ( pause <= 0 ) continue;
+				try {
+					Thread.sleep ( pause );
+				}
+				catch ( InterruptedException iex ) {
+					throw new UncheckedInterruptedException (
+						"Interrupted while waiting to re-attempt a call to " + serviceName + ": " + iex.getMessage (), iex
+					);
+				}
+			}
+		}
+	}
+
+	private void runAttempt ( Runnable action )
+	{
+		long permit = circuitBreaker == null 
+			? CircuitBreakerExecutor.NO_PERMIT 
+			: circuitBreaker.tryAcquirePermission ();
+		if ( circuitBreaker != null && permit == CircuitBreakerExecutor.NO_PERMIT )
+			throw circuitBreaker.createOpenException ();
+
+		try
+		{
+			if ( rateLimitedExecutor != null ) rateLimitedExecutor.rateLimiter.acquire ();
+			else if ( tokenBucketRateLimiter != null ) tokenBucketRateLimiter.acquire ();
+
+			if ( timeoutExecutor != null ) timeoutExecutor.execute ( action );
+			else action.run ();
+
+			if ( circuitBreaker != null ) circuitBreaker.recordSuccess ( permit );
+		}
+		catch ( RuntimeException ex )
+		{
+			if ( circuitBreaker != null )
+			{
+				if ( circuitBreaker.isRecorded ( ex ) ) circuitBreaker.recordFailure ( permit );
+				else circuitBreaker.recordSuccess ( permit );
+			}
+			throw ex;
+		}
+		catch ( Error err )
+		{
+			// As in CircuitBreakerExecutor, the permit must be returned, else a half-open circuit gets stuck
+			if ( circuitBreaker != null ) circuitBreaker.recordFailure ( permit );
+			throw err;
+		}
+	}
+
+
+	public String getServiceName ()
+	{
+		return serviceName;
+	}
+
+	/**
+	 * null if this policy isn't used.
+	 */
+	public StatsExecutor getStatsExecutor ()
+	{
+		return statsExecutor;
+	}
+
+	/**
+	 * null if this policy isn't used. Only the parameters of this executor are used, not its methods.
+	 */
+	public MultipleAttemptsExecutor getRetryExecutor ()
+	{
+		return retryExecutor;
+	}
+
+	/**
+	 * null if this policy isn't used.
+	 */
+	public CircuitBreakerExecutor getCircuitBreaker ()
+	{
+		return circuitBreaker;
+	}
+
+	/**
+	 * null if this policy isn't used, or {@link #getTokenBucketRateLimiter()} is used instead.
+	 */
+	public RateLimitedExecutor getRateLimitedExecutor ()
+	{
+		return rateLimitedExecutor;
+	}
+
+	/**
+	 * null if this policy isn't used, or {@link #getRateLimitedExecutor()} is used instead.
+	 */
+	public TokenBucketRateLimiter getTokenBucketRateLimiter ()
+	{
+		return tokenBucketRateLimiter;
+	}
+
+	/**
+	 * null if this policy isn't used.
+	 */
+	public TimeoutExecutor getTimeoutExecutor ()
+	{
+		return timeoutExecutor;
+	}
+}
@@ -0,0 +1,70 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A {@link StatsSink} that keeps the most recent stats in memory, so that they can be inspected 
+ * programmatically, eg, to show them in a monitoring page or to graph them.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class RingBufferStatsSink implements StatsSink
+{
+	private final Deque<ExecutionStats> buffer;
+	private final int capacity;
+	
+	/**
+	 * @param capacity the max number of stats that are kept, older ones are discarded when new ones arrive. 
+	 */
+	public RingBufferStatsSink ( int capacity )
+	{
+		if ( capacity < 1 ) throw new IllegalArgumentException ( "RingBufferStatsSink needs a capacity >= 1" );
+		this.capacity = capacity;
+		this.buffer = new ArrayDeque<> ( capacity );
+	}
+
+	/**
+	 * Defaults to 100 elements.
+	 */
+	public RingBufferStatsSink () {
+		this ( 100 );
+	}
+
+	@Override
+	public synchronized void record ( ExecutionStats stats )
+	{
+		if ( buffer.size () == capacity ) buffer.removeFirst ();
+		buffer.addLast ( stats );
+	}
+	
+	/**
+	 * A copy of the buffered stats, from the oldest to the newest.
+	 */
+	public synchronized List<ExecutionStats> getStats ()
+	{
+		return new ArrayList<> ( buffer );
+	}
+
+	/**
+	 * The most recent stats, null if none was recorded yet.
+	 */
+	public synchronized ExecutionStats getLast ()
+	{
+		return buffer.peekLast ();
+	}
+
+	public synchronized void clear ()
+	{
+		buffer.clear ();
+	}
+	
+	public int getCapacity ()
+	{
+		return capacity;
+	}
+}
@@ -0,0 +1,223 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import uk.ac.ebi.utils.exceptions.UncheckedInterruptedException;
+
+/**
+ * <p>Deduplicates concurrent calls for the same key, so that, when many threads ask for the same thing at the same
+ * time (eg, the same ontology term from a remote service), only one of them actually runs the computation and all 
+ * the others wait for and share its result (or its exception). This is the single-flight pattern, as it is named in 
+ * the Go world.</p>
+ * 
+ * <p>Optionally, results can be memoised for a short {@link #getMemoTime() time}, so that calls arriving 
+ * soon after a computation is completed get its result too.</p>
+ * 
+ * <p>The computations are run through {@link #getExecutor()}, which can be any runcontrol executor, including 
+ * a stack of them built with {@link ChainExecutor}. For instance, you can rate-limit and re-attempt the calls 
+ * that actually reach a remote service, while the deduplicated ones don't count.</p>
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of results
+ * 
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class SingleFlight<K, V>
+{
+	private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<> ();
+	
+	/** Optional, since the results can be null and the Guava cache doesn't accept them */
+	private final Cache<K, Optional<V>> memo;
+	private final long memoTime;
+	
+	private Executor executor = Runnable::run;
+	
+	/**
+	 * @param memoTime see {@link #getMemoTime()}
+	 * @param maxMemoSize the max no. of memoised results, used when memoTime is &gt; 0.
+	 */
+	public SingleFlight ( long memoTime, long maxMemoSize )
+	{
+		this.memoTime = memoTime;
+		this.memo = memoTime <= 0 
+			? null 
+			: CacheBuilder.newBuilder ()
+				.expireAfterWrite ( memoTime, TimeUnit.MILLISECONDS )
+				.maximumSize ( maxMemoSize )
+				.build ();
+	}
+
+	/**
+	 * Defaults to 10000 memoised results.
+	 */
+	public SingleFlight ( long memoTime ) {
+		this ( memoTime, 10000 );
+	}
+
+	/**
+	 * No memoisation.
+	 */
+	public SingleFlight () {
+		this ( 0 );
+	}
+	
+	
+	/**
+	 * <p>Gets the value for the key, either by running the loader or by waiting for the result of a concurrent 
+	 * call that is already running it. If the result was memoised, returns it straight.</p>
+	 * 
+	 * <p>If the loader fails, the calling thread and all the waiting threads get its exception. Failures are never
+	 * memoised.</p>
+	 * 
+	 * <p>The {@link #getExecutor() executor} can be asynchronous (eg, {@link AsyncRateLimitedExecutor}), in which 
+	 * case the calling thread waits for the loader to complete. Executors that run the loader in the calling thread
+	 * can re-attempt it (eg, {@link MultipleAttemptsExecutor}), and the flight's outcome is the final one. When the
+	 * loader runs in another thread, the flight ends with its first failure.</p>
+	 *
+	 * <p>The loader must not call this method for the same key on the same instance: that would wait for the
+	 * flight it is running, ie, it would deadlock.</p>
+	 */
+	public V get ( K key, Function<? super K, ? extends V> loader )
+	{
+		Optional<V> memoised = getMemoised ( key );
+		if ( memoised != null ) return memoised.orElse ( null );
+		
+		CompletableFuture<V> myFlight = new CompletableFuture<> ();
+		CompletableFuture<V> currentFlight = inFlight.putIfAbsent ( key, myFlight );
+		if ( currentFlight != null ) return waitFor ( currentFlight );
+		
+		try 
+		{
+			// Another flight might have ended between the check above and putIfAbsent()
+			memoised = getMemoised ( key );
+			if ( memoised != null ) 
+			{
+				myFlight.complete ( memoised.orElse ( null ) );
+				return memoised.orElse ( null );
+			}
+
+			Thread callerThread = Thread.currentThread ();
+			AtomicReference<Throwable> callerThreadFailure = new AtomicReference<> ();
+			try 
+			{
+				executor.execute ( () -> 
+				{
+					try {
+						V value = loader.apply ( key );
+						// Before leaving the flight, so that there's no gap between the two
+						if ( memo != null ) memo.put ( key, Optional.ofNullable ( value ) );
+						myFlight.complete ( value );
+					}
+					catch ( RuntimeException | Error ex ) 
+					{
+						// In the calling thread, the executor might re-attempt, the final failure is dealt with below
+						if ( Thread.currentThread () == callerThread ) callerThreadFailure.set ( ex );
+						else myFlight.completeExceptionally ( ex );
+						throw ex;
+					}
+				});
+			}
+			catch ( RuntimeException | Error ex ) {
+				myFlight.completeExceptionally ( ex );
+				throw ex;
+			}
+			
+			// The executor didn't re-throw the last failure (eg, StatsExecutor can do so)
+			if ( !myFlight.isDone () && callerThreadFailure.get () != null ) 
+				myFlight.completeExceptionally ( callerThreadFailure.get () );
+			
+			// Already done, unless the executor is asynchronous
+			return waitFor ( myFlight );
+		}
+		finally {
+			inFlight.remove ( key, myFlight );
+		}
+	}
+	
+	/**
+	 * null if there is no memoised result, an empty optional if the memoised result is null. 
+	 */
+	private Optional<V> getMemoised ( K key ) {
+		return memo == null ? null : memo.getIfPresent ( key );
+	}
+	
+	private V waitFor ( CompletableFuture<V> flight )
+	{
+		try {
+			return flight.get ();
+		}
+		catch ( InterruptedException ex ) {
+			throw new UncheckedInterruptedException ( 
+				"Interrupted while waiting for a single-flight call: " + ex.getMessage (), ex 
+			);
+		}
+		catch ( ExecutionException ex ) 
+		{
+			Throwable cause = ex.getCause ();
+			if ( cause instanceof RuntimeException ) throw (RuntimeException) cause;
+			if ( cause instanceof Error ) throw (Error) cause;
+			throw new CompletionException ( cause );
+		}
+	}
+	
+	/**
+	 * Removes a memoised result, if any. This doesn't affect a computation in progress. 
+	 */
+	public void invalidate ( K key )
+	{
+		if ( memo != null ) memo.invalidate ( key );
+	}
+
+	/**
+	 * Removes all the memoised results.
+	 */
+	public void invalidateAll ()
+	{
+		if ( memo != null ) memo.invalidateAll ();
+	}
+	
+	/**
+	 * The number of computations currently running.
+	 */
+	public int getInFlightCount ()
+	{
+		return inFlight.size ();
+	}
+	
+	/**
+	 * How long a result is reused after it is computed, in ms. 0 (the default) means results are shared among 
+	 * concurrent calls only.
+	 */
+	public long getMemoTime ()
+	{
+		return memoTime;
+	}
+
+	/**
+	 * The computations are run through this executor, see the class comment. By default, it just runs them.
+	 */
+	public Executor getExecutor ()
+	{
+		return executor;
+	}
+
+	public SingleFlight<K, V> setExecutor ( Executor executor )
+	{
+		this.executor = executor;
+		return this;
+	}
+}
@@ -1,15 +1,32 @@
 package uk.ac.ebi.utils.runcontrol;
 
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import uk.ac.ebi.utils.time.XStopWatch;
+import uk.ac.ebi.utils.threading.ThreadUtils;
 
 /**
- * An executor logs statistics on the executions it receive to run.
+ * <p>An executor logs statistics on the executions it receive to run.</p>
+ * 
+ * <p>Statistics are collected over windows of {@link #getSamplingTime()}. The execution path only updates 
+ * striped counters and a {@link LatencyHistogram}, so it doesn't serialise concurrent callers. The windows are 
+ * rolled over by a background task on the {@link ThreadUtils#getSharedScheduler() shared scheduler}, which starts 
+ * with the first call, sends the closing window's stats to the {@link #getStatsSinks() stats sinks} and makes them 
+ * available as {@link #getLastStats()}.</p>
+ * 
+ * <p>Calls failing with {@link ExecutionTimeoutException} (eg, raised by a wrapped {@link TimeoutExecutor}) are 
+ * also counted as {@link ExecutionStats#getTimedOutCalls() timed out}.</p>
+ * 
+ * <p>By default, the stats are {@link LoggingStatsSink logged}, other sinks are available to keep them in memory 
+ * or to save them on a CSV file.</p>
  *
  * @author brandizi
  * <dl><dt>Date:</dt><dd>5 Oct 2015</dd></dl>
@@ -17,22 +34,37 @@ import uk.ac.ebi.utils.time.XStopWatch;
  */
 public class StatsExecutor implements Executor
 {
-	private long samplingTime;
+	private volatile long samplingTime;
 	private String serviceName = "[Unspecified]";
 	private boolean popUpExceptions = true;
+	private volatile boolean isCumulative = false;
 	
-	private AtomicInteger totalCalls = new AtomicInteger ( 0 ), failedCalls = new AtomicInteger ( 0 );
-	private int lastTotalCalls = 0, lastFailedCalls = 0;
-
-	private XStopWatch timer = new XStopWatch ();
+	/**
+	 * The data collected over a sampling window.
+	 */
+	private static class Window
+	{
+		final long startTime = System.currentTimeMillis ();
+		final LongAdder totalCalls = new LongAdder (), failedCalls = new LongAdder (), 
+			timedOutCalls = new LongAdder ();
+		final LatencyHistogram latencies = new LatencyHistogram ();
+	}
+	
+	private volatile Window currentWindow = new Window ();
+	private volatile ExecutionStats lastStats = null;
+	
+	private final AtomicBoolean isStarted = new AtomicBoolean ( false );
 	
 	private Logger log = LoggerFactory.getLogger ( this.getClass () );
 
+	private final List<StatsSink> statsSinks = new CopyOnWriteArrayList<> ();
+
 	
 	public StatsExecutor ( String serviceName, long samplingTime )
 	{
 		this.samplingTime = samplingTime;
 		this.serviceName = serviceName;
+		this.statsSinks.add ( new LoggingStatsSink ( this.getClass () ) );
 	}
 
 	public StatsExecutor ( String serviceName ) {
@@ -41,95 +73,197 @@ public class StatsExecutor implements Executor
 	
 	/**
 	 * Runs the action, intercepts any {@link Exception} it generates. increase {@link #getTotalCalls()} and,
-	 * if there is an exception, {@link #getFailedCalls()} too. Eventually invokes {@link #doStats()}.
+	 * if there is an exception, {@link #getFailedCalls()} too. Records the execution time too, for the latency
+	 * stats.
 	 * 
 	 * If {@link #isPopUpExceptions()} exceptions are let to reach the invoker. 
 	 */
 	@Override
 	public void execute ( Runnable action )
 	{
+		long startTime = startCall ();
+		Exception failure = null;
 		try {
 			action.run ();
 		}
 		catch ( Exception ex ) 
 		{
-			this.failedCalls.incrementAndGet ();
+			failure = ex;
 			if ( this.popUpExceptions ) throw ex;
-			
-			log.warn ( "Call to {} failed, due to: {}", this.serviceName, ex.getMessage () );
-			if ( log.isTraceEnabled () ) log.trace ( "Call to " + this.serviceName + ", reason:", ex );
+			logFailure ( ex );
 		}
 		finally {
-			this.totalCalls.incrementAndGet ();
+			endCall ( startTime, failure );
 		}
-		doStats ();
 	}	
 	
 	/**
-	 * Checks if {@link #getSamplingTime()} has passed. If yes, logs statistics on recorded calls/min and failed calls.
+	 * The first part of {@link #execute(Runnable)}, which starts the sampling at the first call. This and 
+	 * {@link #endCall(long, Exception)} are used by {@link ResilientExecutor}, to collect stats without wrapping 
+	 * the action.
+	 * 
+	 * @return the call start time, in ns.
 	 */
-	protected synchronized boolean doStats ()
+	long startCall ()
 	{
-		if ( this.timer.isStopped () ) {
-			// First call
-			timer.start ();
-			return false;
+		// The first call starts the sampling
+		if ( !this.isStarted.get () && this.isStarted.compareAndSet ( false, true ) ) 
+		{
+			this.currentWindow = new Window ();
+			scheduleStats ( new WeakReference<> ( this ), this.samplingTime );
 		}
+		return System.nanoTime ();
+	}
+	
+	/**
+	 * Records the outcome of a call. failure is null if the call succeeded.
+	 */
+	void endCall ( long startTime, Exception failure )
+	{
+		Window window = this.currentWindow;
+		window.latencies.record ( System.nanoTime () - startTime );
+		if ( failure != null ) window.failedCalls.increment ();
+		if ( failure instanceof ExecutionTimeoutException ) window.timedOutCalls.increment ();
+		window.totalCalls.increment ();
+	}
+	
+	/**
+	 * Used when {@link #isPopUpExceptions()} is false.
+	 */
+	void logFailure ( Exception ex )
+	{
+		log.warn ( "Call to {} failed, due to: {}", this.serviceName, ex.getMessage () );
+		if ( log.isTraceEnabled () ) log.trace ( "Call to " + this.serviceName + ", reason:", ex );
+	}
+	
+	/**
+	 * Schedules the next {@link #doStats()}, via a task that refers this executor weakly, so that it is stopped 
+	 * when the executor isn't used anymore.
+	 */
+	private static void scheduleStats ( WeakReference<StatsExecutor> executorRef, long delay )
+	{
+		ThreadUtils.getSharedScheduler ().schedule ( () -> 
+		{
+			StatsExecutor executor = executorRef.get ();
+			if ( executor == null ) return;
+			try {
+				executor.doStats ();
+			}
+			catch ( RuntimeException ex ) {
+				executor.log.error ( "Error while computing the stats for " + executor.serviceName + ": " + ex.getMessage (), ex );
+			}
+			finally {
+				scheduleStats ( executorRef, executor.samplingTime );
+			}
+		}, delay, TimeUnit.MILLISECONDS );
+	}
+	
+	/**
+	 * <p>Invoked every {@link #getSamplingTime()}, it closes the current window, computes statistics on recorded 
+	 * calls/min, failed calls and latencies, and sends them to the {@link #getStatsSinks() stats sinks}. Then it 
+	 * starts a new window, unless we're in {@link #isCumulative() cumulative mode}.</p>
+	 * 
+	 * <p>The throughput is based on the actual time elapsed since the window start, which isn't necessarily the 
+	 * same as the sampling time (eg, the window could be delayed by a busy scheduler).</p>
+	 * 
+	 * @return true if there were calls in the window.
+	 */
+	protected boolean doStats ()
+	{
+		Window window = this.currentWindow;
+		if ( !this.isCumulative ) this.currentWindow = new Window ();
 		
-		if ( this.timer.getTime () < this.samplingTime ) return false;
-		
-		int totalCalls = this.totalCalls.get ();
-		int failedCalls = this.failedCalls.get ();
-		
-		double avgCalls = 1d * totalCalls / this.samplingTime;  
-		double avgFails = totalCalls == 0  
-			? 0d
-			: 1d * this.failedCalls.get () / this.totalCalls.get ();
-
-		log.info ( String.format ( 
-			"---- %s Statistics, throughput: %.0f calls/min, failed: %.1f %%",
-			serviceName,
-			avgCalls * 60000, avgFails * 100
-		));
-		
-		this.lastTotalCalls = totalCalls;
-		this.lastFailedCalls = failedCalls;
-		this.totalCalls.set ( 0 ); 
-		this.failedCalls.set ( 0 );
-		timer.restart ();
-		return true;
+		long totalCalls = window.totalCalls.sum ();
+		long failedCalls = window.failedCalls.sum ();
+
+		long endTime = System.currentTimeMillis ();
+		long elapsed = Math.max ( 1, endTime - window.startTime );
+		double avgCalls = 1d * totalCalls / elapsed;  
+
+		ExecutionStats stats = new ExecutionStats ( 
+			serviceName, window.startTime, endTime, totalCalls, failedCalls, window.timedOutCalls.sum (), 
+			avgCalls * 60000, window.latencies
+		);
+		this.lastStats = stats;
+
+		for ( StatsSink sink: this.statsSinks )
+		{
+			try {
+				sink.record ( stats );
+			}
+			catch ( RuntimeException ex ) {
+				log.error ( "Error while sending the stats for " + serviceName + " to " + sink + ": " + ex.getMessage (), ex );
+			}
+		}
+		return totalCalls > 0;
 	}
 
 	/**
-	 * This is reset every {@link #getSamplingTime()} ms.
+	 * This is reset every {@link #getSamplingTime()} ms, unless {@link #isCumulative()} is set.
 	 */
-	protected synchronized int getTotalCalls ()
+	protected int getTotalCalls ()
 	{
-		return totalCalls.get ();
+		return (int) currentWindow.totalCalls.sum ();
 	}
 
 	/**
-	 * This is reset every {@link #getSamplingTime()} ms.
+	 * This is reset every {@link #getSamplingTime()} ms, unless {@link #isCumulative()} is set.
 	 */
-	protected synchronized int getFailedCalls ()
+	protected int getFailedCalls ()
 	{
-		return failedCalls.get ();
+		return (int) currentWindow.failedCalls.sum ();
 	}	
 	
+	/**
+	 * This is reset every {@link #getSamplingTime()} ms, unless {@link #isCumulative()} is set.
+	 */
+	protected int getTimedOutCalls ()
+	{
+		return (int) currentWindow.timedOutCalls.sum ();
+	}	
+
 	/**
 	 * This is updated every {@link #getSamplingTime()}
 	 */
-	public synchronized int getLastTotalCalls ()
+	public int getLastTotalCalls ()
 	{
-		return lastTotalCalls;
+		ExecutionStats stats = this.lastStats;
+		return stats == null ? 0 : (int) stats.getTotalCalls ();
 	}
 
 	/**
 	 * This is updated every {@link #getSamplingTime()}
 	 */
-	public synchronized int getLastFailedCalls ()
+	public int getLastFailedCalls ()
 	{
-		return lastFailedCalls;
+		ExecutionStats stats = this.lastStats;
+		return stats == null ? 0 : (int) stats.getFailedCalls ();
+	}
+
+	/**
+	 * This is updated every {@link #getSamplingTime()}
+	 */
+	public int getLastTimedOutCalls ()
+	{
+		ExecutionStats stats = this.lastStats;
+		return stats == null ? 0 : (int) stats.getTimedOutCalls ();
+	}
+
+	/**
+	 * The stats about the last completed sampling window, null if no window was completed yet. 
+	 * This is updated every {@link #getSamplingTime()}.
+	 */
+	public ExecutionStats getLastStats ()
+	{
+		return lastStats;
+	}
+	
+	/**
+	 * The latency at the given percentile (0-100) of the calls in the current sampling window, in ns.
+	 */
+	public long getCurrentLatencyPercentile ( double percentile )
+	{
+		return currentWindow.latencies.getPercentile ( percentile );
 	}
 
 	
@@ -149,7 +283,8 @@ public class StatsExecutor implements Executor
 	}
 
 	/**
-	 * Statistics are logged and then reset every this amount of time, in ms. 
+	 * Statistics are logged and then reset every this amount of time, in ms. A new value is used from the 
+	 * next window.
 	 */
 	public long getSamplingTime ()
 	{
@@ -160,5 +295,37 @@ public class StatsExecutor implements Executor
 	{
 		this.samplingTime = samplingTime;
 	}
-		
+
+	/**
+	 * If true, the stats aren't reset at the end of each window, ie, every {@link #getSamplingTime()} the sinks
+	 * receive the stats since the first call. Default is false.
+	 */
+	public boolean isCumulative ()
+	{
+		return isCumulative;
+	}
+
+	public StatsExecutor setCumulative ( boolean isCumulative )
+	{
+		this.isCumulative = isCumulative;
+		return this;
+	}
+
+	/**
+	 * Where the stats are sent at the end of each window. By default, this contains a {@link LoggingStatsSink}. 
+	 * The returned list is thread-safe and it can be modified directly.  
+	 */
+	public List<StatsSink> getStatsSinks ()
+	{
+		return statsSinks;
+	}
+	
+	/**
+	 * Adds a sink to {@link #getStatsSinks()}.
+	 */
+	public StatsExecutor addStatsSink ( StatsSink sink )
+	{
+		this.statsSinks.add ( sink );
+		return this;
+	}
 }
@@ -0,0 +1,17 @@
+package uk.ac.ebi.utils.runcontrol;
+
+/**
+ * A destination for the {@link ExecutionStats} that {@link StatsExecutor} produces at the end of each sampling 
+ * window. 
+ * 
+ * Implementations are invoked by a background thread and they should be quick and thread-safe.  
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+@FunctionalInterface
+public interface StatsSink
+{
+	public void record ( ExecutionStats stats );
+}
@@ -0,0 +1,127 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import uk.ac.ebi.utils.exceptions.UncheckedInterruptedException;
+import uk.ac.ebi.utils.threading.ThreadUtils;
+
+/**
+ * <p>An executor that bounds the time an action can take: the action is run on a worker thread and, if it 
+ * doesn't complete within {@link #getTimeout()}, the worker is interrupted and {@link ExecutionTimeoutException}
+ * is thrown to the caller. This prevents things like a hung socket read from blocking the caller forever.</p>
+ * 
+ * <p>Note that the interruption is only effective if the action reacts to it (eg, most blocking I/O and 
+ * {@link Thread#sleep(long)} do). If it doesn't, the worker keeps running the action, but the caller is released 
+ * anyway.</p>
+ * 
+ * <p>By default, the workers come from {@link ThreadUtils#getSharedWorkerExecutor()}, which uses virtual 
+ * threads when available. Timeouts are {@link #getTimedOutCalls() counted} and, when this executor is wrapped by
+ * {@link StatsExecutor} (eg, via {@link ChainExecutor}), they're reported separately from other failures.</p>
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class TimeoutExecutor implements Executor
+{
+	private long timeout;
+	private ExecutorService workerExecutor = ThreadUtils.getSharedWorkerExecutor ();
+	
+	private final LongAdder timedOutCalls = new LongAdder ();
+	
+	/**
+	 * @param timeout see {@link #getTimeout()}.
+	 */
+	public TimeoutExecutor ( long timeout )
+	{
+		setTimeout ( timeout );
+	}
+
+	/**
+	 * Runs the action on a worker and waits for its completion up to {@link #getTimeout()}. Exceptions thrown by 
+	 * the action are re-thrown as they are, if unchecked.
+	 * 
+	 * @throws ExecutionTimeoutException if the timeout expires.
+	 */
+	@Override
+	public void execute ( Runnable action )
+	{
+		Future<?> future;
+		try {
+			future = workerExecutor.submit ( action );
+		}
+		catch ( RejectedExecutionException ex ) {
+			throw new RejectedExecutionException ( "Can't run the action with timeout: " + ex.getMessage (), ex );
+		}
+		
+		try {
+			future.get ( timeout, TimeUnit.MILLISECONDS );
+		}
+		catch ( TimeoutException ex ) 
+		{
+			future.cancel ( true );
+			timedOutCalls.increment ();
+			throw new ExecutionTimeoutException ( "Action timed out after " + timeout + " ms" );
+		}
+		catch ( InterruptedException ex ) 
+		{
+			future.cancel ( true );
+			throw new UncheckedInterruptedException ( 
+				"Interrupted while waiting for an action with timeout: " + ex.getMessage (), ex 
+			);
+		}
+		catch ( ExecutionException ex ) 
+		{
+			// Runnable can only throw these
+			Throwable cause = ex.getCause ();
+			if ( cause instanceof Error ) throw (Error) cause;
+			throw (RuntimeException) cause;
+		}
+	}
+	
+	/**
+	 * The number of actions that didn't complete within the timeout.
+	 */
+	public long getTimedOutCalls ()
+	{
+		return timedOutCalls.sum ();
+	}
+
+	/**
+	 * The max time an action can run, in ms. This must be positive.
+	 */
+	public long getTimeout ()
+	{
+		return timeout;
+	}
+
+	public TimeoutExecutor setTimeout ( long timeout )
+	{
+		if ( timeout <= 0 ) throw new IllegalArgumentException ( 
+			"Invalid timeout " + timeout + ", it must be positive" 
+		);
+		this.timeout = timeout;
+		return this;
+	}
+
+	/**
+	 * Where the actions are run, see the class comment.
+	 */
+	public ExecutorService getWorkerExecutor ()
+	{
+		return workerExecutor;
+	}
+
+	public TimeoutExecutor setWorkerExecutor ( ExecutorService workerExecutor )
+	{
+		this.workerExecutor = workerExecutor;
+		return this;
+	}
+}
@@ -0,0 +1,172 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import java.util.concurrent.Executor;
+
+import uk.ac.ebi.utils.exceptions.UncheckedInterruptedException;
+
+/**
+ * <p>A token bucket rate limiter, which, unlike {@link RateLimitedExecutor}, can share its rate budget with 
+ * other limiters, including those in other processes, by means of a common {@link TokenBucketState}. For 
+ * instance, several loader JVMs on the same host can use a {@link MappedFileTokenBucketState} to call the same 
+ * service at the overall rate that the service supports.</p>
+ * 
+ * <p>The bucket is refilled at {@link #getRate()} tokens per second, up to {@link #getCapacity()}, which 
+ * is the max burst size. Each action takes one token and, if not enough tokens are available, it reserves them and 
+ * waits for the time needed to refill the missing ones (this is similar to Guava's RateLimiter).</p>
+ * 
+ * <p>All the limiters that share a state must use the same rate and capacity. Since the state is shared between 
+ * processes, the time is based on the wall clock, with ms precision.</p>
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class TokenBucketRateLimiter implements Executor
+{
+	private final TokenBucketState state;
+	private final double rate;
+	private final double capacity;
+
+	/**
+	 * @param requestsPerSecond see {@link #getRate()}.
+	 * @param capacity see {@link #getCapacity()}.
+	 * @param state see {@link #getState()}.
+	 */
+	public TokenBucketRateLimiter ( double requestsPerSecond, double capacity, TokenBucketState state )
+	{
+		if ( requestsPerSecond <= 0 ) throw new IllegalArgumentException ( 
+			"Invalid rate " + requestsPerSecond + " for TokenBucketRateLimiter, it must be > 0" 
+		);
+		if ( capacity < 1 ) throw new IllegalArgumentException ( 
+			"Invalid capacity " + capacity + " for TokenBucketRateLimiter, it must be >= 1" 
+		);
+		this.rate = requestsPerSecond;
+		this.capacity = capacity;
+		this.state = state;
+	}
+
+	/**
+	 * Defaults to a capacity of 1 second worth of tokens.
+	 */
+	public TokenBucketRateLimiter ( double requestsPerSecond, TokenBucketState state ) {
+		this ( requestsPerSecond, Math.max ( 1, requestsPerSecond ), state );
+	}
+
+	/**
+	 * Uses a private {@link InMemoryTokenBucketState}. 
+	 */
+	public TokenBucketRateLimiter ( double requestsPerSecond ) {
+		this ( requestsPerSecond, new InMemoryTokenBucketState () );
+	}
+	
+	
+	/**
+	 * Waits for a token and runs the action, like {@link RateLimitedExecutor#execute(Runnable)}.
+	 */
+	@Override
+	public void execute ( Runnable action )
+	{
+		acquire ();
+		action.run ();
+	}
+
+	/**
+	 * Waits for a permit.
+	 */
+	public void acquire ()
+	{
+		acquire ( 1 );
+	}
+
+	/**
+	 * Waits until the required permits are available.
+	 */
+	public void acquire ( int permits )
+	{
+		long waitTime = state.update ( values -> reserve ( values, permits, Long.MAX_VALUE ) );
+		sleep ( waitTime );
+	}
+
+	/**
+	 * Acquires the permits if they can be obtained within the timeout, waiting for them if necessary. 
+	 * If they can't, returns false immediately, without consuming any token.
+	 * 
+	 * @param timeout in ms.
+	 */
+	public boolean tryAcquire ( int permits, long timeout )
+	{
+		long waitTime = state.update ( values -> reserve ( values, permits, timeout ) );
+		if ( waitTime < 0 ) return false;
+		sleep ( waitTime );
+		return true;
+	}
+
+	/**
+	 * Refills the bucket and reserves the permits, if they're available within maxWaitTime.
+	 * 
+	 * @return the time to wait before the permits are available, in ms, or -1 if that's beyond maxWaitTime. 
+	 */
+	private long reserve ( TokenBucketState.Values values, int permits, long maxWaitTime )
+	{
+		long now = System.currentTimeMillis ();
+		
+		// A new state, start with a full bucket
+		if ( values.lastRefillTime == 0 ) {
+			values.tokens = capacity;
+			values.lastRefillTime = now;
+		}
+		
+		// The wall clock might go backward, eg, when it's adjusted
+		if ( now > values.lastRefillTime ) 
+		{
+			values.tokens = Math.min ( capacity, values.tokens + ( now - values.lastRefillTime ) * rate / 1000d );
+			values.lastRefillTime = now;
+		}
+		
+		double newTokens = values.tokens - permits;
+		long waitTime = newTokens >= 0 ? 0 : (long) Math.ceil ( -newTokens * 1000d / rate );
+		if ( waitTime > maxWaitTime ) return -1;
+		
+		values.tokens = newTokens;
+		return waitTime;
+	}
+	
+	private static void sleep ( long time )
+	{
+		if ( time <= 0 ) return;
+		try {
+			Thread.sleep ( time );
+		}
+		catch ( InterruptedException ex ) {
+			throw new UncheckedInterruptedException ( 
+				"Interrupted while waiting for a rate limiter permit: " + ex.getMessage (), ex 
+			);
+		}
+	}
+	
+	
+	/**
+	 * The rate at which tokens are added to the bucket, in tokens (ie, requests) per second.
+	 */
+	public double getRate ()
+	{
+		return rate;
+	}
+
+	/**
+	 * The max number of tokens in the bucket, ie, the max number of requests that can be run in a burst, after an 
+	 * idle period.
+	 */
+	public double getCapacity ()
+	{
+		return capacity;
+	}
+
+	/**
+	 * Where the bucket state is kept.
+	 */
+	public TokenBucketState getState ()
+	{
+		return state;
+	}
+}
@@ -0,0 +1,46 @@
+package uk.ac.ebi.utils.runcontrol;
+
+/**
+ * <p>The storage of the state of a {@link TokenBucketRateLimiter}, ie, the tokens available in the bucket and the 
+ * last time they were refilled.</p>
+ * 
+ * <p>This is an SPI to share the same bucket between different limiters, possibly in different processes, 
+ * so that they share the same rate budget. Implementations must guarantee that {@link #update(Operation)} is atomic 
+ * with respect to all the limiters that share the state.</p>
+ *
+ * @see InMemoryTokenBucketState
+ * @see MappedFileTokenBucketState
+ * 
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public interface TokenBucketState
+{
+	/**
+	 * The values that make a bucket state. A new state has both values set to 0.
+	 */
+	public static class Values
+	{
+		/** The available tokens, this can be negative, when permits were reserved in advance */
+		public double tokens = 0;
+		/** The last refill time, in ms since the epoch, since it must be comparable among different processes */
+		public long lastRefillTime = 0;
+	}
+	
+	/**
+	 * An operation over the state values, which changes them in place and returns some result.
+	 */
+	@FunctionalInterface
+	public static interface Operation 
+	{
+		public long apply ( Values values );
+	}
+	
+	/**
+	 * Reads the current values, passes them to the operation and saves the changed values, all atomically.
+	 * 
+	 * @return the operation result.
+	 */
+	public long update ( Operation operation );
+}
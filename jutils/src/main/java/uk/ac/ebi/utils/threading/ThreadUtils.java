@@ -1,6 +1,10 @@
 package uk.ac.ebi.utils.threading;
 
+import java.lang.reflect.InvocationTargetException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 
@@ -14,6 +18,32 @@ import com.google.common.util.concurrent.ThreadFactoryBuilder;
  */
 public class ThreadUtils
 {
+	/**
+	 * Lazy initialisation of {@link ThreadUtils#getSharedScheduler()}, via the holder idiom.
+	 */
+	private static class SharedSchedulerHolder
+	{
+		private static final ScheduledExecutorService INSTANCE;
+		
+		static 
+		{
+			ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor ( 
+				2, createDaemonThreadFactory ( "jutilsScheduler_" ) 
+			);
+			scheduler.setRemoveOnCancelPolicy ( true );
+			INSTANCE = Executors.unconfigurableScheduledExecutorService ( scheduler );
+		}
+	}
+	
+	/**
+	 * Lazy initialisation of {@link ThreadUtils#getSharedWorkerExecutor()}.
+	 */
+	private static class SharedWorkerExecutorHolder
+	{
+		private static final ExecutorService INSTANCE = 
+			Executors.unconfigurableExecutorService ( createWorkerExecutor ( "jutilsWorker_" ) );
+	}
+	
 	/**
 	 * A simple wrapper of {@link ThreadFactoryBuilder} that creates a {@link ThreadFactory} naming new threads like
 	 * `<prefix>%d`.
@@ -90,4 +120,59 @@ public class ThreadUtils
 		if ( !(executor instanceof ThreadPoolExecutor) ) return;
 		setNamingThreadFactory ( namingClass, (ThreadPoolExecutor) executor );
 	}
+
+	/**
+	 * Like {@link #createNamingThreadFactory(String)}, but the new threads are daemons, ie, they don't prevent the 
+	 * JVM from exiting. This is what you want for background housekeeping threads.
+	 */
+	public static ThreadFactory createDaemonThreadFactory ( String prefix )
+	{
+		return new ThreadFactoryBuilder ()
+			.setNameFormat ( prefix + "%d" )
+			.setDaemon ( true )
+			.build ();
+	}
+	
+	/**
+	 * <p>A scheduler that is shared by all the components in this library that need to run periodic or delayed
+	 * tasks (eg, time-based progress reports, statistics sampling), so that we don't spawn a thread per 
+	 * component instance.</p>
+	 * 
+	 * <p>The scheduler is created lazily, it has a small pool of daemon threads and it can't be shut down.
+	 * Hence, the tasks you submit here must be short and non-blocking. If they refer some object that might 
+	 * be abandoned by its user, they should do it via a weak reference and stop re-scheduling themselves 
+	 * when the reference is cleared, so that such objects can be garbage-collected.</p>
+	 */
+	public static ScheduledExecutorService getSharedScheduler ()
+	{
+		return SharedSchedulerHolder.INSTANCE;
+	}
+	
+	/**
+	 * <p>Creates an executor suitable for running blocking tasks (eg, remote calls) that need their own thread, 
+	 * like the actions of {@link uk.ac.ebi.utils.runcontrol.TimeoutExecutor}.</p>
+	 * 
+	 * <p>If the current JVM supports virtual threads (JDK &gt;= 21), this is 
+	 * {@code Executors.newVirtualThreadPerTaskExecutor()}, which we get via reflection, since we still compile for
+	 * JDK 11. Else, it's a cached thread pool of daemon threads, named after the prefix.</p>
+	 */
+	public static ExecutorService createWorkerExecutor ( String threadNamePrefix )
+	{
+		try {
+			return (ExecutorService) Executors.class.getMethod ( "newVirtualThreadPerTaskExecutor" ).invoke ( null );
+		}
+		catch ( NoSuchMethodException | IllegalAccessException | InvocationTargetException ex ) {
+			return Executors.newCachedThreadPool ( createDaemonThreadFactory ( threadNamePrefix ) );
+		}
+	}
+	
+	/**
+	 * An executor created by {@link #createWorkerExecutor(String)}, which is shared by the components in this 
+	 * library that need to run blocking tasks in background. Like {@link #getSharedScheduler()}, it is created 
+	 * lazily and you shouldn't shut it down.
+	 */
+	public static ExecutorService getSharedWorkerExecutor ()
+	{
+		return SharedWorkerExecutorHolder.INSTANCE;
+	}
 }
@@ -0,0 +1,82 @@
+package uk.ac.ebi.utils.collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link ConcurrentObjectStore}.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class ConcurrentObjectStoreTest
+{
+	@Test
+	public void testBasics ()
+	{
+		ConcurrentObjectStore<String, Integer, String> store = new ConcurrentObjectStore<> ();
+		store.put ( "type1", 1, "Object 1.1" );
+		store.put ( "type1", 2, "Object 1.2" );
+		store.put ( "type2", 1, "Object 2.1" );
+		assertEquals ( "Wrong size!", 3, store.size () );
+		assertEquals ( "Wrong value!", "Object 1.2", store.get ( "type1", 2 ) );
+
+		store.put ( "type1", 2, "New Object 1.2" );
+		assertEquals ( "Wrong size after replacement!", 3, store.size () );
+
+		assertEquals ( "putIfAbsent() replaced a value!", "Object 1.1", store.putIfAbsent ( "type1", 1, "foo" ) );
+		assertNull ( "putIfAbsent() didn't add a value!", store.putIfAbsent ( "type1", 3, "Object 1.3" ) );
+		assertEquals ( "Wrong size after putIfAbsent()!", 4, store.size () );
+
+		store.put ( "type1", 1, null );
+		store.put ( "type1", 1, null );
+		store.put ( "type3", 1, null );
+		assertNull ( "Value not removed!", store.get ( "type1", 1 ) );
+		assertEquals ( "Wrong size after removal!", 3, store.size () );
+
+		store.remove ( "type1" );
+		assertEquals ( "Wrong size after type removal!", 1, store.size () );
+		assertEquals ( "Wrong values after type removal!", 0, store.values ( "type1" ).size () );
+	}
+
+	@Test
+	public void testGetOrCreate () throws Exception
+	{
+		ConcurrentObjectStore<String, Integer, Object> store = new ConcurrentObjectStore<> ();
+		AtomicInteger creations = new AtomicInteger ();
+
+		ExecutorService executor = Executors.newFixedThreadPool ( 8 );
+		List<Future<?>> results = new ArrayList<> ();
+		for ( int i = 0; i < 100000; i++ )
+		{
+			String type = "type" + ( i % 3 );
+			int key = i % 1000;
+			results.add ( executor.submit ( () -> {
+				Object obj = store.getOrCreate ( type, key, k -> {
+					creations.incrementAndGet ();
+					return new Object ();
+				});
+				assertSame ( "Object created twice!", obj, store.get ( type, key ) );
+			}));
+		}
+		executor.shutdown ();
+		executor.awaitTermination ( 1, TimeUnit.MINUTES );
+		for ( Future<?> result: results ) result.get ();
+
+		assertEquals ( "Wrong number of creations!", 3000, creations.get () );
+		assertEquals ( "Wrong size!", 3000, store.size () );
+		assertEquals ( "Wrong types!", 3, store.types ().size () );
+	}
+}
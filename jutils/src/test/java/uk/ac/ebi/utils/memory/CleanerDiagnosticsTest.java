@@ -0,0 +1,83 @@
+package uk.ac.ebi.utils.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.lang.ref.Cleaner.Cleanable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link CleanerDiagnostics} and the shared cleaner in {@link MemoryUtils}.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class CleanerDiagnosticsTest
+{
+	@Before
+	public void enable ()
+	{
+		CleanerDiagnostics.reset ();
+		CleanerDiagnostics.setEnabled ( true, true );
+	}
+
+	@After
+	public void disable ()
+	{
+		CleanerDiagnostics.setEnabled ( false, false );
+		CleanerDiagnostics.reset ();
+	}
+
+
+	@Test
+	public void testSharedCleaner ()
+	{
+		assertSame ( "Cleaner not shared!", MemoryUtils.getSharedCleaner (), MemoryUtils.getSharedCleaner () );
+	}
+
+	@Test
+	public void testDiagnostics () throws InterruptedException
+	{
+		AtomicInteger cleanings = new AtomicInteger ();
+
+		Object[] closedObjects = new Object [ 10 ];
+		for ( int i = 0; i < closedObjects.length; i++ )
+		{
+			closedObjects [ i ] = new Object ();
+			Cleanable cleanable = MemoryUtils.registerCleaner ( closedObjects [ i ], cleanings::incrementAndGet );
+			cleanable.clean ();
+			// Idempotent
+			cleanable.clean ();
+		}
+
+		// These are lost without closing them
+		for ( int i = 0; i < 5; i++ )
+			MemoryUtils.registerCleaner ( new Object (), cleanings::incrementAndGet );
+
+		for ( int i = 0; i < 50 && CleanerDiagnostics.getGcCleaned () < 5; i++ )
+		{
+			System.gc ();
+			Thread.sleep ( 100 );
+		}
+
+		assertEquals ( "Wrong registered count!", 15, CleanerDiagnostics.getRegistered () );
+		assertEquals ( "Wrong closed count!", 10, CleanerDiagnostics.getClosed () );
+		assertEquals ( "Wrong GC-cleaned count!", 5, CleanerDiagnostics.getGcCleaned () );
+		assertEquals ( "Wrong pending count!", 0, CleanerDiagnostics.getPending () );
+		assertEquals ( "Wrong cleaning actions count!", 15, cleanings.get () );
+	}
+
+	@Test
+	public void testCleaningObjectsNotTracked ()
+	{
+		try ( CleaningObject obj = new CleaningObject () ) {
+			assertEquals ( "CleaningObject tracked!", 0, CleanerDiagnostics.getRegistered () );
+		}
+		assertEquals ( "CleaningObject pending!", 0, CleanerDiagnostics.getPending () );
+	}
+}
@@ -0,0 +1,139 @@
+package uk.ac.ebi.utils.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.google.common.cache.CacheStats;
+
+/**
+ * Tests {@link ManagedCache}.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class ManagedCacheTest
+{
+	private final AtomicInteger loads = new AtomicInteger ();
+	
+	private String load ( String key )
+	{
+		loads.incrementAndGet ();
+		try {
+			Thread.sleep ( 100 );
+		}
+		catch ( InterruptedException ex ) {
+			throw new RuntimeException ( ex );
+		}
+		return "nil".equals ( key ) ? null : key.toUpperCase ();
+	}
+	
+	@Test
+	public void testLoaderAndStats () throws Exception
+	{
+		ManagedCache<String, String> cache = ManagedCache.<String, String>builder ()
+			.maximumSize ( 100 )
+			.build ( this::load );
+		
+		ExecutorService executor = Executors.newFixedThreadPool ( 5 );
+		List<CompletableFuture<String>> results = new ArrayList<> ();
+		for ( int i = 0; i < 5; i++ )
+			results.add ( CompletableFuture.supplyAsync ( () -> cache.get ( "a" ), executor ) );
+		for ( CompletableFuture<String> result: results )
+			assertEquals ( "Wrong value!", "A", result.get ( 5, TimeUnit.SECONDS ) );
+		executor.shutdown ();
+		
+		assertEquals ( "Concurrent loads not de-duplicated!", 1, loads.get () );
+		
+		assertNull ( "Null value not returned!", cache.get ( "nil" ) );
+		assertNull ( "Null value cached!", cache.getIfPresent ( "nil" ) );
+		
+		// getIfPresent() counts too
+		CacheStats stats = cache.getStats ();
+		assertEquals ( "Wrong no. of requests!", 7, stats.requestCount () );
+		assertEquals ( "Wrong no. of misses!", 2, stats.loadCount () );
+	}
+	
+	@Test
+	public void testWeightAndEviction ()
+	{
+		AtomicInteger evictions = new AtomicInteger ();
+		ManagedCache<Integer, String> cache = ManagedCache.<Integer, String>builder ()
+			.maximumWeight ( 100, ( k, v ) -> v.length () )
+			.evictionListener ( ( k, v ) -> evictions.incrementAndGet () )
+			.build ();
+		
+		for ( int i = 0; i < 20; i++ ) cache.put ( i, "0123456789" );
+		cache.cleanUp ();
+		
+		assertTrue ( "Weight limit not respected!", cache.size () <= 10 );
+		assertEquals ( "Wrong evictions count!", 20 - cache.size (), evictions.get () );
+		assertEquals ( "Stats evictions don't match!", evictions.get (), cache.getStats ().evictionCount () );
+		
+		// Per-call loader
+		assertEquals ( "Per-call loader not used!", "X", cache.get ( 100, k -> "X" ) );
+	}
+
+	@Test
+	public void testExpirationAndRefresh () throws Exception
+	{
+		ManagedCache<String, String> cache = ManagedCache.<String, String>builder ()
+			.expireAfterWrite ( 200 )
+			.build ( this::load );
+		cache.get ( "a" );
+		Thread.sleep ( 300 );
+		assertNull ( "Value not expired!", cache.getIfPresent ( "a" ) );
+		
+		AtomicInteger version = new AtomicInteger ();
+		ManagedCache<String, String> refreshingCache = ManagedCache.<String, String>builder ()
+			.refreshAfterWrite ( 100 )
+			.build ( k -> load ( k ) + version.incrementAndGet () );
+		
+		assertEquals ( "Wrong initial value!", "A1", refreshingCache.get ( "a" ) );
+		Thread.sleep ( 200 );
+		// Triggers the refresh, but returns the old value
+		assertEquals ( "Old value not returned during refresh!", "A1", refreshingCache.get ( "a" ) );
+		Thread.sleep ( 300 );
+		assertEquals ( "Value not refreshed!", "A2", refreshingCache.getIfPresent ( "a" ) );
+	}
+	
+	@Test
+	public void testStatsListener () throws Exception
+	{
+		AtomicReference<CacheStats> lastStats = new AtomicReference<> ();
+		ManagedCache<String, String> cache = ManagedCache.<String, String>builder ()
+			.statsListener ( lastStats::set, 100 )
+			.build ( String::toUpperCase );
+		cache.get ( "a" ); cache.get ( "a" );
+		Thread.sleep ( 300 );
+		
+		assertEquals ( "Stats not reported!", 1, lastStats.get ().hitCount () );
+	}
+	
+	@Test ( expected = IllegalArgumentException.class )
+	public void testInvalidStatsListenerPeriod ()
+	{
+		ManagedCache.<String, String>builder ().statsListener ( stats -> {}, 0 );
+	}
+
+	@Test ( expected = IllegalArgumentException.class )
+	public void testSizeAndWeightLimits ()
+	{
+		ManagedCache.<String, String>builder ()
+			.maximumSize ( 100 )
+			.maximumWeight ( 1000, ( k, v ) -> v.length () )
+			.build ();
+	}
+}
@@ -0,0 +1,77 @@
+package uk.ac.ebi.utils.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link MemoryChecker}.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class MemoryCheckerTest
+{
+	@Test
+	public void testCheckPeriod () throws InterruptedException
+	{
+		AtomicInteger calls = new AtomicInteger ();
+		// Always below the threshold
+		MemoryChecker checker = new MemoryChecker ( calls::incrementAndGet, 1.1 )
+			.setCheckPeriod ( 60000 )
+			.setExecutor ( Runnable::run );
+
+		ExecutorService executor = Executors.newFixedThreadPool ( 4 );
+		for ( int i = 0; i < 10000; i++ ) executor.submit ( checker::check );
+		executor.shutdown ();
+		executor.awaitTermination ( 1, TimeUnit.MINUTES );
+
+		assertEquals ( "Cleaning not rate-limited!", 1, calls.get () );
+		assertEquals ( "Wrong cleanings count!", 1, checker.getCleanings () );
+		assertTrue ( "Wrong free memory ratio!", checker.getLastFreeMemoryRatio () < 1.1 );
+	}
+
+	@Test
+	public void testSingleCleaning () throws InterruptedException
+	{
+		CountDownLatch release = new CountDownLatch ( 1 );
+		MemoryChecker checker = new MemoryChecker ( () -> {
+			try {
+				release.await ();
+			}
+			catch ( InterruptedException ex ) {
+				throw new RuntimeException ( ex );
+			}
+		}, 1.1 ).setCheckPeriod ( 0 );
+
+		assertTrue ( "Cleaning not started!", checker.check () );
+		assertTrue ( "Cleaning not running!", checker.isCleaning () );
+		Thread.sleep ( 10 );
+		assertFalse ( "Cleaning started twice!", checker.check () );
+
+		release.countDown ();
+		Thread.sleep ( 200 );
+		assertFalse ( "Cleaning still running!", checker.isCleaning () );
+		assertEquals ( "Wrong cleanings count!", 1, checker.getCleanings () );
+		Thread.sleep ( 10 );
+		assertTrue ( "Cleaning not restarted!", checker.check () );
+	}
+
+	@Test
+	public void testEnoughMemory ()
+	{
+		AtomicInteger calls = new AtomicInteger ();
+		MemoryChecker checker = new MemoryChecker ( calls::incrementAndGet, 0 ).setCheckPeriod ( 0 );
+		assertFalse ( "Cleaning started with enough memory!", checker.check () );
+		assertEquals ( "Cleaning invoked with enough memory!", 0, calls.get () );
+	}
+}
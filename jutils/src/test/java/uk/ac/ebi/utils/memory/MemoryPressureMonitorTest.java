@@ -0,0 +1,84 @@
+package uk.ac.ebi.utils.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link MemoryPressureMonitor}.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class MemoryPressureMonitorTest
+{
+	@Test
+	public void testThreshold ()
+	{
+		MemoryPressureMonitor monitor = MemoryPressureMonitor.getInstance ();
+		assertTrue ( "Usage thresholds not supported!", monitor.isSupported () );
+
+		try
+		{
+			monitor.setThreshold ( 0.9 );
+			for ( MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans () )
+			{
+				if ( pool.getType () != MemoryType.HEAP || pool.getUsage ().getMax () <= 0 ) continue;
+				long expected = (long) ( pool.getUsage ().getMax () * 0.9 );
+				if ( pool.isCollectionUsageThresholdSupported () )
+					assertEquals ( "Collection threshold not set!", expected, pool.getCollectionUsageThreshold () );
+				else if ( pool.isUsageThresholdSupported () )
+					assertEquals ( "Usage threshold not set!", expected, pool.getUsageThreshold () );
+			}
+		}
+		finally {
+			monitor.setThreshold ( MemoryPressureMonitor.DEFAULT_THRESHOLD );
+		}
+	}
+
+	@Test
+	public void testRegistration () throws InterruptedException
+	{
+		MemoryPressureMonitor monitor = MemoryPressureMonitor.getInstance ();
+
+		AtomicInteger owner = new AtomicInteger ();
+		CountDownLatch latch = new CountDownLatch ( 1 );
+		monitor.register ( owner, ( o, usedRatio ) -> {
+			o.incrementAndGet ();
+			latch.countDown ();
+		});
+
+		long events = monitor.getPressureEvents ();
+		monitor.firePressure ( 0.85 );
+		assertTrue ( "Shrinking action not invoked!", latch.await ( 5, TimeUnit.SECONDS ) );
+		assertEquals ( "Wrong owner state!", 1, owner.get () );
+		assertEquals ( "Wrong events count!", events + 1, monitor.getPressureEvents () );
+
+		monitor.unregister ( owner );
+		monitor.firePressure ( 0.85 );
+		Thread.sleep ( 200 );
+		assertEquals ( "Unregistered action invoked!", 1, owner.get () );
+	}
+
+	@Test
+	public void testManagedCache () throws InterruptedException
+	{
+		ManagedCache<Integer, String> cache = ManagedCache.<Integer, String>builder ()
+			.shrinkOnMemoryPressure ( 0.5 )
+			.build ();
+		for ( int i = 0; i < 100; i++ ) cache.put ( i, "Value " + i );
+
+		MemoryPressureMonitor.getInstance ().firePressure ( 0.85 );
+		Thread.sleep ( 200 );
+		assertEquals ( "Cache not shrunk!", 50, cache.size () );
+	}
+}
@@ -0,0 +1,113 @@
+package uk.ac.ebi.utils.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link ObjectSizeEstimator}.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class ObjectSizeEstimatorTest
+{
+	@SuppressWarnings ( "unused" )
+	private static class Node
+	{
+		private long id;
+		private int value;
+		private Node next;
+		private String label;
+	}
+
+
+	@Test
+	public void testShallowSize ()
+	{
+		ObjectSizeEstimator estimator = new ObjectSizeEstimator ();
+		long refSize = ObjectSizeEstimator.REFERENCE_SIZE;
+
+		assertEquals ( "Wrong Object size!", 16, estimator.shallowSizeOf ( new Object () ) );
+		assertTrue ( "Wrong int[] size!", estimator.shallowSizeOf ( new int [ 100 ] ) >= 400 );
+		assertTrue ( "Wrong Object[] size!", estimator.shallowSizeOf ( new Object [ 100 ] ) >= 100 * refSize );
+
+		long nodeSize = estimator.shallowSizeOf ( new Node () );
+		assertTrue ( "Wrong Node size!", nodeSize >= 8 + 4 + 2 * refSize );
+		assertEquals ( "Node size not aligned!", 0, nodeSize % 8 );
+	}
+
+	@Test
+	public void testDeepSize ()
+	{
+		ObjectSizeEstimator estimator = new ObjectSizeEstimator ();
+
+		Node n1 = new Node (), n2 = new Node ();
+		n1.next = n2;
+		n2.next = n1; // cycles are fine
+		n1.label = n2.label = "A shared label";
+
+		long nodeSize = estimator.shallowSizeOf ( n1 );
+		long labelSize = estimator.deepSizeOf ( n1.label );
+		assertEquals ( "Wrong deep size!", 2 * nodeSize + labelSize, estimator.deepSizeOf ( n1 ) );
+
+		assertEquals ( "Enum counted!", 0, estimator.deepSizeOf ( TimeUnit.SECONDS ) );
+		assertTrue ( "Wrong String size!",
+			estimator.deepSizeOf ( "0123456789" ) < estimator.deepSizeOf ( "01234567890123456789" )
+		);
+	}
+
+	@Test
+	public void testCollections ()
+	{
+		ObjectSizeEstimator estimator = new ObjectSizeEstimator ();
+
+		List<String> list = new ArrayList<> ();
+		for ( int i = 0; i < 100; i++ ) list.add ( "Value " + ( 1000 + i ) );
+		long elemSize = estimator.deepSizeOf ( list.get ( 0 ) );
+		assertTrue ( "List size too small!", estimator.deepSizeOf ( list ) > 100 * elemSize );
+
+		Map<String, List<String>> map = new HashMap<> ();
+		map.put ( "key", list );
+		assertTrue ( "Map size too small!", estimator.deepSizeOf ( map ) > estimator.deepSizeOf ( list ) );
+	}
+
+	@Test
+	public void testSampling ()
+	{
+		List<String> list = new ArrayList<> ();
+		for ( int i = 0; i < 100000; i++ ) list.add ( "Value " + ( 1000000 + i ) );
+
+		long fullSize = new ObjectSizeEstimator ().setSampleThreshold ( Integer.MAX_VALUE ).deepSizeOf ( list );
+		long sampledSize = new ObjectSizeEstimator ().deepSizeOf ( list );
+		assertTrue ( "Sampled size is too different!", Math.abs ( fullSize - sampledSize ) < 0.05 * fullSize );
+
+		Object[] array = list.toArray ();
+		fullSize = new ObjectSizeEstimator ().setSampleThreshold ( Integer.MAX_VALUE ).deepSizeOf ( array );
+		sampledSize = new ObjectSizeEstimator ().deepSizeOf ( array );
+		assertTrue ( "Sampled array size is too different!", Math.abs ( fullSize - sampledSize ) < 0.05 * fullSize );
+	}
+
+	@Test
+	public void testSizers ()
+	{
+		ObjectSizeEstimator estimator = new ObjectSizeEstimator ()
+			.addSizer ( Node.class, n -> 1000 );
+
+		Node node = new Node ();
+		node.label = "This isn't counted";
+		List<Node> list = List.of ( node );
+		assertEquals (
+			"Sizer not used!", estimator.shallowSizeOf ( list ) + ObjectSizeEstimator.REFERENCE_SIZE + 1000,
+			estimator.deepSizeOf ( list )
+		);
+	}
+}
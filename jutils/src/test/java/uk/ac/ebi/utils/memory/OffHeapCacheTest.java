@@ -0,0 +1,105 @@
+package uk.ac.ebi.utils.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+/**
+ * Tests {@link OffHeapCache}.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class OffHeapCacheTest
+{
+	@Test
+	public void testBasics () throws Exception
+	{
+		try ( OffHeapCache<Integer, String> cache = 
+			OffHeapCache.<Integer, String>builder ( ByteSerializer.stringSerializer () ).build () )
+		{
+			for ( int i = 0; i < 1000; i++ ) cache.put ( i, "Value " + i );
+			for ( int i = 0; i < 1000; i++ ) assertEquals ( "Wrong value!", "Value " + i, cache.get ( i ) );
+			
+			assertNull ( "Non-existing key returns a value!", cache.get ( -1 ) );
+			
+			cache.put ( 1, "New Value" );
+			assertEquals ( "Value not replaced!", "New Value", cache.get ( 1 ) );
+			cache.remove ( 2 );
+			assertNull ( "Value not removed!", cache.get ( 2 ) );
+			
+			assertEquals ( "Wrong size!", 999, cache.size () );
+			assertEquals ( "Wrong hits!", 1001, cache.getHits () );
+			assertEquals ( "Wrong misses!", 2, cache.getMisses () );
+		}
+	}
+	
+	@Test
+	public void testEviction () throws Exception
+	{
+		try ( OffHeapCache<Integer, String> cache = 
+			OffHeapCache.<Integer, String>builder ( ByteSerializer.stringSerializer () )
+				.slabSize ( 1000 )
+				.maxBytes ( 10000 )
+				.build () 
+		)
+		{
+			String value = StringUtils.repeat ( 'x', 100 );
+			cache.put ( -1, "Hot Value" );
+			for ( int i = 0; i < 1000; i++ ) 
+			{
+				cache.put ( i, value );
+				// Keep it referenced, so that it survives
+				assertEquals ( "Hot value evicted!", "Hot Value", cache.get ( -1 ) );
+			}
+			
+			assertTrue ( "Size limit not respected!", cache.getUsedBytes () <= cache.getMaxBytes () );
+			assertTrue ( "No eviction!", cache.getEvictions () > 0 );
+			assertNull ( "Old value not evicted!", cache.get ( 0 ) );
+			assertEquals ( "Recent value evicted!", value, cache.get ( 999 ) );
+		}
+	}
+	
+	@Test ( expected = IllegalArgumentException.class )
+	public void testValueTooBig () throws Exception
+	{
+		try ( OffHeapCache<Integer, String> cache = 
+			OffHeapCache.<Integer, String>builder ( ByteSerializer.stringSerializer () ).slabSize ( 10 ).build () )
+		{
+			cache.put ( 1, "This is a long value" );
+		}
+	}
+
+	@Test
+	public void testMappedFileAndHotTier () throws Exception
+	{
+		Path path = Files.createTempFile ( "off-heap-cache-test-", ".bin" );
+		OffHeapCache<String, Integer> cache = 
+			OffHeapCache.<String, Integer>builder ( ByteSerializer.javaSerializer () )
+				.mappedFile ( path )
+				.slabSize ( 1 << 16 )
+				.maxBytes ( 1 << 20 )
+				.hotTierSize ( 10 )
+				.build ();
+		
+		for ( int i = 0; i < 1000; i++ ) cache.put ( "key" + i, i );
+		for ( int j = 0; j < 2; j++ )
+			for ( int i = 0; i < 1000; i++ ) assertEquals ( "Wrong value!", i, (int) cache.get ( "key" + i ) );
+
+		// Hot tier values are updated
+		assertEquals ( "Wrong hot value!", 999, (int) cache.get ( "key999" ) );
+		cache.put ( "key999", -1 );
+		assertEquals ( "Hot value not updated!", -1, (int) cache.get ( "key999" ) );
+		
+		cache.close ();
+		assertFalse ( "Mapped file not deleted!", Files.exists ( path ) );
+	}
+}
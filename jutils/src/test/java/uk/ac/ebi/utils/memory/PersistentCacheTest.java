@@ -0,0 +1,189 @@
+package uk.ac.ebi.utils.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link PersistentCache}.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class PersistentCacheTest
+{
+	private Path cacheDir;
+
+	@Before
+	public void createDir () throws IOException
+	{
+		cacheDir = Files.createTempDirectory ( "persistent-cache-test" );
+	}
+
+	@After
+	public void deleteDir () throws IOException
+	{
+		try ( Stream<Path> paths = Files.walk ( cacheDir ) ) {
+			paths.sorted ( Comparator.reverseOrder () ).forEach ( p -> p.toFile ().delete () );
+		}
+	}
+
+
+	@Test
+	public void testBasics () throws Exception
+	{
+		try ( PersistentCache<String, String> cache = newCache ( 0.5 ) )
+		{
+			// Enough to resize the index
+			for ( int i = 0; i < 10000; i++ ) cache.put ( "key" + i, "Value " + i );
+			for ( int i = 0; i < 10000; i++ ) assertEquals ( "Wrong value!", "Value " + i, cache.get ( "key" + i ) );
+
+			assertNull ( "Non-existing key returns a value!", cache.get ( "foo" ) );
+
+			cache.put ( "key1", "New Value" );
+			assertEquals ( "Value not replaced!", "New Value", cache.get ( "key1" ) );
+			cache.remove ( "key2" );
+			assertNull ( "Value not removed!", cache.get ( "key2" ) );
+
+			assertEquals ( "Wrong size!", 9999, cache.size () );
+			assertEquals ( "Wrong hits!", 10001, cache.getHits () );
+			assertEquals ( "Wrong misses!", 2, cache.getMisses () );
+		}
+	}
+
+	@Test
+	public void testReopening () throws Exception
+	{
+		try ( PersistentCache<String, String> cache = newCache ( 0.5 ) )
+		{
+			for ( int i = 0; i < 100; i++ ) cache.put ( "key" + i, "Value " + i );
+			cache.remove ( "key0" );
+		}
+
+		try ( PersistentCache<String, String> cache = newCache ( 0.5 ) )
+		{
+			assertEquals ( "Wrong size after reopening!", 99, cache.size () );
+			assertNull ( "Removed value is back!", cache.get ( "key0" ) );
+			for ( int i = 1; i < 100; i++ )
+				assertEquals ( "Wrong value after reopening!", "Value " + i, cache.get ( "key" + i ) );
+		}
+	}
+
+	@Test
+	public void testRecovery () throws Exception
+	{
+		try ( PersistentCache<String, String> cache = newCache ( 0.5 ) ) {
+			for ( int i = 0; i < 100; i++ ) cache.put ( "key" + i, "Value " + i );
+			cache.remove ( "key0" );
+		}
+
+		// Simulate a crash during the last write: a torn record and an index that wasn't cleanly closed
+		Path logPath = cacheDir.resolve ( "cache.log" );
+		try ( FileChannel log = FileChannel.open ( logPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND ) ) {
+			log.write ( ByteBuffer.wrap ( new byte[] { 0, 0, 0, 5, 0, 0 } ) );
+		}
+		long tornLength = Files.size ( logPath );
+		try ( FileChannel idx = FileChannel.open ( cacheDir.resolve ( "cache.idx" ), StandardOpenOption.WRITE ) ) {
+			idx.write ( ByteBuffer.wrap ( new byte[] { 0, 0, 0, 0 } ), 4 );
+		}
+
+		try ( PersistentCache<String, String> cache = newCache ( 0.5 ) )
+		{
+			assertEquals ( "Torn record not truncated!", tornLength - 6, cache.getLogLength () );
+			assertEquals ( "Wrong size after recovery!", 99, cache.size () );
+			assertNull ( "Removed value is back!", cache.get ( "key0" ) );
+			for ( int i = 1; i < 100; i++ )
+				assertEquals ( "Wrong value after recovery!", "Value " + i, cache.get ( "key" + i ) );
+
+			cache.put ( "key100", "Value 100" );
+			assertEquals ( "Can't write after recovery!", "Value 100", cache.get ( "key100" ) );
+		}
+	}
+
+	@Test
+	public void testCompaction () throws Exception
+	{
+		String value = StringUtils.repeat ( 'x', 1000 );
+		try ( PersistentCache<String, String> cache = newCache ( 0.5 ) )
+		{
+			// Same keys overridden, makes garbage
+			for ( int round = 0; round < 20; round++ )
+				for ( int i = 0; i < 100; i++ ) cache.put ( "key" + i, value + round );
+
+			assertTrue ( "No compaction!", cache.getLogLength () < 20 * 100 * 1000 );
+			assertTrue ( "Too much garbage!", cache.getGarbageBytes () <= 0.5 * cache.getLogLength () );
+
+			cache.compact ();
+			assertEquals ( "Garbage left after compaction!", 0, cache.getGarbageBytes () );
+			assertEquals ( "Wrong size after compaction!", 100, cache.size () );
+			for ( int i = 0; i < 100; i++ )
+				assertEquals ( "Wrong value after compaction!", value + 19, cache.get ( "key" + i ) );
+		}
+
+		try ( PersistentCache<String, String> cache = newCache ( 0.5 ) ) {
+			assertEquals ( "Wrong value after compaction and reopening!", value + 19, cache.get ( "key99" ) );
+		}
+	}
+
+	@Test
+	public void testClear () throws Exception
+	{
+		try ( PersistentCache<String, String> cache = newCache ( 0.5 ) )
+		{
+			for ( int i = 0; i < 100; i++ ) cache.put ( "key" + i, "Value " + i );
+			cache.clear ();
+			assertEquals ( "Cache not cleared!", 0, cache.size () );
+			assertNull ( "Value survived clear()!", cache.get ( "key1" ) );
+			cache.put ( "key1", "New Value" );
+			assertEquals ( "Can't write after clear()!", "New Value", cache.get ( "key1" ) );
+		}
+	}
+
+	@Test
+	public void testDirectoryLock () throws Exception
+	{
+		try ( PersistentCache<String, String> cache = newCache ( 0.5 ) )
+		{
+			cache.put ( "key1", "Value 1" );
+			try {
+				newCache ( 0.5 ).close ();
+				fail ( "The same directory was opened twice!" );
+			}
+			catch ( IllegalStateException ex ) {
+				// Expected
+			}
+			assertEquals ( "The rejected instance affected the cache!", "Value 1", cache.get ( "key1" ) );
+		}
+
+		try ( PersistentCache<String, String> cache = newCache ( 0.5 ) ) {
+			assertEquals ( "Can't reopen after close()!", "Value 1", cache.get ( "key1" ) );
+		}
+	}
+
+
+	private PersistentCache<String, String> newCache ( double compactionThreshold )
+	{
+		return PersistentCache.builder (
+			cacheDir, ByteSerializer.stringSerializer (), ByteSerializer.stringSerializer ()
+		)
+		.compactionThreshold ( compactionThreshold )
+		.minCompactionSize ( 100000 )
+		.build ();
+	}
+}
@@ -0,0 +1,60 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.ac.ebi.utils.runcontrol.StatsExecutorTest.Tester;
+import uk.ac.ebi.utils.time.XStopWatch;
+
+/**
+ * Tests {@link AdaptiveRateExecutor}.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class AdaptiveRateExecutorTest
+{
+	private Logger log = LoggerFactory.getLogger ( this.getClass () );
+
+	private void runCalls ( AdaptiveRateExecutor executor, Tester tester, long time )
+	{
+		XStopWatch timer = new XStopWatch ();
+		for ( timer.start (); timer.getTime () < time; )
+		{
+			try {
+				executor.execute ( tester );
+			}
+			catch ( RuntimeException ex ) {
+				// Failed on purpose, ignore
+			}
+		}
+	}
+	
+	@Test
+	public void testAIMD ()
+	{
+		AdaptiveRateExecutor executor = new AdaptiveRateExecutor ( 100, 10, 200, 100 )
+			.setRateIncrement ( 20 );
+		
+		// The service is down, the rate should drop to the floor
+		Tester tester = new Tester ();
+		tester.failRate = 1;
+		runCalls ( executor, tester, 1500 );
+		
+		double troubleRate = executor.getRate ();
+		log.info ( "Rate after failures: {}", troubleRate );
+		Assert.assertEquals ( "Rate didn't fall to the floor!", 10, troubleRate, 0.5 );
+		
+		// Then it recovers
+		tester.failRate = -1;
+		runCalls ( executor, tester, 1500 );
+		
+		double recoveredRate = executor.getRate ();
+		log.info ( "Rate after recovery: {}", recoveredRate );
+		Assert.assertTrue ( "Rate didn't increase!", recoveredRate >= 30 );
+		Assert.assertTrue ( "Rate went beyond the ceiling!", recoveredRate <= 200 );
+	}
+}
@@ -0,0 +1,38 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import uk.ac.ebi.utils.runcontrol.AimdController.Decision;
+
+/**
+ * Tests {@link AimdController}.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class AimdControllerTest
+{
+	@Test
+	public void testDecisions ()
+	{
+		AimdController aimd = new AimdController ( 2.0 );
+
+		assertEquals ( "Wrong decision for no calls!", Decision.KEEP, aimd.update ( 0, 0, false, true ) );
+		assertEquals ( "Wrong decision for few calls!", Decision.INCREASE, aimd.update ( 5, 5000, false, true ) );
+		assertEquals ( "Baseline set with few calls!", -1, aimd.getLongTermLatency (), 0 );
+
+		assertEquals ( "Wrong decision for good period!", Decision.KEEP, aimd.update ( 10, 10000, false, false ) );
+		assertEquals ( "Baseline not set!", 1000, aimd.getLongTermLatency (), 0 );
+
+		assertEquals ( "Wrong decision for failures!", Decision.DECREASE, aimd.update ( 10, 10000, true, true ) );
+		assertEquals ( "Wrong decision for slow calls!", Decision.DECREASE, aimd.update ( 10, 30000, false, true ) );
+		assertEquals ( "Baseline updated with bad periods!", 1000, aimd.getLongTermLatency (), 0 );
+		assertEquals ( "Wrong last latency!", 3000, aimd.getLastLatency (), 0 );
+
+		assertEquals ( "Wrong decision for good period!", Decision.INCREASE, aimd.update ( 10, 20000, false, true ) );
+		assertEquals ( "Baseline not updated!", 1100, aimd.getLongTermLatency (), 1E-6 );
+	}
+}
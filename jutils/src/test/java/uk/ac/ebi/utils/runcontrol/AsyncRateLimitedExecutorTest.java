@@ -0,0 +1,96 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.ac.ebi.utils.runcontrol.AsyncRateLimitedExecutor.OverflowPolicy;
+import uk.ac.ebi.utils.time.XStopWatch;
+
+/**
+ * Tests {@link AsyncRateLimitedExecutor}.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class AsyncRateLimitedExecutorTest
+{
+	private Logger log = LoggerFactory.getLogger ( this.getClass () );
+
+	@Test
+	public void testRate () throws Exception
+	{
+		AsyncRateLimitedExecutor executor = new AsyncRateLimitedExecutor ( 20 );
+		AtomicInteger calls = new AtomicInteger ();
+		
+		XStopWatch timer = new XStopWatch ();
+		timer.start ();
+		
+		List<CompletableFuture<Integer>> results = new ArrayList<> ();
+		for ( int i = 0; i < 21; i++ )
+			results.add ( executor.supply ( calls::incrementAndGet ) );
+		long submissionTime = timer.getTime ();
+		
+		CompletableFuture.allOf ( results.toArray ( new CompletableFuture<?> [ 0 ] ) ).get ( 10, TimeUnit.SECONDS );
+		long completionTime = timer.getTime ();
+		
+		log.info ( "Submission time: {} ms, completion time: {} ms", submissionTime, completionTime );
+		assertEquals ( "Wrong no. of calls!", 21, calls.get () );
+		assertTrue ( "Submission was blocking!", submissionTime < 500 );
+		// 20 intervals of 50ms
+		assertTrue ( "Rate not respected!", completionTime >= 950 );
+		assertTrue ( "Too slow!", completionTime < 3000 );
+	}
+	
+	@Test
+	public void testReject ()
+	{
+		AsyncRateLimitedExecutor executor = new AsyncRateLimitedExecutor ( 1, 5, OverflowPolicy.REJECT );
+
+		int rejected = 0;
+		for ( int i = 0; i < 10; i++ )
+		{
+			try {
+				executor.execute ( () -> {} );
+			}
+			catch ( RejectedExecutionException ex ) {
+				rejected++;
+			}
+		}
+		// The first might be dispatched immediately
+		assertTrue ( "Wrong no. of rejections (" + rejected + ")!", rejected == 4 || rejected == 5 );
+	}
+
+	@Test
+	public void testDropOldest () throws Exception
+	{
+		AsyncRateLimitedExecutor executor = new AsyncRateLimitedExecutor ( 10, 2, OverflowPolicy.DROP_OLDEST );
+
+		List<CompletableFuture<Integer>> results = new ArrayList<> ();
+		for ( int i = 0; i < 10; i++ )
+		{
+			final int value = i;
+			results.add ( executor.supply ( () -> value ) );
+		}
+		
+		// The last two are never dropped
+		assertEquals ( "Last action not run!", 9, (int) results.get ( 9 ).get ( 5, TimeUnit.SECONDS ) );
+		assertEquals ( "Last but one action not run!", 8, (int) results.get ( 8 ).get ( 5, TimeUnit.SECONDS ) );
+		
+		int dropped = 0;
+		for ( CompletableFuture<Integer> result: results )
+			if ( result.isCompletedExceptionally () ) dropped++;
+		assertTrue ( "Wrong no. of dropped actions (" + dropped + ")!", dropped >= 7 );
+	}
+}
@@ -0,0 +1,172 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.ac.ebi.utils.exceptions.UncheckedInterruptedException;
+import uk.ac.ebi.utils.time.XStopWatch;
+
+/**
+ * Tests for {@link BulkheadExecutor}.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class BulkheadExecutorTest
+{
+	private Logger log = LoggerFactory.getLogger ( this.getClass () );
+
+	@Test
+	public void testLimit () throws InterruptedException
+	{
+		BulkheadExecutor bulkhead = new BulkheadExecutor ( "JUnit Service", 2 );
+		CountDownLatch started = new CountDownLatch ( 2 ), finish = new CountDownLatch ( 1 );
+		
+		Thread[] threads = new Thread [ 2 ];
+		for ( int i = 0; i < threads.length; i++ )
+		{
+			threads [ i ] = new Thread ( () -> bulkhead.execute ( () -> {
+				started.countDown ();
+				try {
+					finish.await ();
+				}
+				catch ( InterruptedException ex ) {
+					throw new UncheckedInterruptedException ( "Interrupted: " + ex.getMessage (), ex );
+				}
+			}));
+			threads [ i ].start ();
+		}
+		started.await ();
+		assertEquals ( "Wrong in-flight calls!", 2, bulkhead.getInFlightCalls () );
+
+		try {
+			bulkhead.execute ( () -> fail ( "Bulkhead didn't block the call!" ) );
+			fail ( "Bulkhead didn't reject the call!" );
+		}
+		catch ( BulkheadFullException ex ) {
+			assertEquals ( "Wrong rejected calls count!", 1, bulkhead.getRejectedCalls () );
+		}
+		
+		finish.countDown ();
+		for ( Thread thread: threads ) thread.join ();
+
+		AtomicInteger calls = new AtomicInteger ();
+		bulkhead.execute ( calls::incrementAndGet );
+		assertEquals ( "Bulkhead didn't free its slots!", 1, calls.get () );
+		assertEquals ( "Wrong in-flight calls!", 0, bulkhead.getInFlightCalls () );
+	}
+	
+	@Test
+	public void testWait () throws InterruptedException
+	{
+		BulkheadExecutor bulkhead = new BulkheadExecutor ( "JUnit Service", 1 ).setMaxWaitTime ( 2000 );
+		CountDownLatch started = new CountDownLatch ( 1 );
+		
+		Thread thread = new Thread ( () -> bulkhead.execute ( () -> {
+			started.countDown ();
+			sleep ( 100 );
+		}));
+		thread.start ();
+		started.await ();
+		
+		AtomicInteger calls = new AtomicInteger ();
+		bulkhead.execute ( calls::incrementAndGet );
+		assertEquals ( "Waiting call not run!", 1, calls.get () );
+		thread.join ();
+	}
+	
+	@Test
+	public void testRegistry ()
+	{
+		BulkheadExecutor bulkhead = BulkheadExecutor.getBulkhead ( "JUnit Shared Service", 5 );
+		assertSame ( "Registry doesn't work!", bulkhead, BulkheadExecutor.getBulkhead ( "JUnit Shared Service", 10 ) );
+		assertEquals ( "Wrong limit for the shared bulkhead!", 5, bulkhead.getMaxConcurrentCalls () );
+		BulkheadExecutor.removeBulkhead ( "JUnit Shared Service" );
+	}
+
+	/**
+	 * Simulates a service that slows down when it gets more than 6 concurrent calls.
+	 */
+	@Test
+	public void testAdaptive () throws InterruptedException
+	{
+		BulkheadExecutor bulkhead = new BulkheadExecutor ( "JUnit Adaptive Service", 4 )
+			.setMaxWaitTime ( 5000 )
+			.setAdaptivePeriod ( 50 )
+			.setAdaptive ( 1, 20 );
+		
+		AtomicInteger serviceLoad = new AtomicInteger ();
+		LongAccumulator maxLimit = new LongAccumulator ( Math::max, 0 );
+		
+		Thread[] threads = new Thread [ 12 ];
+		for ( int i = 0; i < threads.length; i++ )
+		{
+			threads [ i ] = new Thread ( () -> 
+			{
+				XStopWatch timer = new XStopWatch ();
+				for ( timer.start (); timer.getTime () < 2000; )
+					bulkhead.execute ( () -> {
+						int load = serviceLoad.incrementAndGet ();
+						maxLimit.accumulate ( bulkhead.getMaxConcurrentCalls () );
+						sleep ( load > 6 ? 40 : 5 );
+						serviceLoad.decrementAndGet ();
+					});
+			});
+			threads [ i ].start ();
+		}
+		for ( Thread thread: threads ) thread.join ();
+		
+		log.info ( "Final adaptive limit: {}, max reached: {}", bulkhead.getMaxConcurrentCalls (), maxLimit.get () );
+		assertTrue ( "Adaptive limit didn't grow!", maxLimit.get () > 4 );
+		assertTrue ( "Adaptive limit didn't back off!", bulkhead.getMaxConcurrentCalls () <= 10 );
+	}
+	
+	/**
+	 * With the limit at its floor, slow periods must not become the new normal.
+	 */
+	@Test
+	public void testAdaptiveBaselineAtFloor ()
+	{
+		BulkheadExecutor bulkhead = new BulkheadExecutor ( "JUnit Adaptive Service", 1 )
+			.setAdaptivePeriod ( 100 )
+			.setAdaptive ( 1, 1 );
+		
+		XStopWatch timer = new XStopWatch ();
+		for ( timer.start (); timer.getTime () < 500; )
+			bulkhead.execute ( () -> sleep ( 1 ) );
+		
+		assertTrue ( "Baseline not computed!", bulkhead.getLongTermLatency () > 0 );
+
+		// The first slow period might still have mostly fast calls, so wait it's over
+		for ( timer.restart (); timer.getTime () < 300; )
+			bulkhead.execute ( () -> sleep ( 5 ) );
+		double baseline = bulkhead.getLongTermLatency ();
+
+		for ( timer.restart (); timer.getTime () < 1000; )
+			bulkhead.execute ( () -> sleep ( 5 ) );
+
+		assertEquals ( "Limit not at the floor!", 1, bulkhead.getMaxConcurrentCalls () );
+		assertEquals ( "Baseline moved with slow periods!", baseline, bulkhead.getLongTermLatency (), 0 );
+	}
+	
+	private static void sleep ( long time )
+	{
+		try {
+			Thread.sleep ( time );
+		}
+		catch ( InterruptedException ex ) {
+			throw new UncheckedInterruptedException ( "Interrupted: " + ex.getMessage (), ex );
+		}
+	}
+}
@@ -0,0 +1,211 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.ac.ebi.utils.runcontrol.CircuitBreakerExecutor.State;
+
+/**
+ * Tests for {@link CircuitBreakerExecutor}.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class CircuitBreakerExecutorTest
+{
+	private Logger log = LoggerFactory.getLogger ( this.getClass () );
+	
+	private volatile boolean isServiceDown = false;
+	private final AtomicInteger serviceCalls = new AtomicInteger ();
+	
+	private void callService ()
+	{
+		serviceCalls.incrementAndGet ();
+		if ( isServiceDown ) throw new IllegalStateException ( "Service is down" );
+	}
+	
+	/**
+	 * Runs the service, ignoring its failures and returns how many calls were rejected. 
+	 */
+	private int runCalls ( CircuitBreakerExecutor breaker, int ncalls )
+	{
+		int rejected = 0;
+		for ( int i = 0; i < ncalls; i++ )
+		{
+			try {
+				breaker.execute ( this::callService );
+			}
+			catch ( CircuitBreakerOpenException ex ) {
+				rejected++;
+			}
+			catch ( IllegalStateException ex ) {
+				// Failed
+			}
+		}
+		return rejected;
+	}
+	
+	@Test
+	public void testStates () throws InterruptedException
+	{
+		CircuitBreakerExecutor breaker = new CircuitBreakerExecutor ( "JUnit Service", 10 )
+			.setMinCalls ( 5 )
+			.setFailureRateThreshold ( 0.5 )
+			.setOpenStateTime ( 200 )
+			.setHalfOpenCalls ( 2 );
+		
+		List<String> transitions = Collections.synchronizedList ( new ArrayList<> () );
+		breaker.addStateListener ( (from, to) -> transitions.add ( from + "->" + to ) );
+		
+		assertEquals ( "Breaker doesn't work when things go well!", 0, runCalls ( breaker, 20 ) );
+		assertEquals ( "Wrong state!", State.CLOSED, breaker.getState () );
+		
+		isServiceDown = true;
+		serviceCalls.set ( 0 );
+		int rejected = runCalls ( breaker, 20 );
+		assertEquals ( "Wrong state after failures!", State.OPEN, breaker.getState () );
+		assertEquals ( "Calls not rejected!", 20 - serviceCalls.get (), rejected );
+		assertTrue ( "Too many calls to the failing service!", serviceCalls.get () <= 5 );
+
+		// Half-open, fails again
+		Thread.sleep ( 300 );
+		serviceCalls.set ( 0 );
+		runCalls ( breaker, 5 );
+		assertEquals ( "Wrong state after half-open failure!", State.OPEN, breaker.getState () );
+		assertEquals ( "Wrong no. of half-open calls!", 1, serviceCalls.get () );
+		
+		// Half-open, then service back
+		isServiceDown = false;
+		Thread.sleep ( 300 );
+		assertEquals ( "Half-open calls rejected!", 0, runCalls ( breaker, 2 ) );
+		assertEquals ( "Wrong state after half-open successes!", State.CLOSED, breaker.getState () );
+		assertEquals ( "Window not cleared!", 0d, breaker.getFailureRate (), 0d );
+		
+		log.info ( "Circuit breaker transitions: {}", transitions );
+		assertEquals ( "Wrong transitions!", 
+			List.of ( "CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED" ),
+			transitions
+		);
+	}
+	
+	@Test
+	public void testNonRecordedExceptions ()
+	{
+		CircuitBreakerExecutor breaker = new CircuitBreakerExecutor ( "JUnit Service", 10, UnsupportedOperationException.class )
+			.setMinCalls ( 5 );
+
+		isServiceDown = true;
+		runCalls ( breaker, 20 );
+		assertEquals ( "Non-recorded exceptions opened the circuit!", State.CLOSED, breaker.getState () );
+	}
+	
+	@Test
+	public void testChaining ()
+	{
+		CircuitBreakerExecutor breaker = new CircuitBreakerExecutor ( "JUnit Service", 10 )
+			.setMinCalls ( 3 );
+		MultipleAttemptsExecutor retrier = new MultipleAttemptsExecutor ( 5, 0, 0, IllegalStateException.class );
+		
+		// The retrier is the outer executor, so it should stop on the rejection
+		ChainExecutor executor = new ChainExecutor ( breaker ).wrap ( retrier );
+		
+		isServiceDown = true;
+		try {
+			executor.execute ( this::callService );
+			fail ( "Circuit breaker didn't stop the retries!" );
+		}
+		catch ( CircuitBreakerOpenException ex ) {
+			assertEquals ( "Wrong no. of service calls!", 3, serviceCalls.get () );
+		}
+	}
+	
+	@Test
+	public void testErrors () throws InterruptedException
+	{
+		CircuitBreakerExecutor breaker = new CircuitBreakerExecutor ( "JUnit Service", 10 )
+			.setMinCalls ( 5 )
+			.setOpenStateTime ( 100 )
+			.setHalfOpenCalls ( 1 );
+		
+		Runnable failingAction = () -> { throw new InternalError ( "Service is broken" ); };
+		for ( int i = 0; i < 5; i++ )
+		{
+			try {
+				breaker.execute ( failingAction );
+			}
+			catch ( InternalError ex ) {
+				// Expected
+			}
+		}
+		assertEquals ( "Errors didn't open the circuit!", State.OPEN, breaker.getState () );
+		
+		// The half-open trial fails with an error, its permit must be released anyway 
+		Thread.sleep ( 200 );
+		try {
+			breaker.execute ( failingAction );
+			fail ( "Error not re-thrown!" );
+		}
+		catch ( InternalError ex ) {
+			assertEquals ( "Wrong state after half-open error!", State.OPEN, breaker.getState () );
+		}
+		
+		Thread.sleep ( 200 );
+		assertEquals ( "Half-open calls rejected!", 0, runCalls ( breaker, 1 ) );
+		assertEquals ( "Wrong state after half-open success!", State.CLOSED, breaker.getState () );
+	}
+	
+	@Test
+	public void testMinCallsDefault ()
+	{
+		CircuitBreakerExecutor breaker = new CircuitBreakerExecutor ( "JUnit Service", 10 );
+		assertEquals ( "minCalls not capped to the window size!", 10, breaker.getMinCalls () );
+
+		isServiceDown = true;
+		runCalls ( breaker, 10 );
+		assertEquals ( "Circuit not opened with a small window!", State.OPEN, breaker.getState () );
+	}
+	
+	@Test ( expected = IllegalArgumentException.class )
+	public void testInvalidMinCalls ()
+	{
+		new CircuitBreakerExecutor ( "JUnit Service", 10 ).setMinCalls ( 11 );
+	}
+	
+	@Test
+	public void testStaleOutcomes () throws InterruptedException
+	{
+		CircuitBreakerExecutor breaker = new CircuitBreakerExecutor ( "JUnit Service", 10 )
+			.setMinCalls ( 5 )
+			.setOpenStateTime ( 100 )
+			.setHalfOpenCalls ( 1 );
+		
+		// A slow call that starts when the circuit is closed
+		long slowCallPermit = breaker.tryAcquirePermission ();
+		
+		isServiceDown = true;
+		runCalls ( breaker, 5 );
+		assertEquals ( "Circuit not opened!", State.OPEN, breaker.getState () );
+		
+		Thread.sleep ( 200 );
+		long trialPermit = breaker.tryAcquirePermission ();
+		assertTrue ( "No half-open permit!", trialPermit != CircuitBreakerExecutor.NO_PERMIT );
+		assertEquals ( "Wrong state!", State.HALF_OPEN, breaker.getState () );
+		
+		breaker.recordSuccess ( slowCallPermit );
+		assertEquals ( "The old call was counted as a trial call!", State.HALF_OPEN, breaker.getState () );
+
+		breaker.recordSuccess ( trialPermit );
+		assertEquals ( "Trial call not counted!", State.CLOSED, breaker.getState () );
+	}
+}
@@ -0,0 +1,142 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.ac.ebi.utils.time.XStopWatch;
+
+/**
+ * Tests {@link HedgingExecutor}.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class HedgingExecutorTest
+{
+	private Logger log = LoggerFactory.getLogger ( this.getClass () );
+
+	/**
+	 * Every 20th call is slow at the first attempt, and a backup attempt should fix it.
+	 */
+	@Test
+	public void testHedging ()
+	{
+		HedgingExecutor executor = new HedgingExecutor ()
+			.setMinSamples ( 50 )
+			.setHedgingPercentile ( 90 )
+			.setMaxHedgedRatio ( 0.1 );
+		
+		long maxTime = 0;
+		for ( int i = 0; i < 300; i++ )
+		{
+			boolean isSlowCall = i % 20 == 0;
+			AtomicInteger attempts = new AtomicInteger ();
+
+			XStopWatch timer = new XStopWatch ();
+			timer.start ();
+			int result = executor.get ( () -> {
+				boolean isSlow = isSlowCall && attempts.incrementAndGet () == 1;
+				Thread.sleep ( isSlow ? 1000 : 5 );
+				return 1;
+			});
+			long time = timer.getTime ();
+			
+			assertEquals ( "Wrong result!", 1, result );
+			// Skip the warm-up calls
+			if ( i > 60 ) maxTime = Math.max ( maxTime, time );
+		}
+		
+		log.info ( 
+			"Max time after the warm-up: {} ms, hedged calls: {}/{}", 
+			maxTime, executor.getHedgedCalls (), executor.getTotalCalls () 
+		);
+		assertTrue ( "Slow calls weren't hedged!", maxTime < 500 );
+		assertTrue ( "Too many hedged calls!", executor.getHedgedCalls () <= 0.1 * 300 + 1 );
+	}
+
+	@Test
+	public void testBudget ()
+	{
+		HedgingExecutor executor = new HedgingExecutor ()
+			.setMinSamples ( 10 )
+			.setMaxHedgedRatio ( 0 );
+		
+		for ( int i = 0; i < 50; i++ )
+		{
+			int idx = i;
+			executor.execute ( () -> {
+				try {
+					Thread.sleep ( idx % 5 == 0 ? 50 : 2 );
+				}
+				catch ( InterruptedException ex ) {
+					throw new RuntimeException ( ex );
+				}
+			});
+		}
+		assertEquals ( "Hedging budget not respected!", 0, executor.getHedgedCalls () );
+	}
+	
+	/**
+	 * If the first attempt fails, but the backup succeeds, we get the result.
+	 */
+	@Test
+	public void testFailedAttempt () throws Exception
+	{
+		HedgingExecutor executor = new HedgingExecutor ()
+			.setMinSamples ( 10 )
+			.setMaxHedgedRatio ( 1 );
+		
+		for ( int i = 0; i < 20; i++ ) executor.get ( () -> { Thread.sleep ( 2 ); return 1; } );
+		
+		AtomicInteger attempts = new AtomicInteger ();
+		CompletableFuture<Integer> result = executor.supplyAsync ( () -> 
+		{
+			if ( attempts.incrementAndGet () == 1 ) {
+				Thread.sleep ( 200 );
+				throw new IllegalStateException ( "Test exception" );
+			}
+			return 2;
+		});
+		assertEquals ( "Wrong result after a failed attempt!", 2, (int) result.get ( 5, TimeUnit.SECONDS ) );
+		
+		// When all the attempts fail, we get the failure
+		try {
+			executor.get ( () -> { throw new IllegalStateException ( "Test exception" ); } );
+		}
+		catch ( IllegalStateException ex ) {
+			return;
+		}
+		throw new AssertionError ( "Failure not reported!" );
+	}
+
+	@Test
+	public void testHedgingDelay () throws InterruptedException
+	{
+		HedgingExecutor executor = new HedgingExecutor ()
+			.setMinSamples ( 10 )
+			.setLatencyWindowTime ( 1000 );
+		
+		for ( int i = 0; i < 9; i++ ) executor.get ( () -> { Thread.sleep ( 2 ); return 1; } );
+		assertEquals ( "Hedging delay set with too few samples!", -1, executor.getHedgingDelay () );
+		
+		executor.get ( () -> { Thread.sleep ( 2 ); return 1; } );
+		long delay = executor.getHedgingDelay ();
+		assertTrue ( "Hedging delay not set from the current window!", delay > 0 );
+		
+		// Slower calls in the current window don't change the delay of the complete one
+		Thread.sleep ( 1000 );
+		executor.get ( () -> { Thread.sleep ( 20 ); return 1; } );
+		assertEquals ( "Hedging delay not taken from the complete window!", delay, executor.getHedgingDelay () );
+		for ( int i = 0; i < 10; i++ ) executor.get ( () -> { Thread.sleep ( 20 ); return 1; } );
+		assertEquals ( "Hedging delay changed before the end of the window!", delay, executor.getHedgingDelay () );
+	}
+}
@@ -0,0 +1,71 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class LatencyHistogramTest
+{
+	@Test
+	public void testPercentiles ()
+	{
+		LatencyHistogram histo = new LatencyHistogram ();
+		assertEquals ( "Wrong empty percentile!", 0, histo.getPercentile ( 99 ) );
+		
+		for ( long v = 1; v <= 100000; v++ ) histo.record ( v * 1000 );
+		
+		assertEquals ( "Wrong count!", 100000, histo.getCount () );
+		assertEquals ( "Wrong max!", 100000000, histo.getMax () );
+		assertEquals ( "Wrong mean!", 50000500d, histo.getMean (), 1E-3 );
+
+		// Error should be within the bucket resolution
+		double maxErr = 1.5d / LatencyHistogram.SUB_BUCKETS; 
+		for ( double p: new double[] { 1, 50, 95, 99, 99.9 } )
+		{
+			double expected = p * 1000000;
+			long actual = histo.getPercentile ( p );
+			assertTrue ( 
+				"Percentile " + p + " is wrong (" + actual + " vs " + expected + ")", 
+				Math.abs ( actual / expected - 1 ) <= maxErr 
+			);
+		}
+		assertEquals ( "Wrong 100 percentile!", histo.getMax (), histo.getPercentile ( 100 ) );
+	}
+	
+	@Test
+	public void testSmallValues ()
+	{
+		LatencyHistogram histo = new LatencyHistogram ();
+		for ( long v = 0; v < 10; v++ ) histo.record ( v );
+		histo.record ( -1 );
+		
+		assertEquals ( "Wrong median!", 4, histo.getPercentile ( 50 ) );
+		assertEquals ( "Wrong max!", 9, histo.getMax () );
+	}
+	
+	@Test
+	public void testMultiThreading () throws InterruptedException
+	{
+		LatencyHistogram histo = new LatencyHistogram ();
+		final int nthreads = 4, nvalues = 100000;
+		
+		Thread[] threads = new Thread [ nthreads ];
+		for ( int i = 0; i < nthreads; i++ )
+		{
+			threads [ i ] = new Thread ( () -> {
+				for ( int v = 1; v <= nvalues; v++ ) histo.record ( v );
+			});
+			threads [ i ].start ();
+		}
+		for ( Thread thread: threads ) thread.join ();
+		
+		assertEquals ( "Wrong count!", nthreads * nvalues, histo.getCount () );
+		assertEquals ( "Wrong 100 percentile!", nvalues, histo.getPercentile ( 100 ) );
+	}
+}
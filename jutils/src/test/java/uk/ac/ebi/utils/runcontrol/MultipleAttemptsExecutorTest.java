@@ -1,6 +1,14 @@
 package uk.ac.ebi.utils.runcontrol;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -89,4 +97,94 @@ public class MultipleAttemptsExecutorTest
 		});
 	}
 
+	
+	/**
+	 * Fails twice, then succeeds, without blocking the caller.
+	 */
+	@Test
+	public void testAsyncThirdAttempt () throws Exception
+	{
+		MultipleAttemptsExecutor executor = new MultipleAttemptsExecutor ( 
+			3, 0, 1000, IOException.class 
+		);
+		AtomicInteger asyncRunCt = new AtomicInteger ();
+		
+		CompletableFuture<String> result = executor.supplyAsync ( () -> {
+			if ( asyncRunCt.incrementAndGet () <= 2 ) throw new IOException ( "On-purpose exception #" + asyncRunCt.get () );
+			return "Hello, World";
+		});
+		
+		assertEquals ( "Wrong result!", "Hello, World", result.get ( 5, TimeUnit.SECONDS ) );
+		assertEquals ( "Run count is wrong!", 3, asyncRunCt.get () );
+	}
+
+	/**
+	 * Fails with a non-intercepted exception, no re-attempt.
+	 */
+	@Test
+	public void testAsyncNonInterceptedFailure () throws Exception
+	{
+		MultipleAttemptsExecutor executor = new MultipleAttemptsExecutor ( 
+			3, 0, 1000, IOException.class 
+		);
+		AtomicInteger asyncRunCt = new AtomicInteger ();
+
+		CompletableFuture<Void> result = executor.runAsync ( () -> {
+			asyncRunCt.incrementAndGet ();
+			throw new IllegalStateException ( "On-purpose exception" );
+		});
+		
+		try {
+			result.get ( 5, TimeUnit.SECONDS );
+			fail ( "No exception from the failed async attempts!" );
+		}
+		catch ( ExecutionException ex ) {
+			assertTrue ( "Wrong exception!", ex.getCause () instanceof IllegalStateException );
+		}
+		assertEquals ( "Run count is wrong!", 1, asyncRunCt.get () );
+	}
+
+	/**
+	 * Always fails, the future is eventually completed with the last exception.
+	 */
+	@Test
+	public void testAsyncFail () throws Exception
+	{
+		MultipleAttemptsExecutor executor = new MultipleAttemptsExecutor ( 
+			4, 0, 1000, RuntimeException.class 
+		);
+		AtomicInteger asyncRunCt = new AtomicInteger ();
+
+		CompletableFuture<Void> result = executor.runAsync ( () -> {
+			throw new IllegalStateException ( "On-purpose exception #" + asyncRunCt.incrementAndGet () );
+		});
+		
+		try {
+			result.get ( 10, TimeUnit.SECONDS );
+			fail ( "No exception from the failed async attempts!" );
+		}
+		catch ( ExecutionException ex ) {
+			assertEquals ( "Wrong exception!", "On-purpose exception #4", ex.getCause ().getMessage () );
+		}
+		assertEquals ( "Run count is wrong!", 4, asyncRunCt.get () );
+	}
+	
+	@Test
+	public void testBackoffPauseTime ()
+	{
+		MultipleAttemptsExecutor executor = new MultipleAttemptsExecutor ( 
+			10, 50, 1000, RuntimeException.class 
+		);
+		executor.setBackoffBaseTime ( 100 );
+		
+		for ( int i = 0; i < 100; i++ )
+		{
+			long pause = executor.getBackoffPauseTime ( 1 );
+			assertTrue ( "Backoff pause #1 out of range!", pause >= 50 && pause <= 100 );
+			pause = executor.getBackoffPauseTime ( 3 );
+			assertTrue ( "Backoff pause #3 out of range!", pause >= 50 && pause <= 400 );
+			pause = executor.getBackoffPauseTime ( 50 );
+			assertTrue ( "Backoff pause #50 out of range!", pause >= 50 && pause <= 1000 );
+		}
+	}
 }
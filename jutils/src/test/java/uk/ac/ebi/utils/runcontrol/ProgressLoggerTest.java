@@ -2,6 +2,9 @@ package uk.ac.ebi.utils.runcontrol;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 import org.slf4j.Logger;
@@ -100,4 +103,122 @@ public class ProgressLoggerTest
 		Assert.assertTrue ( "custom 10% not reported!", outStr.contains ( "custom progress report action: 10%" ) );
 	}
 	
+	
+	@Test
+	public void testRateReporting () throws InterruptedException
+	{
+		// Stdout redirection
+		PrintStream outBkp = System.out;
+		ByteArrayOutputStream outBuf = new ByteArrayOutputStream ();
+		System.setOut ( new PrintStream ( outBuf ) );
+
+		PercentProgressLogger progTracker = new PercentProgressLogger ( "{}% of items processed", 1000 );
+		progTracker.setRateReportingEnabled ( true );
+		for ( int i = 0; i < 5; i++ ) 
+		{
+			Thread.sleep ( 50 );
+			progTracker.updateWithIncrement ( 100 );
+		}
+
+		System.setOut ( outBkp );  // restore the original output
+		
+		String outStr = outBuf.toString ();
+		
+		log.info ( "Output from the progress logger:\n\n-------------------\n{}-------------------\n", outStr );
+
+		Assert.assertTrue ( "Rate not reported!", outStr.contains ( "50% of items processed (rate: " ) );
+		Assert.assertTrue ( "ETA not reported!", outStr.contains ( "ETA: " ) );
+		
+		// 100 items every 50ms, with a generous margin for slow test machines
+		double rate = progTracker.getWindowRate ();
+		Assert.assertTrue ( "Window rate is wrong (" + rate + ")!", rate > 200 && rate < 2500 );
+		Assert.assertNotNull ( "ETA is null!", progTracker.getEstimatedTimeToCompletion () );
+		
+		progTracker.reset ();
+		Assert.assertEquals ( "Rate not reset!", 0d, progTracker.getLastRate () );
+	}
+	
+	@Test
+	public void testMaxReportInterval () throws InterruptedException
+	{
+		// Reports based on time only
+		ProgressLogger progTracker = new ProgressLogger ( Long.MAX_VALUE );
+		AtomicInteger nreports = new AtomicInteger ();
+		progTracker.appendProgressReportAction ( (oldp, newp) -> nreports.incrementAndGet () );
+		progTracker.setMaxReportInterval ( 100 );
+		
+		for ( int i = 0; i < 10; i++ ) 
+		{
+			Thread.sleep ( 55 );
+			progTracker.updateWithIncrement ();
+		}
+		
+		progTracker.setMaxReportInterval ( 0 );
+		int nreportsAtStop = nreports.get ();
+		log.info ( "{} timed reports issued", nreportsAtStop );
+		Assert.assertTrue ( "Too few timed reports (" + nreportsAtStop + ")!", nreportsAtStop >= 3 );
+		Assert.assertTrue ( "Too many timed reports (" + nreportsAtStop + ")!", nreportsAtStop <= 6 );
+
+		Thread.sleep ( 300 );
+		Assert.assertEquals ( "Timed reports not stopped!", nreportsAtStop, nreports.get () );
+	}
+
+	@Test
+	public void testMinReportInterval () throws InterruptedException
+	{
+		// Every item is a checkpoint, but we want a report every 100ms at most
+		ProgressLogger progTracker = new ProgressLogger ( 1 );
+		AtomicInteger nreports = new AtomicInteger ();
+		progTracker.setProgressReportAction ( (oldp, newp) -> nreports.incrementAndGet () );
+		progTracker.setMinReportInterval ( 100 );
+		
+		long startTime = System.currentTimeMillis ();
+		for ( int i = 0; i < 50; i++ ) 
+		{
+			Thread.sleep ( 10 );
+			progTracker.updateWithIncrement ();
+		}
+		long elapsed = System.currentTimeMillis () - startTime;
+		
+		log.info ( "{} reports issued in {} ms", nreports.get (), elapsed );
+		Assert.assertTrue ( "Too many reports (" + nreports.get () + ")!", nreports.get () <= elapsed / 100 + 1 );
+		Assert.assertTrue ( "Too few reports (" + nreports.get () + ")!", nreports.get () >= 3 );
+	}
+	
+	@Test
+	public void testMultiThreading () throws InterruptedException
+	{
+		final int nthreads = 8, nitems = 100000;
+		final long resolution = 1000;
+		
+		ProgressLogger progTracker = new ProgressLogger ( resolution );
+		Set<Long> checkPoints = ConcurrentHashMap.newKeySet ();
+		AtomicInteger nreports = new AtomicInteger ( 0 );
+		progTracker.setProgressReportAction ( (oldp, newp) -> {
+			nreports.incrementAndGet ();
+			checkPoints.add ( newp / resolution );
+		});
+		
+		Thread[] threads = new Thread [ nthreads ];
+		for ( int i = 0; i < nthreads; i++ )
+		{
+			threads [ i ] = new Thread ( () -> {
+				for ( int j = 0; j < nitems; j++ ) progTracker.updateWithIncrement ();
+			});
+			threads [ i ].start ();
+		}
+		for ( Thread thread: threads ) thread.join ();
+		
+		long expectedProgress = (long) nthreads * nitems;
+		
+		Assert.assertEquals ( "Wrong final progress!", expectedProgress, progTracker.getProgress () );
+		Assert.assertTrue ( "No report issued!", nreports.get () > 0 );
+		Assert.assertTrue ( "Too many reports!", nreports.get () <= expectedProgress / resolution );
+		Assert.assertEquals ( "Some checkpoint was reported twice!", nreports.get (), checkPoints.size () );
+		
+		// Other threads' increments are seen with some delay, so the last checkpoint might be missed 
+		long lastCheckPoint = checkPoints.stream ().mapToLong ( Long::longValue ).max ().getAsLong ();
+		long minLastCheckPoint = ( expectedProgress - nthreads * ProgressLogger.PROGRESS_CHECK_INTERVAL ) / resolution;
+		Assert.assertTrue ( "Last checkpoints not reported!", lastCheckPoint >= minLastCheckPoint );
+	}
 }
@@ -0,0 +1,55 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class RateEstimatorTest
+{
+	private static final long SEC = TimeUnit.SECONDS.toNanos ( 1 );
+	
+	@Test
+	public void testRates ()
+	{
+		RateEstimator estimator = new RateEstimator ( 10 * 1000, 10 );
+		
+		assertEquals ( "Wrong initial rate!", 0d, estimator.getLastRate (), 0d );
+		assertEquals ( "Wrong initial window rate!", 0d, estimator.getWindowRate (), 0d );
+
+		// 100 units/s for 20 secs, then 10 units/s for 10 secs
+		long value = 0;
+		for ( int t = 0; t <= 20; t++, value += 100 )
+			estimator.sample ( t * SEC, value );
+		value -= 100;
+		for ( int t = 21; t <= 30; t++ )
+			estimator.sample ( t * SEC, value += 10 );
+
+		assertEquals ( "Wrong last rate!", 10d, estimator.getLastRate (), 1E-6 );
+		assertEquals ( "Wrong window rate!", 10d, estimator.getWindowRate (), 1E-6 );
+		assertEquals ( "Wrong overall rate!", 2100d / 30, estimator.getOverallRate (), 1E-6 );
+	}
+
+	@Test
+	public void testSampleSpacing ()
+	{
+		// Samples must be at least 1s apart in the ring, but the last rate uses all of them 
+		RateEstimator estimator = new RateEstimator ( 10 * 1000, 10 );
+		
+		long value = 0;
+		for ( long t = 0; t <= 20 * SEC; t += SEC / 100, value++ )
+			estimator.sample ( t, value );
+		
+		assertEquals ( "Wrong last rate!", 100d, estimator.getLastRate (), 1E-6 );
+		assertEquals ( "Wrong window rate!", 100d, estimator.getWindowRate (), 1E-6 );
+		
+		estimator.reset ();
+		assertEquals ( "Wrong rate after reset!", 0d, estimator.getWindowRate (), 0d );
+	}
+}
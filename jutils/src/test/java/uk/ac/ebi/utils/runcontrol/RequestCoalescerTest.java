@@ -0,0 +1,102 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link RequestCoalescer}.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class RequestCoalescerTest
+{
+	private final AtomicInteger bulkCalls = new AtomicInteger ();
+	
+	private Map<Integer, String> bulkCall ( Set<Integer> keys ) 
+	{
+		bulkCalls.incrementAndGet ();
+		return keys.stream ()
+			.filter ( k -> k >= 0 )
+			.collect ( Collectors.toMap ( Function.identity (), k -> "v" + k ) );
+	}
+	
+	@Test
+	public void testMultiThreading () throws Exception
+	{
+		RequestCoalescer<Integer, String> coalescer = new RequestCoalescer<> ( this::bulkCall, 10, 50 );
+		
+		ExecutorService executor = Executors.newFixedThreadPool ( 8 );
+		List<CompletableFuture<String>> results = new ArrayList<> ();
+		for ( int i = 0; i < 95; i++ )
+		{
+			int key = i;
+			results.add ( CompletableFuture.supplyAsync ( () -> coalescer.get ( key ), executor ) );
+		}
+		for ( int i = 0; i < results.size (); i++ )
+			assertEquals ( "Wrong result!", "v" + i, results.get ( i ).get ( 5, TimeUnit.SECONDS ) );
+		executor.shutdown ();
+		
+		// The last batch is dispatched by the timeout
+		assertTrue ( "Too many bulk calls: " + bulkCalls.get (), bulkCalls.get () <= 20 );
+	}
+
+	@Test
+	public void testTimeoutAndMissingKeys () throws Exception
+	{
+		RequestCoalescer<Integer, String> coalescer = new RequestCoalescer<> ( this::bulkCall, 100, 50 );
+		CompletableFuture<String> v1 = coalescer.submit ( 1 ), v1bis = coalescer.submit ( 1 ), 
+			missing = coalescer.submit ( -1 );
+		
+		assertEquals ( "Wrong result!", "v1", v1.get ( 5, TimeUnit.SECONDS ) );
+		assertEquals ( "Wrong result for the duplicated key!", "v1", v1bis.get ( 5, TimeUnit.SECONDS ) );
+		assertNull ( "Missing key not null!", missing.get ( 5, TimeUnit.SECONDS ) );
+		assertEquals ( "Wrong no. of bulk calls!", 1, bulkCalls.get () );
+	}
+
+	@Test
+	public void testFailure () throws Exception
+	{
+		RequestCoalescer<Integer, String> coalescer = new RequestCoalescer<> ( 
+			keys -> { throw new IllegalStateException ( "Test exception" ); }, 10, 1000
+		);
+		CompletableFuture<String> result = coalescer.submit ( 1 );
+		coalescer.flush ();
+		try {
+			result.get ( 5, TimeUnit.SECONDS );
+		}
+		catch ( ExecutionException ex ) {
+			assertTrue ( "Wrong exception!", ex.getCause () instanceof IllegalStateException );
+			return;
+		}
+		throw new AssertionError ( "Failure not reported!" );
+	}
+	
+	@Test
+	public void testAsyncBulkCallExecutor () throws Exception
+	{
+		RequestCoalescer<Integer, String> coalescer = new RequestCoalescer<Integer, String> ( this::bulkCall, 10, 50 )
+			.setBulkCallExecutor ( new AsyncRateLimitedExecutor ( 100 ) );
+		CompletableFuture<String> v1 = coalescer.submit ( 1 ), v2 = coalescer.submit ( 2 );
+		
+		assertEquals ( "Wrong result!", "v1", v1.get ( 5, TimeUnit.SECONDS ) );
+		assertEquals ( "Wrong result!", "v2", v2.get ( 5, TimeUnit.SECONDS ) );
+	}
+}
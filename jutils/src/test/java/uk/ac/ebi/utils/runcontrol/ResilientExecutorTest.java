@@ -0,0 +1,182 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link ResilientExecutor}.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class ResilientExecutorTest
+{
+	@Test
+	public void testRetriesAndStats ()
+	{
+		ResilientExecutor executor = ResilientExecutor.builder ( "Test Service" )
+			.withStats ( 60000 )
+			.withRetry ( 3, 0, 10, IllegalStateException.class )
+			.withRateLimit ( 1000 )
+			.withTimeout ( 1000 )
+			.build ();
+		
+		// Fails twice, then succeeds
+		AtomicInteger attempts = new AtomicInteger ();
+		executor.execute ( () -> {
+			if ( attempts.incrementAndGet () < 3 ) throw new IllegalStateException ( "Test exception" );
+		});
+		assertEquals ( "Wrong no. of attempts!", 3, attempts.get () );
+		
+		// Non-intercepted exceptions aren't re-attempted
+		attempts.set ( 0 );
+		try {
+			executor.execute ( () -> {
+				attempts.incrementAndGet ();
+				throw new IllegalArgumentException ( "Test exception" );
+			});
+			throw new AssertionError ( "Exception not re-thrown!" );
+		}
+		catch ( IllegalArgumentException ex ) {
+			assertEquals ( "Non-intercepted exception re-attempted!", 1, attempts.get () );
+		}
+		
+		StatsExecutor stats = executor.getStatsExecutor ();
+		stats.doStats ();
+		assertEquals ( "Wrong total calls!", 2, stats.getLastTotalCalls () );
+		assertEquals ( "Wrong failed calls!", 1, stats.getLastFailedCalls () );
+	}
+	
+	@Test
+	public void testCircuitBreaker ()
+	{
+		ResilientExecutor executor = ResilientExecutor.builder ( "Test Service" )
+			.withRetry ( 3, 0, 0 )
+			.withCircuitBreaker ( 10, IllegalStateException.class )
+			.build ();
+		executor.getCircuitBreaker ().setMinCalls ( 5 );
+		
+		AtomicInteger attempts = new AtomicInteger ();
+		for ( int i = 0; i < 10; i++ )
+		{
+			try {
+				executor.execute ( () -> {
+					attempts.incrementAndGet ();
+					throw new IllegalStateException ( "Test exception" );
+				});
+			}
+			catch ( IllegalStateException | CircuitBreakerOpenException ex ) {
+				// Expected
+			}
+		}
+		assertEquals ( "Circuit breaker not open!", 
+			CircuitBreakerExecutor.State.OPEN, executor.getCircuitBreaker ().getState () 
+		);
+		assertEquals ( "Calls not stopped by the circuit breaker!", 5, attempts.get () );
+	}
+	
+	@Test
+	public void testCircuitBreakerErrors () throws InterruptedException
+	{
+		ResilientExecutor executor = ResilientExecutor.builder ( "Test Service" )
+			.withCircuitBreaker ( 10 )
+			.build ();
+		CircuitBreakerExecutor breaker = executor.getCircuitBreaker ()
+			.setMinCalls ( 5 )
+			.setOpenStateTime ( 100 )
+			.setHalfOpenCalls ( 1 );
+		
+		for ( int i = 0; i < 6; i++ )
+		{
+			try {
+				executor.execute ( () -> { throw new InternalError ( "Test error" ); } );
+			}
+			catch ( InternalError | CircuitBreakerOpenException ex ) {
+				// Expected
+			}
+		}
+		assertEquals ( "Errors didn't open the circuit!", CircuitBreakerExecutor.State.OPEN, breaker.getState () );
+		
+		// The half-open trial fails with an error, its permit must be released anyway
+		Thread.sleep ( 200 );
+		try {
+			executor.execute ( () -> { throw new InternalError ( "Test error" ); } );
+		}
+		catch ( InternalError ex ) {
+			// Expected
+		}
+		assertEquals ( "Wrong state after half-open error!", CircuitBreakerExecutor.State.OPEN, breaker.getState () );
+		
+		Thread.sleep ( 200 );
+		executor.execute ( () -> {} );
+		assertEquals ( "Wrong state after half-open success!", CircuitBreakerExecutor.State.CLOSED, breaker.getState () );
+	}
+	
+	@Test
+	public void testConfiguration ()
+	{
+		Map<String, Object> config = Map.of ( 
+			"retry", Map.of ( 
+				"maxAttempts", 5, "maxPauseTime", "100", 
+				"exceptions", List.of ( IllegalStateException.class.getName () ) 
+			),
+			"rateLimit", Map.of ( "rate", 2.5 ),
+			"circuitBreaker.windowSize", "50",
+			"otherStuff", "foo"
+		);
+		
+		ResilientExecutor executor = ResilientExecutor.builder ( "Test Service" ).configure ( config ).build ();
+		
+		assertNull ( "Stats shouldn't be enabled!", executor.getStatsExecutor () );
+		assertNull ( "Timeout shouldn't be enabled!", executor.getTimeoutExecutor () );
+		assertEquals ( "Wrong maxAttempts!", 5, executor.getRetryExecutor ().getMaxAttempts () );
+		assertEquals ( "Wrong maxPauseTime!", 100, executor.getRetryExecutor ().getMaxPauseTime () );
+		assertEquals ( "Wrong retry exceptions!", 
+			IllegalStateException.class, executor.getRetryExecutor ().getInterceptedExceptions () [ 0 ] 
+		);
+		assertEquals ( "Wrong rate!", 2.5, executor.getRateLimitedExecutor ().getRate (), 1E-6 );
+		assertEquals ( "Wrong window size!", 50, executor.getCircuitBreaker ().getWindowSize () );
+		
+		Properties props = new Properties ();
+		props.setProperty ( "stats.samplingTime", "1000" );
+		props.setProperty ( "timeout.time", "500" );
+		executor = ResilientExecutor.builder ( "Test Service" ).configure ( props ).build ();
+		
+		assertNotNull ( "Stats not enabled!", executor.getStatsExecutor () );
+		assertEquals ( "Wrong sampling time!", 1000, executor.getStatsExecutor ().getSamplingTime () );
+		assertEquals ( "Wrong timeout!", 500, executor.getTimeoutExecutor ().getTimeout () );
+		assertNull ( "Retry shouldn't be enabled!", executor.getRetryExecutor () );
+	}
+	
+	@Test ( expected = IllegalArgumentException.class )
+	public void testInvalidConfiguration ()
+	{
+		ResilientExecutor.builder ( "Test Service" ).configure ( Map.of ( "retry.maxAttempts", "foo" ) );
+	}
+	
+	@Test
+	public void testMissingRequiredConfiguration ()
+	{
+		for ( String key: new String[] { "rateLimit.foo", "timeout.foo" } )
+		{
+			try {
+				ResilientExecutor.builder ( "Test Service" ).configure ( Map.of ( key, "1" ) );
+				throw new AssertionError ( "Missing key not detected for " + key + "!" );
+			}
+			catch ( IllegalArgumentException ex ) {
+				String section = key.split ( "\\." ) [ 0 ];
+				assertTrue ( "Missing key not reported!", ex.getMessage ().contains ( section + "." ) );
+			}
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link SingleFlight}.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class SingleFlightTest
+{
+	private final AtomicInteger calls = new AtomicInteger ();
+	
+	private String slowLoad ( String key )
+	{
+		calls.incrementAndGet ();
+		try {
+			Thread.sleep ( 300 );
+		}
+		catch ( InterruptedException ex ) {
+			throw new RuntimeException ( ex );
+		}
+		if ( "bad".equals ( key ) ) throw new IllegalArgumentException ( "Test exception" );
+		return key.toUpperCase ();
+	}
+	
+	@Test
+	public void testDeduplication () throws Exception
+	{
+		SingleFlight<String, String> flight = new SingleFlight<> ();
+		// Just to check it composes
+		flight.setExecutor ( 
+			new ChainExecutor ( new RateLimitedExecutor ( 100 ) )
+				.wrap ( new MultipleAttemptsExecutor ( IllegalStateException.class ) ) 
+		);
+		
+		ExecutorService executor = Executors.newFixedThreadPool ( 10 );
+		List<CompletableFuture<String>> results = new ArrayList<> ();
+		for ( int i = 0; i < 10; i++ )
+			results.add ( CompletableFuture.supplyAsync ( () -> flight.get ( "a", this::slowLoad ), executor ) );
+		for ( CompletableFuture<String> result: results )
+			assertEquals ( "Wrong result!", "A", result.get ( 5, TimeUnit.SECONDS ) );
+		executor.shutdown ();
+		
+		assertEquals ( "Wrong no. of calls!", 1, calls.get () );
+		assertEquals ( "In-flight calls not cleaned!", 0, flight.getInFlightCount () );
+		
+		// Without memoisation, a new call is made
+		flight.get ( "a", this::slowLoad );
+		assertEquals ( "Wrong no. of calls after completion!", 2, calls.get () );
+	}
+
+	@Test
+	public void testMemoisation () throws Exception
+	{
+		SingleFlight<String, String> flight = new SingleFlight<> ( 500 );
+		assertEquals ( "Wrong result!", "A", flight.get ( "a", this::slowLoad ) );
+		assertEquals ( "Wrong memoised result!", "A", flight.get ( "a", this::slowLoad ) );
+		assertEquals ( "Result not memoised!", 1, calls.get () );
+		
+		Thread.sleep ( 600 );
+		flight.get ( "a", this::slowLoad );
+		assertEquals ( "Memoised result not expired!", 2, calls.get () );
+	}
+	
+	@Test
+	public void testFailure () throws Exception
+	{
+		SingleFlight<String, String> flight = new SingleFlight<> ( 500 );
+
+		ExecutorService executor = Executors.newFixedThreadPool ( 3 );
+		List<CompletableFuture<String>> results = new ArrayList<> ();
+		for ( int i = 0; i < 3; i++ )
+			results.add ( CompletableFuture.supplyAsync ( () -> flight.get ( "bad", this::slowLoad ), executor ) );
+		for ( CompletableFuture<String> result: results )
+		{
+			try {
+				result.get ( 5, TimeUnit.SECONDS );
+				throw new AssertionError ( "Failure not reported!" );
+			}
+			catch ( ExecutionException ex ) {
+				assertTrue ( "Wrong exception!", ex.getCause () instanceof IllegalArgumentException );
+			}
+		}
+		executor.shutdown ();
+		assertEquals ( "Wrong no. of calls!", 1, calls.get () );
+	}
+	
+	@Test
+	public void testAsyncExecutor () throws Exception
+	{
+		SingleFlight<String, String> flight = new SingleFlight<String, String> ( 500 )
+			.setExecutor ( new AsyncRateLimitedExecutor ( 100 ) );
+
+		ExecutorService executor = Executors.newFixedThreadPool ( 3 );
+		List<CompletableFuture<String>> results = new ArrayList<> ();
+		for ( int i = 0; i < 3; i++ )
+			results.add ( CompletableFuture.supplyAsync ( () -> flight.get ( "a", this::slowLoad ), executor ) );
+		for ( CompletableFuture<String> result: results )
+			assertEquals ( "Wrong result!", "A", result.get ( 5, TimeUnit.SECONDS ) );
+		assertEquals ( "Wrong memoised result!", "A", flight.get ( "a", this::slowLoad ) );
+		assertEquals ( "Wrong no. of calls!", 1, calls.get () );
+		
+		try {
+			flight.get ( "bad", this::slowLoad );
+			throw new AssertionError ( "Failure not reported!" );
+		}
+		catch ( IllegalArgumentException ex ) {
+			// Expected
+		}
+		executor.shutdown ();
+		assertEquals ( "In-flight calls not cleaned!", 0, flight.getInFlightCount () );
+	}
+	
+	@Test
+	public void testSwallowingExecutor ()
+	{
+		SingleFlight<String, String> flight = new SingleFlight<String, String> ()
+			.setExecutor ( new StatsExecutor ( "JUnit SingleFlight Test", 60000 ).setPopUpExceptions ( false ) );
+		try {
+			flight.get ( "bad", this::slowLoad );
+			throw new AssertionError ( "Failure not reported!" );
+		}
+		catch ( IllegalArgumentException ex ) {
+			// Expected
+		}
+	}
+}
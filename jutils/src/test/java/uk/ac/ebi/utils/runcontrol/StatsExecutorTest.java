@@ -1,5 +1,10 @@
 package uk.ac.ebi.utils.runcontrol;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang3.RandomUtils;
@@ -114,4 +119,109 @@ public class StatsExecutorTest
 		);
 		Assert.assertTrue ( "Multi-thread failed calls wrong!", Math.abs ( failRate - FAIL_RATE ) < 0.1 );
 	}	
+
+	@Test
+	public void testLatencyStats () throws InterruptedException
+	{
+		long samplingTime = 500;
+		StatsExecutor executor = new StatsExecutor ( "JUnit Latency Test", samplingTime ).setPopUpExceptions ( false );
+		Tester tester = new Tester ();
+		tester.failRate = 0;
+
+		XStopWatch timer = new XStopWatch ();
+		for ( timer.start (); timer.getTime () <= samplingTime * 2; )
+			executor.execute ( tester );
+		
+		ExecutionStats stats = executor.getLastStats ();
+		Assert.assertNotNull ( "No stats reported!", stats );
+		log.info ( "Last stats: {}", stats );
+		
+		Assert.assertTrue ( "No calls in the stats!", stats.getTotalCalls () > 0 );
+		Assert.assertEquals ( "Wrong failed calls!", 0, stats.getFailedCalls () );
+		Assert.assertTrue ( "p50 > p95!", stats.getP50Latency () <= stats.getP95Latency () );
+		Assert.assertTrue ( "p95 > p99!", stats.getP95Latency () <= stats.getP99Latency () );
+		Assert.assertTrue ( "p99 > max!", stats.getP99Latency () <= stats.getMaxLatency () );
+		
+		// Tester takes up to TASK_MAX_TIME, plus some scheduling noise 
+		Assert.assertTrue ( 
+			"Max latency is too high!", stats.getMaxLatency () < TimeUnit.MILLISECONDS.toNanos ( TASK_MAX_TIME * 10 ) 
+		);
+	}
+
+	@Test
+	public void testSinksAndCumulativeMode () throws Exception
+	{
+		long samplingTime = 200;
+		RingBufferStatsSink ringSink = new RingBufferStatsSink ( 50 );
+		Path csvPath = Files.createTempFile ( "stats-executor-test-", ".csv" );
+		Files.delete ( csvPath );
+		
+		try ( CsvStatsSink csvSink = new CsvStatsSink ( csvPath ) )
+		{
+			StatsExecutor executor = new StatsExecutor ( "JUnit Sinks Test", samplingTime )
+				.setPopUpExceptions ( false )
+				.setCumulative ( true )
+				.addStatsSink ( ringSink )
+				.addStatsSink ( csvSink );
+	
+			Tester tester = new Tester ();
+			XStopWatch timer = new XStopWatch ();
+			for ( timer.start (); timer.getTime () <= samplingTime * 3; )
+				executor.execute ( tester );
+			
+			// Idle time, the throughput must decrease accordingly
+			Thread.sleep ( samplingTime * 3 );
+			
+			List<ExecutionStats> statsList = ringSink.getStats ();
+			Assert.assertTrue ( "Not enough stats in the ring buffer!", statsList.size () >= 4 );
+			
+			for ( int i = 1; i < statsList.size (); i++ )
+			{
+				ExecutionStats prev = statsList.get ( i - 1 ), stats = statsList.get ( i );
+				Assert.assertTrue ( "Cumulative calls decreased!", stats.getTotalCalls () >= prev.getTotalCalls () );
+				Assert.assertEquals ( "Cumulative start time changed!", prev.getStartTime (), stats.getStartTime () );
+			}
+			
+			ExecutionStats last = ringSink.getLast ();
+			double expectedThroughput = 60000d * last.getTotalCalls () / last.getElapsedTime ();
+			Assert.assertEquals ( "Wrong throughput!", expectedThroughput, last.getThroughput (), 1E-6 );
+			Assert.assertTrue ( "Elapsed time doesn't include idle time!", last.getElapsedTime () >= samplingTime * 5 );
+			
+			List<String> csvLines = Files.readAllLines ( csvPath );
+			log.info ( "CSV output:\n{}", String.join ( "\n", csvLines ) );
+			Assert.assertEquals ( "Wrong CSV headers!", CsvStatsSink.HEADERS, csvLines.get ( 0 ) );
+			Assert.assertTrue ( "No CSV rows!", csvLines.size () > 1 );
+			Assert.assertTrue ( "Wrong CSV row!", csvLines.get ( 1 ).startsWith ( "\"JUnit Sinks Test\"," ) );
+		}
+		finally {
+			Files.deleteIfExists ( csvPath );
+		}
+	}
+	
+	@Test
+	public void testCsvSinkLocale () throws Exception
+	{
+		Path csvPath = Files.createTempFile ( "stats-executor-test-", ".csv" );
+		Files.delete ( csvPath );
+		Locale defaultLocale = Locale.getDefault ();
+		try
+		{
+			// This uses the comma as decimal separator
+			Locale.setDefault ( Locale.ITALY );
+			try ( CsvStatsSink csvSink = new CsvStatsSink ( csvPath ) ) {
+				csvSink.record ( new ExecutionStats ( "JUnit Locale Test", 0, 7000, 1234, 7, 0, 10577.14, 10, 20, 30, 40 ) );
+			}
+			
+			List<String> csvLines = Files.readAllLines ( csvPath );
+			log.info ( "CSV output:\n{}", String.join ( "\n", csvLines ) );
+			Assert.assertEquals ( "Wrong CSV columns!", 
+				CsvStatsSink.HEADERS.split ( "," ).length, csvLines.get ( 1 ).split ( "," ).length
+			);
+			Assert.assertTrue ( "Wrong throughput format!", csvLines.get ( 1 ).contains ( ",10577.14," ) );
+		}
+		finally {
+			Locale.setDefault ( defaultLocale );
+			Files.deleteIfExists ( csvPath );
+		}
+	}
 }
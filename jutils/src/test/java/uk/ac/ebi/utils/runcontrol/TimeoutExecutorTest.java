@@ -0,0 +1,95 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import uk.ac.ebi.utils.time.XStopWatch;
+
+/**
+ * Tests {@link TimeoutExecutor}.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class TimeoutExecutorTest
+{
+	@Test
+	public void testTimeout () throws Exception
+	{
+		TimeoutExecutor executor = new TimeoutExecutor ( 100 );
+		AtomicBoolean isInterrupted = new AtomicBoolean ( false );
+		
+		XStopWatch timer = new XStopWatch ();
+		timer.start ();
+		try {
+			executor.execute ( () -> {
+				try {
+					Thread.sleep ( 5000 );
+				}
+				catch ( InterruptedException ex ) {
+					isInterrupted.set ( true );
+				}
+			});
+			throw new AssertionError ( "Timeout not reported!" );
+		}
+		catch ( ExecutionTimeoutException ex ) {
+			// Expected
+		}
+		long time = timer.getTime ();
+		
+		assertTrue ( "Timeout not respected (" + time + " ms)!", time < 1000 );
+		Thread.sleep ( 100 );
+		assertTrue ( "Action not interrupted!", isInterrupted.get () );
+		assertEquals ( "Wrong timeouts count!", 1, executor.getTimedOutCalls () );
+		
+		// Fast actions are fine, exceptions are rethrown
+		executor.execute ( () -> {} );
+		try {
+			executor.execute ( () -> { throw new IllegalStateException ( "Test exception" ); } );
+			throw new AssertionError ( "Action exception not re-thrown!" );
+		}
+		catch ( IllegalStateException ex ) {
+			// Expected
+		}
+		assertEquals ( "Wrong timeouts count after fast calls!", 1, executor.getTimedOutCalls () );
+	}
+	
+	@Test
+	public void testStats ()
+	{
+		StatsExecutor stats = new StatsExecutor ( "Test Service", 60000 ).setPopUpExceptions ( false );
+		TimeoutExecutor timeoutExecutor = new TimeoutExecutor ( 50 );
+		ChainExecutor executor = new ChainExecutor ( timeoutExecutor ).wrap ( stats );
+		
+		for ( int i = 0; i < 10; i++ )
+		{
+			boolean isSlow = i % 5 == 0;
+			executor.execute ( () -> {
+				try {
+					Thread.sleep ( isSlow ? 1000 : 1 );
+				}
+				catch ( InterruptedException ex ) {
+					// Just stop
+				}
+			});
+		}
+		stats.doStats ();
+		
+		ExecutionStats lastStats = stats.getLastStats ();
+		assertEquals ( "Wrong no. of calls!", 10, lastStats.getTotalCalls () );
+		assertEquals ( "Wrong no. of failed calls!", 2, lastStats.getFailedCalls () );
+		assertEquals ( "Wrong no. of timed out calls!", 2, lastStats.getTimedOutCalls () );
+		assertEquals ( "Wrong no. of timed out calls (executor)!", 2, timeoutExecutor.getTimedOutCalls () );
+	}
+
+	@Test ( expected = IllegalArgumentException.class )
+	public void testInvalidTimeout ()
+	{
+		new TimeoutExecutor ( 0 );
+	}
+}
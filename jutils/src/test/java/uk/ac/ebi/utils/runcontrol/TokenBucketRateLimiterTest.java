@@ -0,0 +1,99 @@
+package uk.ac.ebi.utils.runcontrol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.ac.ebi.utils.time.XStopWatch;
+
+/**
+ * Tests {@link TokenBucketRateLimiter}.
+ *
+ * @author brandizi
+ * <dl><dt>Date:</dt><dd>19 Oct 2026</dd></dl>
+ *
+ */
+public class TokenBucketRateLimiterTest
+{
+	private Logger log = LoggerFactory.getLogger ( this.getClass () );
+
+	@Test
+	public void testInMemory ()
+	{
+		TokenBucketRateLimiter limiter = new TokenBucketRateLimiter ( 20, 1, new InMemoryTokenBucketState () );
+		AtomicInteger calls = new AtomicInteger ();
+		
+		XStopWatch timer = new XStopWatch ();
+		timer.start ();
+		for ( int i = 0; i < 21; i++ ) limiter.execute ( calls::incrementAndGet );
+		long time = timer.getTime ();
+		
+		log.info ( "Time for 21 calls: {} ms", time );
+		assertEquals ( "Wrong no. of calls!", 21, calls.get () );
+		assertTrue ( "Rate not respected!", time >= 950 );
+		assertTrue ( "Too slow!", time < 2000 );
+	}
+
+	@Test
+	public void testTryAcquire ()
+	{
+		TokenBucketRateLimiter limiter = new TokenBucketRateLimiter ( 1, 2, new InMemoryTokenBucketState () );
+		assertTrue ( "First permit not acquired!", limiter.tryAcquire ( 2, 0 ) );
+		assertFalse ( "Permit acquired beyond the capacity!", limiter.tryAcquire ( 1, 100 ) );
+		assertTrue ( "Permit not acquired within a good timeout!", limiter.tryAcquire ( 1, 1500 ) );
+	}
+	
+	/**
+	 * Simulates two processes with two limiters that share the same file. 
+	 */
+	@Test
+	public void testMappedFile () throws Exception
+	{
+		Path path = Files.createTempFile ( "token-bucket-test-", ".bin" );
+		Files.delete ( path );
+		
+		try ( 
+			MappedFileTokenBucketState state1 = new MappedFileTokenBucketState ( path );
+			MappedFileTokenBucketState state2 = new MappedFileTokenBucketState ( path )
+		)
+		{
+			TokenBucketRateLimiter[] limiters = new TokenBucketRateLimiter[] {
+				new TokenBucketRateLimiter ( 20, 1, state1 ),
+				new TokenBucketRateLimiter ( 20, 1, state2 )
+			};
+			AtomicInteger calls = new AtomicInteger ();
+			
+			XStopWatch timer = new XStopWatch ();
+			timer.start ();
+
+			Thread[] threads = new Thread [ limiters.length ];
+			for ( int i = 0; i < threads.length; i++ )
+			{
+				TokenBucketRateLimiter limiter = limiters [ i ];
+				threads [ i ] = new Thread ( () -> {
+					for ( int j = 0; j < 10; j++ ) limiter.execute ( calls::incrementAndGet );
+				});
+				threads [ i ].start ();
+			}
+			for ( Thread thread: threads ) thread.join ();
+			long time = timer.getTime ();
+
+			// 20 calls, the first one is free
+			log.info ( "Time for 20 calls from 2 limiters: {} ms", time );
+			assertEquals ( "Wrong no. of calls!", 20, calls.get () );
+			assertTrue ( "Shared rate not respected!", time >= 900 );
+			assertTrue ( "Too slow!", time < 2000 );
+		}
+		finally {
+			Files.deleteIfExists ( path );
+		}
+	}
+}